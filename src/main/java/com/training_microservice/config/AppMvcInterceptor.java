@@ -1,32 +1,89 @@
 package com.training_microservice.config;
 
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.stereotype.Component;
-import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.util.UUID;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Puts the request's trace id, the X-Trace-Id header or a new one, in the MDC and echoes
+ * it in the response, then removes it when the request thread is released so a pooled
+ * thread does not log the next request under it. The service and repository time the
+ * request accumulated is recorded as "training.request.phase" per handler pattern.
+ */
 @Component
-public class AppMvcInterceptor implements HandlerInterceptor {
-    
-    private String TRACE_HEADER = "X-Trace-Id";
-    
-    public AppMvcInterceptor() {
-        MDC.put("transactionId", UUID.randomUUID().toString());
-    }
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AppMvcInterceptor implements AsyncHandlerInterceptor {
+
+    // the async redispatch of a streamed response keeps the id of the original dispatch
+    private static final String TRACE_ID_ATTRIBUTE = AppMvcInterceptor.class.getName() + ".traceId";
 
+    private final MeterRegistry meterRegistry;
+    private final Map<String, PhaseTimers> phaseTimers = new ConcurrentHashMap<>();
 
+    public AppMvcInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-        String traceID = UUID.randomUUID().toString();
-        if (request.getHeader(TRACE_HEADER) != null && !request.getHeader(TRACE_HEADER).isEmpty()) {
-            traceID = request.getHeader(TRACE_HEADER);
+        String traceId = (String) request.getAttribute(TRACE_ID_ATTRIBUTE);
+        if (traceId == null) {
+            String header = request.getHeader(Tracing.TRACE_HEADER);
+            traceId = Tracing.isValidTraceId(header) ? header : Tracing.newTraceId();
+            request.setAttribute(TRACE_ID_ATTRIBUTE, traceId);
+            response.setHeader(Tracing.TRACE_HEADER, traceId);
         }
-        MDC.put("transactionId", traceID);
+        MDC.put(Tracing.TRACE_ID_KEY, traceId);
+        RequestTrace.start();
         return true;
     }
-}
\ No newline at end of file
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        finish(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        finish(request);
+    }
+
+    private void finish(HttpServletRequest request) {
+        MDC.remove(Tracing.TRACE_ID_KEY);
+        RequestTrace trace = RequestTrace.finish();
+        if (trace == null || trace.serviceNanos == 0 && trace.repositoryNanos == 0) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        PhaseTimers timers = phaseTimers.computeIfAbsent(pattern != null ? pattern.toString() : "UNKNOWN",
+                this::register);
+        timers.service().record(trace.serviceNanos, TimeUnit.NANOSECONDS);
+        timers.repository().record(trace.repositoryNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private PhaseTimers register(String uri) {
+        return new PhaseTimers(timer(uri, "service"), timer(uri, "repository"));
+    }
+
+    private Timer timer(String uri, String phase) {
+        return Timer.builder("training.request.phase")
+                .description("Time a request spent in a phase, service includes its repository calls")
+                .tag("uri", uri)
+                .tag("phase", phase)
+                .register(meterRegistry);
+    }
+
+    private record PhaseTimers(Timer service, Timer repository) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.training_microservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.archive")
+@Data
+public class ArchiveProperties {
+
+    /** months kept as raw trainings, the current one included */
+    private int hotMonths = 12;
+}
@@ -0,0 +1,25 @@
+package com.training_microservice.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String TRAINER_SUMMARY_CACHE = "trainerSummaries";
+
+    /**
+     * Entries carry the summary version they were read at and a hit is only served while
+     * that version is still current. A summary read before a write and put after the
+     * writer's eviction is stamped with the old version and reloaded, whatever the
+     * backend; evictions only free the entry early.
+     */
+    @Bean
+    public Cache trainerSummaryCache(CacheManager cacheManager) {
+        return cacheManager.getCache(TRAINER_SUMMARY_CACHE);
+    }
+}
@@ -0,0 +1,31 @@
+package com.training_microservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.inmemory.durability")
+@Data
+public class InMemoryDurabilityProperties {
+
+    private boolean enabled = false;
+    private String directory = "./data/training-log";
+    private FsyncPolicy fsync = FsyncPolicy.GROUP_COMMIT;
+    private Duration fsyncInterval = Duration.ofMillis(100);
+    private DataSize regionSize = DataSize.ofMegabytes(64);
+    private DataSize compactAfter = DataSize.ofMegabytes(256);
+    private Duration compactCheckInterval = Duration.ofMinutes(1);
+
+    public enum FsyncPolicy {
+        /** force the log before every write returns */
+        PER_WRITE,
+        /** writers wait for a shared force that covers every write appended meanwhile */
+        GROUP_COMMIT,
+        /** force every fsync-interval, a crash loses at most that window */
+        INTERVAL
+    }
+}
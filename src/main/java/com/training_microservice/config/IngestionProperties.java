@@ -0,0 +1,37 @@
+package com.training_microservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.ingestion")
+@Data
+public class IngestionProperties {
+
+    private Batch batch = new Batch();
+    private WriteBehind writeBehind = new WriteBehind();
+    private Idempotency idempotency = new Idempotency();
+
+    @Data
+    public static class Batch {
+        private int chunkSize = 500;
+    }
+
+    @Data
+    public static class WriteBehind {
+        private boolean enabled = false;
+        private int capacity = 10_000;
+        private int maxBatchSize = 500;
+        private Duration shutdownTimeout = Duration.ofSeconds(30);
+        private Duration statusRetention = Duration.ofMinutes(15);
+    }
+
+    @Data
+    public static class Idempotency {
+        private int recentKeys = 100_000;
+        private Duration keyRetention = Duration.ofHours(1);
+    }
+}
@@ -0,0 +1,33 @@
+package com.training_microservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Reactive profile wiring. Tomcat stays on the classpath for the servlet API, so Netty is
+ * selected explicitly, and reads run on the event loop, which is only safe with the
+ * non-blocking in-memory store. Its durability is refused as well, the log writes,
+ * fsyncs and group commit waits of a durable save would stall every connection of the
+ * loop.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory(
+            @Value("${app.repository}") String repository,
+            @Value("${app.inmemory.durability.enabled:false}") boolean durable) {
+        if (!"in-memory".equals(repository)) {
+            throw new IllegalStateException("The reactive API needs app.repository=in-memory, got " + repository);
+        }
+        if (durable) {
+            throw new IllegalStateException("The reactive API can't run with app.inmemory.durability.enabled, "
+                    + "durable writes block on the disk");
+        }
+        return new NettyReactiveWebServerFactory();
+    }
+}
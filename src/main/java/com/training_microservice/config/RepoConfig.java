@@ -1,13 +1,34 @@
 package com.training_microservice.config;
 
+import com.training_microservice.dao.TraineeSummaryRepo;
+import com.training_microservice.dao.TraineeSummaryRepository;
+import com.training_microservice.dao.TrainerSummaryRepo;
+import com.training_microservice.dao.TrainerSummaryRepository;
+import com.training_microservice.dao.TrainingArchiveRepo;
+import com.training_microservice.dao.TrainingArchiveRepository;
 import com.training_microservice.dao.TrainingRepo;
 import com.training_microservice.dao.TrainingRepository;
+import com.training_microservice.dao.TrainingTypeRepo;
+import com.training_microservice.dao.TrainingTypeRepository;
+import com.training_microservice.dao.inmemory.DurableTrainingStorage;
+import com.training_microservice.dao.inmemory.TraineeSummaryStorageInMemory;
+import com.training_microservice.dao.inmemory.TrainerSummaryStorageInMemory;
+import com.training_microservice.dao.inmemory.TrainingArchiveStorageInMemory;
 import com.training_microservice.dao.inmemory.TrainingStorageInMemory;
+import com.training_microservice.dao.inmemory.TrainingTypeStorageInMemory;
+import com.training_microservice.service.TrainerSummaryRebuildService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
 @Configuration
 @ComponentScan(basePackages = "com.training_microservice")
 public class RepoConfig {
@@ -20,8 +41,84 @@ public class RepoConfig {
 
     @Bean
     @ConditionalOnProperty(name = "app.repository", havingValue = "in-memory")
-    public TrainingRepo inMemoryTrainingRepoBean() {
-        return new TrainingStorageInMemory();
+    public TrainingRepo inMemoryTrainingRepoBean(InMemoryDurabilityProperties durabilityProperties,
+                                                 SummaryProperties summaryProperties) throws IOException {
+        int parallelism = summaryProperties.getBulk().getParallelism();
+        TrainingStorageInMemory storage = new TrainingStorageInMemory(new ForkJoinPool(
+                parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors()));
+        // closed on shutdown through the inferred close() destroy method
+        return durabilityProperties.isEnabled() ? new DurableTrainingStorage(storage, durabilityProperties) : storage;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.repository", havingValue = "jpa")
+    public TrainingArchiveRepo jpaTrainingArchiveRepoBean(TrainingArchiveRepository trainingArchiveRepository) {
+        return trainingArchiveRepository;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.repository", havingValue = "in-memory")
+    public TrainingArchiveRepo inMemoryTrainingArchiveRepoBean(TrainingRepo inMemoryTrainingRepoBean) {
+        // the archive copies from the columns of the store, behind the log when there is one
+        return new TrainingArchiveStorageInMemory(inMemoryTrainingRepoBean instanceof DurableTrainingStorage durable
+                ? durable.getStorage() : (TrainingStorageInMemory) inMemoryTrainingRepoBean);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.repository", havingValue = "jpa")
+    public TrainerSummaryRepo jpaTrainerSummaryRepoBean(TrainerSummaryRepository trainerSummaryRepository) {
+        return trainerSummaryRepository;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.repository", havingValue = "in-memory")
+    public TrainerSummaryRepo inMemoryTrainerSummaryRepoBean() {
+        return new TrainerSummaryStorageInMemory();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.repository", havingValue = "jpa")
+    public TraineeSummaryRepo jpaTraineeSummaryRepoBean(TraineeSummaryRepository traineeSummaryRepository) {
+        return traineeSummaryRepository;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.repository", havingValue = "in-memory")
+    public TraineeSummaryRepo inMemoryTraineeSummaryRepoBean() {
+        return new TraineeSummaryStorageInMemory();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.repository", havingValue = "jpa")
+    public TrainingTypeRepo jpaTrainingTypeRepoBean(TrainingTypeRepository trainingTypeRepository) {
+        return trainingTypeRepository;
     }
 
+    @Bean
+    @ConditionalOnProperty(name = "app.repository", havingValue = "in-memory")
+    public TrainingTypeRepo inMemoryTrainingTypeRepoBean() {
+        return new TrainingTypeStorageInMemory();
+    }
+
+    /**
+     * Only trainings are logged, the in-memory summaries are rebuilt from the recovered ones.
+     */
+    @Bean
+    @ConditionalOnExpression("'${app.repository:}' == 'in-memory' and ${app.inmemory.durability.enabled:false}")
+    public ApplicationListener<ApplicationReadyEvent> recoveredSummaryRebuild(TrainerSummaryRebuildService trainerSummaryRebuildService) {
+        return event -> {
+            trainerSummaryRebuildService.rebuildTrainerSummaries();
+            trainerSummaryRebuildService.rebuildTraineeSummaries();
+        };
+    }
+
+    /**
+     * Keeps the training repository eager under spring.main.lazy-initialization, so the
+     * schema migration and validation (JPA) or the log replay (durable in-memory) happen
+     * at startup rather than on the first request.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter trainingRepoExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(TrainingRepo.class);
+    }
 }
@@ -0,0 +1,132 @@
+package com.training_microservice.config;
+
+import com.training_microservice.dao.TraineeSummaryRepo;
+import com.training_microservice.dao.TrainerSummaryRepo;
+import com.training_microservice.dao.TrainingRepo;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every TrainingRepo, TrainerSummaryRepo, TraineeSummaryRepo and TrainingArchiveRepo
+ * call as "training.repository" and records how many rows came back as
+ * "training.repository.results", both tagged with the repository, the method and the
+ * active backend. The time is also added to the RequestTrace of the current request.
+ * Streams are only timed up to the point they are opened, their rows are counted by
+ * whoever consumes them.
+ */
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+    private final String backend;
+    private final Map<String, RepositoryMeters> meters = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsAspect(MeterRegistry meterRegistry, @Value("${app.repository:jpa}") String backend) {
+        this.meterRegistry = meterRegistry;
+        this.backend = backend;
+    }
+
+    @Around("execution(* com.training_microservice.dao.TrainingRepo.*(..)) " +
+            "|| execution(* com.training_microservice.dao.TrainerSummaryRepo.*(..)) " +
+            "|| execution(* com.training_microservice.dao.TraineeSummaryRepo.*(..)) " +
+            "|| execution(* com.training_microservice.dao.TrainingArchiveRepo.*(..))")
+    public Object timeRepositoryCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        String repository = repositoryName(joinPoint.getThis());
+        RepositoryMeters repositoryMeters = meters.computeIfAbsent(repository + "." + method.getName(),
+                key -> register(repository, method.getName()));
+        RequestTrace trace = RequestTrace.current();
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            long elapsed = System.nanoTime() - start;
+            repositoryMeters.timer().record(elapsed, TimeUnit.NANOSECONDS);
+            if (trace != null) {
+                trace.repositoryNanos += elapsed;
+            }
+            int size = resultSize(result);
+            if (size >= 0) {
+                repositoryMeters.results().record(size);
+            }
+            return result;
+        } catch (Throwable e) {
+            long elapsed = System.nanoTime() - start;
+            timer(repository, method.getName(), e.getClass().getSimpleName()).record(elapsed, TimeUnit.NANOSECONDS);
+            if (trace != null) {
+                trace.repositoryNanos += elapsed;
+            }
+            throw e;
+        }
+    }
+
+    private static String repositoryName(Object repository) {
+        if (repository instanceof TrainingRepo) {
+            return "TrainingRepo";
+        }
+        if (repository instanceof TrainerSummaryRepo) {
+            return "TrainerSummaryRepo";
+        }
+        if (repository instanceof TraineeSummaryRepo) {
+            return "TraineeSummaryRepo";
+        }
+        return "TrainingArchiveRepo";
+    }
+
+    private RepositoryMeters register(String repository, String method) {
+        return new RepositoryMeters(timer(repository, method, "none"),
+                DistributionSummary.builder("training.repository.results")
+                        .description("Rows returned by a repository call")
+                        .tag("repository", repository)
+                        .tag("method", method)
+                        .tag("backend", backend)
+                        .publishPercentileHistogram()
+                        .maximumExpectedValue(10_000.0)
+                        .register(meterRegistry));
+    }
+
+    private Timer timer(String repository, String method, String exception) {
+        return Timer.builder("training.repository")
+                .description("Latency of a repository call")
+                .tag("repository", repository)
+                .tag("method", method)
+                .tag("backend", backend)
+                .tag("exception", exception)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Row count of a result, deletes and updates report their affected rows; -1 when
+     * the result has no meaningful size.
+     */
+    private static int resultSize(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof Integer affectedRows) {
+            return affectedRows;
+        }
+        return -1;
+    }
+
+    private record RepositoryMeters(Timer timer, DistributionSummary results) {
+    }
+}
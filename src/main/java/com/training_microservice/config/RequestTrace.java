@@ -0,0 +1,36 @@
+package com.training_microservice.config;
+
+/**
+ * Time the current request spent in services and repositories, added up on the request
+ * thread between AppMvcInterceptor.preHandle and afterCompletion. Work handed to other
+ * threads is not counted.
+ */
+final class RequestTrace {
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    long serviceNanos;
+    long repositoryNanos;
+    // nested service calls are counted once, by the outermost one
+    int serviceDepth;
+
+    private RequestTrace() {
+    }
+
+    static void start() {
+        CURRENT.set(new RequestTrace());
+    }
+
+    /**
+     * @return the trace of the request served by this thread, null outside a request
+     */
+    static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    static RequestTrace finish() {
+        RequestTrace trace = CURRENT.get();
+        CURRENT.remove();
+        return trace;
+    }
+}
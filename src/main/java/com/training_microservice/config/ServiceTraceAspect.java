@@ -0,0 +1,41 @@
+package com.training_microservice.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds the time of the outermost *Service call of a request to its RequestTrace. Outside
+ * a traced request (scheduled jobs, the write-behind writer, WebFlux) it only proceeds.
+ */
+@Aspect
+@Component
+public class ServiceTraceAspect {
+
+    @Around("execution(public * com.training_microservice.service.*Service.*(..))")
+    public Object traceServiceCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        RequestTrace trace = RequestTrace.current();
+        if (trace == null || trace.serviceDepth > 0) {
+            return proceed(joinPoint, trace);
+        }
+        long start = System.nanoTime();
+        try {
+            return proceed(joinPoint, trace);
+        } finally {
+            trace.serviceNanos += System.nanoTime() - start;
+        }
+    }
+
+    private static Object proceed(ProceedingJoinPoint joinPoint, RequestTrace trace) throws Throwable {
+        if (trace == null) {
+            return joinPoint.proceed();
+        }
+        trace.serviceDepth++;
+        try {
+            return joinPoint.proceed();
+        } finally {
+            trace.serviceDepth--;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.training_microservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.summary")
+@Data
+public class SummaryProperties {
+
+    private Bulk bulk = new Bulk();
+
+    @Data
+    public static class Bulk {
+        private int maxTrainers = 1000;
+        /** 0 uses one thread per available processor */
+        private int parallelism = 0;
+    }
+}
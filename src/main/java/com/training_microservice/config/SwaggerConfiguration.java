@@ -1,5 +1,7 @@
 package com.training_microservice.config;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import springfox.documentation.builders.ApiInfoBuilder;
@@ -10,7 +12,12 @@ import springfox.documentation.service.Contact;
 import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
 
+/**
+ * Left out when springfox is off (the lean profile) or not packaged (the lean build).
+ */
 @Configuration
+@ConditionalOnClass(name = "springfox.documentation.spring.web.plugins.Docket")
+@ConditionalOnProperty(name = "springfox.documentation.enabled", havingValue = "true", matchIfMissing = true)
 public class SwaggerConfiguration {
 
     @Bean
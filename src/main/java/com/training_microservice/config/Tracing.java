@@ -0,0 +1,100 @@
+package com.training_microservice.config;
+
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Trace id of the current request, kept in the MDC under transactionId so every log line
+ * carries it. Ids are 16 hex digits from ThreadLocalRandom: they only have to tell
+ * requests apart in the logs, so they skip the SecureRandom behind UUID.randomUUID.
+ */
+public final class Tracing {
+
+    public static final String TRACE_HEADER = "X-Trace-Id";
+    public static final String TRACE_ID_KEY = "transactionId";
+
+    private static final int MAX_TRACE_ID_LENGTH = 64;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private Tracing() {
+    }
+
+    public static String newTraceId() {
+        long bits = ThreadLocalRandom.current().nextLong();
+        char[] traceId = new char[16];
+        for (int i = traceId.length - 1; i >= 0; i--) {
+            traceId[i] = HEX_DIGITS[(int) bits & 0xf];
+            bits >>>= 4;
+        }
+        return new String(traceId);
+    }
+
+    public static String currentTraceId() {
+        return MDC.get(TRACE_ID_KEY);
+    }
+
+    /**
+     * Whether a caller supplied trace id can go into the logs as it is: up to 64 letters,
+     * digits, '-', '_' or '.'.
+     */
+    public static boolean isValidTraceId(String traceId) {
+        if (traceId == null || traceId.isEmpty() || traceId.length() > MAX_TRACE_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < traceId.length(); i++) {
+            char c = traceId.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '-' || c == '_' || c == '.')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs the task with the MDC of the calling thread, and leaves the thread running it
+     * with the MDC it had before.
+     */
+    public static Runnable withCurrentContext(Runnable task) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            setContext(context);
+            try {
+                task.run();
+            } finally {
+                setContext(previous);
+            }
+        };
+    }
+
+    /**
+     * Runs the task under the given trace id, or as it is when there is none.
+     */
+    public static void runWithTraceId(String traceId, Runnable task) {
+        if (traceId == null) {
+            task.run();
+            return;
+        }
+        String previous = MDC.get(TRACE_ID_KEY);
+        MDC.put(TRACE_ID_KEY, traceId);
+        try {
+            task.run();
+        } finally {
+            if (previous != null) {
+                MDC.put(TRACE_ID_KEY, previous);
+            } else {
+                MDC.remove(TRACE_ID_KEY);
+            }
+        }
+    }
+
+    private static void setContext(Map<String, String> context) {
+        if (context != null) {
+            MDC.setContextMap(context);
+        } else {
+            MDC.clear();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.training_microservice.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+@Configuration
+public class TracingConfig {
+
+    /**
+     * Picked up by Boot's applicationTaskExecutor, which runs the async part of MVC
+     * requests such as streamed exports, so their logs keep the request's trace id.
+     */
+    @Bean
+    public TaskDecorator tracingTaskDecorator() {
+        return Tracing::withCurrentContext;
+    }
+}
@@ -0,0 +1,21 @@
+package com.training_microservice.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Fails startup when app.execution.virtual-threads=true is set on a jar built before
+ * JDK 21: VirtualThreadConfig lives in src/main/java21 and only the java21 Maven profile
+ * compiles it.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.execution.virtual-threads", havingValue = "true")
+@ConditionalOnMissingClass("com.training_microservice.config.VirtualThreadConfig")
+public class VirtualThreadUnavailableConfig {
+
+    public VirtualThreadUnavailableConfig() {
+        throw new IllegalStateException("app.execution.virtual-threads requires a build on JDK 21 or newer, "
+                + "this jar was built without the java21 profile");
+    }
+}
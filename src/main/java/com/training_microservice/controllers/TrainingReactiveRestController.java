@@ -0,0 +1,212 @@
+package com.training_microservice.controllers;
+
+import com.training_microservice.domain.records.TrainingRecord;
+import com.training_microservice.service.TrainingBatchService;
+import com.training_microservice.service.TrainingIdempotencyService;
+import com.training_microservice.service.TrainingListingService;
+import com.training_microservice.service.TrainingService;
+import com.training_microservice.service.TrainingWriteBehindService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The /training contract on WebFlux, active with the reactive profile. Reads are served
+ * on the event loop from the in-memory store (see ReactiveConfig). Writes, batches and the
+ * bulk summaries, which can wait on the summary write gate, the store lock or a fork-join,
+ * run on boundedElastic. Listings and summaries are streamed as NDJSON, read from the
+ * store under the subscriber's demand.
+ */
+@Api(tags = "Training Controller", value = "Operations for creating Trainings in the application")
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/training")
+public class TrainingReactiveRestController {
+
+    @Autowired
+    private TrainingService trainingService;
+
+    @Autowired
+    private TrainingBatchService trainingBatchService;
+
+    @Autowired
+    private TrainingListingService trainingListingService;
+
+    @Autowired(required = false)
+    private TrainingWriteBehindService trainingWriteBehindService;
+
+    @Autowired
+    private TrainingIdempotencyService trainingIdempotencyService;
+
+    @ApiOperation(value = "Save Training", notes = "Register a new Training in the system, in write-behind mode it is queued and answered with 202. " +
+            "A retry with the same Idempotency-Key, or the same trainer, trainee, date and name, is answered 200 without saving")
+    @PostMapping
+    public Mono<ResponseEntity> saveTraining(@RequestBody @Validated TrainingRecord.TrainingRequest trainingRequest,
+                                             @RequestHeader(value = TrainingIdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false)
+                                             String idempotencyKey){
+        return Mono.fromCallable(() -> trainingIdempotencyService.saveTraining(trainingRequest, idempotencyKey,
+                        trainingWriteBehindService != null ? trainingWriteBehindService::saveTraining : trainingService::saveTraining))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorMap(IllegalArgumentException.class, this::badRequest);
+    }
+
+    @ApiOperation(value = "Get Training Ingestion Status", notes = "Report whether a Training accepted in write-behind mode was saved")
+    @GetMapping("/ingestion/{trackingId}")
+    public Mono<ResponseEntity<TrainingRecord.TrainingIngestionStatus>> getIngestionStatus(@PathVariable String trackingId){
+        if (trainingWriteBehindService == null) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+        return Mono.fromCallable(() -> trainingWriteBehindService.getIngestionStatus(trackingId));
+    }
+
+    @ApiOperation(value = "Save Training Batch", notes = "Register a list of Trainings, reporting the result of each item")
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<TrainingRecord.TrainingBatchResponse>> saveTrainingBatch(@RequestBody List<TrainingRecord.TrainingRequest> trainingRequests){
+        return Mono.fromCallable(() -> trainingBatchService.saveTrainings(trainingRequests))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @ApiOperation(value = "Save Training Batch Stream", notes = "Register Trainings sent as NDJSON, one Training per line")
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<TrainingRecord.TrainingBatchResponse>> saveTrainingBatchStream(@RequestBody Flux<String> ndjsonLines){
+        return trainingBatchService.saveTrainings(ndjsonLines);
+    }
+
+    @ApiOperation(value = "Get Training Page by Trainee username",
+            notes = "Retrieve Trainings of the Trainee ordered by date, pass the returned nextCursor to get the next page")
+    @GetMapping("/trainee/{traineeUsername}")
+    public Mono<ResponseEntity<TrainingRecord.TrainingPage<TrainingRecord.TraineeTrainingResponse>>> getTrainingPageByTraineeUsername(
+            @PathVariable String traineeUsername, TrainingRecord.TrainingFilterRequest filter,
+            @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size){
+        return Mono.fromCallable(() -> trainingListingService.getTrainingPageByTrainee(traineeUsername, filter, cursor, size));
+    }
+
+    @ApiOperation(value = "Get Training Page by Trainer username",
+            notes = "Retrieve Trainings of the Trainer ordered by date, pass the returned nextCursor to get the next page")
+    @GetMapping("/trainer/{trainerUsername}")
+    public Mono<ResponseEntity<TrainingRecord.TrainingPage<TrainingRecord.TrainerTrainingResponse>>> getTrainingPageByTrainerUsername(
+            @PathVariable String trainerUsername, TrainingRecord.TrainingFilterRequest filter,
+            @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size){
+        return Mono.fromCallable(() -> trainingListingService.getTrainingPageByTrainer(trainerUsername, filter, cursor, size));
+    }
+
+    @ApiOperation(value = "Export Trainings by Trainee username", notes = "Stream every matching Training of the Trainee as NDJSON")
+    @GetMapping(value = "/trainee/{traineeUsername}/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<TrainingRecord.TraineeTrainingResponse> exportTrainingsByTraineeUsername(
+            @PathVariable String traineeUsername, TrainingRecord.TrainingFilterRequest filter){
+        return trainingListingService.streamTrainingsByTrainee(traineeUsername, filter)
+                .onErrorMap(IllegalArgumentException.class, this::badRequest);
+    }
+
+    @ApiOperation(value = "Export Trainings by Trainer username", notes = "Stream every matching Training of the Trainer as NDJSON")
+    @GetMapping(value = "/trainer/{trainerUsername}/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<TrainingRecord.TrainerTrainingResponse> exportTrainingsByTrainerUsername(
+            @PathVariable String trainerUsername, TrainingRecord.TrainingFilterRequest filter){
+        return trainingListingService.streamTrainingsByTrainer(trainerUsername, filter)
+                .onErrorMap(IllegalArgumentException.class, this::badRequest);
+    }
+
+    @ApiOperation(value = "Get Training List by Trainer username", notes = "Retrieve Training List by Trainer username")
+    @GetMapping("/summary/trainer/{trainerUsername}")
+    public Mono<ResponseEntity<TrainingRecord.TrainerTrainingSummary>> getTrainingSummaryByTrainerUsername(@PathVariable String trainerUsername,
+                                                                                                         ServerWebExchange exchange){
+        return Mono.fromCallable(() -> {
+            String eTag = trainingService.getTrainerSummaryETag(trainerUsername, false);
+            if (eTag == null) {
+                return ResponseEntity.notFound().<TrainingRecord.TrainerTrainingSummary>build();
+            }
+            if (exchange.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).<TrainingRecord.TrainerTrainingSummary>build();
+            }
+            return withETag(trainingService.getVersionedTrainingSummaryByTrainer(trainerUsername), false,
+                    Function.<TrainingRecord.TrainerTrainingSummary>identity());
+        });
+    }
+
+    @ApiOperation(value = "Get compact Training summary by Trainer username",
+            notes = "Retrieve the Trainer summary as one array of 12 monthly durations per year")
+    @GetMapping(value = "/summary/trainer/{trainerUsername}", produces = TrainingRecord.CompactTrainerTrainingSummary.MEDIA_TYPE)
+    public Mono<ResponseEntity<TrainingRecord.CompactTrainerTrainingSummary>> getCompactTrainingSummaryByTrainerUsername(@PathVariable String trainerUsername,
+                                                                                                                       ServerWebExchange exchange){
+        return Mono.fromCallable(() -> {
+            String eTag = trainingService.getTrainerSummaryETag(trainerUsername, true);
+            if (eTag == null) {
+                return ResponseEntity.notFound().build();
+            }
+            if (exchange.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+            return withETag(trainingService.getVersionedTrainingSummaryByTrainer(trainerUsername), true,
+                    summary -> new TrainingRecord.CompactTrainerTrainingSummary(summary.summary()));
+        });
+    }
+
+    @ApiOperation(value = "Get Training summary by Trainer username and Training type",
+            notes = "Retrieve the Trainer summary broken down by Training type, with the total of each type")
+    @GetMapping("/summary/trainer/{trainerUsername}/types")
+    public Mono<ResponseEntity<TrainingRecord.TrainerTrainingTypeSummary>> getTrainingTypeSummaryByTrainerUsername(@PathVariable String trainerUsername){
+        return Mono.fromCallable(() -> trainingService.getTrainingTypeSummaryByTrainer(trainerUsername));
+    }
+
+    @ApiOperation(value = "Get Training summary by Trainee username",
+            notes = "Retrieve the monthly workload of a Trainee across all of their Trainers")
+    @GetMapping("/summary/trainee/{traineeUsername}")
+    public Mono<ResponseEntity<TrainingRecord.TraineeTrainingSummary>> getTrainingSummaryByTraineeUsername(@PathVariable String traineeUsername){
+        return Mono.fromCallable(() -> trainingService.getTrainingSummaryByTrainee(traineeUsername));
+    }
+
+    @ApiOperation(value = "Get Training Summaries by Trainer usernames",
+            notes = "Retrieve the summaries of several Trainers keyed by username, Trainers without Trainings are left out")
+    @PostMapping(value = "/summary/trainer", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Map<String, TrainingRecord.TrainerTrainingSummary>>> getTrainingSummariesByTrainerUsernames(
+            @RequestBody List<String> trainerUsernames){
+        return Mono.fromCallable(() -> trainingService.getTrainingSummariesByTrainers(trainerUsernames))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @ApiOperation(value = "Export Trainer Summaries", notes = "Stream the monthly duration of every Trainer as NDJSON")
+    @GetMapping(value = "/summary/trainer", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<TrainingRecord.TrainerMonthlyDuration> exportTrainerSummaries(){
+        return trainingService.streamTrainerSummaries();
+    }
+
+    @ApiOperation(value = "Delete Trainings By Trainer Username", notes = "Remove every Training of the Trainer, returning how many were removed")
+    @DeleteMapping("/{trainerUsername}")
+    public Mono<ResponseEntity<TrainingRecord.TrainingDeleteResponse>> deleteTrainingByTrainerUsername(@PathVariable String trainerUsername){
+        return Mono.fromCallable(() -> trainingService.deleteTrainingByTrainerUsername(trainerUsername))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Tags the body with the version of the summary it was built from, which can be newer
+     * than the version checked against If-None-Match.
+     */
+    private static <T> ResponseEntity<T> withETag(ResponseEntity<TrainingRecord.VersionedTrainerTrainingSummary> response,
+                                                  boolean compact, Function<TrainingRecord.TrainerTrainingSummary, T> body) {
+        if (response.getBody() == null) {
+            return ResponseEntity.status(response.getStatusCode()).build();
+        }
+        return ResponseEntity.ok().eTag(TrainingService.summaryETag(response.getBody().version(), compact))
+                .cacheControl(CacheControl.noCache()).body(body.apply(response.getBody().summary()));
+    }
+
+    private ResponseStatusException badRequest(Throwable e) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+    }
+}
@@ -1,43 +1,206 @@
 package com.training_microservice.controllers;
 
 import com.training_microservice.domain.records.TrainingRecord;
+import com.training_microservice.service.TrainingBatchService;
+import com.training_microservice.service.TrainingIdempotencyService;
+import com.training_microservice.service.TrainingListingService;
 import com.training_microservice.service.TrainingService;
+import com.training_microservice.service.TrainingWriteBehindService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import reactor.core.publisher.Flux;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 @Api(tags = "Training Controller", value = "Operations for creating Trainings in the application")
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/training")
 public class TrainingRestController {
 
     @Autowired
     private TrainingService trainingService;
 
+    @Autowired
+    private TrainingBatchService trainingBatchService;
+
+    @Autowired
+    private TrainingListingService trainingListingService;
+
+    @Autowired(required = false)
+    private TrainingWriteBehindService trainingWriteBehindService;
+
+    @Autowired
+    private TrainingIdempotencyService trainingIdempotencyService;
+
 //    @ApiImplicitParam(name = "Authorization", value = "Authorization Token Bearer", required = true,
 //            dataTypeClass = String.class, paramType = "header", example = "Bearer")
-    @ApiOperation(value = "Save Training", notes = "Register a new Training in the system")
+    @ApiOperation(value = "Save Training", notes = "Register a new Training in the system, in write-behind mode it is queued and answered with 202. " +
+            "A retry with the same Idempotency-Key, or the same trainer, trainee, date and name, is answered 200 without saving")
     @PostMapping
-    public ResponseEntity saveTraining(@RequestBody @Validated TrainingRecord.TrainingRequest trainingRequest){
-        return trainingService.saveTraining(trainingRequest);
+    public ResponseEntity saveTraining(@RequestBody @Validated TrainingRecord.TrainingRequest trainingRequest,
+                                       @RequestHeader(value = TrainingIdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false)
+                                       String idempotencyKey){
+        return trainingIdempotencyService.saveTraining(trainingRequest, idempotencyKey,
+                trainingWriteBehindService != null ? trainingWriteBehindService::saveTraining : trainingService::saveTraining);
+    }
+
+    @ApiOperation(value = "Get Training Ingestion Status", notes = "Report whether a Training accepted in write-behind mode was saved")
+    @GetMapping("/ingestion/{trackingId}")
+    public ResponseEntity<TrainingRecord.TrainingIngestionStatus> getIngestionStatus(@PathVariable String trackingId){
+        if (trainingWriteBehindService == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return trainingWriteBehindService.getIngestionStatus(trackingId);
+    }
+
+    @ApiOperation(value = "Save Training Batch", notes = "Register a list of Trainings, reporting the result of each item")
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<TrainingRecord.TrainingBatchResponse> saveTrainingBatch(@RequestBody List<TrainingRecord.TrainingRequest> trainingRequests){
+        return trainingBatchService.saveTrainings(trainingRequests);
+    }
+
+    @ApiOperation(value = "Save Training Batch Stream", notes = "Register Trainings sent as NDJSON, one Training per line")
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<TrainingRecord.TrainingBatchResponse> saveTrainingBatchStream(HttpServletRequest request) throws IOException {
+        return trainingBatchService.saveTrainings(request.getInputStream());
+    }
+
+    @ApiOperation(value = "Get Training Page by Trainee username",
+            notes = "Retrieve Trainings of the Trainee ordered by date, pass the returned nextCursor to get the next page")
+    @GetMapping("/trainee/{traineeUsername}")
+    public ResponseEntity<TrainingRecord.TrainingPage<TrainingRecord.TraineeTrainingResponse>> getTrainingPageByTraineeUsername(
+            @PathVariable String traineeUsername, TrainingRecord.TrainingFilterRequest filter,
+            @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size){
+        return trainingListingService.getTrainingPageByTrainee(traineeUsername, filter, cursor, size);
+    }
+
+    @ApiOperation(value = "Get Training Page by Trainer username",
+            notes = "Retrieve Trainings of the Trainer ordered by date, pass the returned nextCursor to get the next page")
+    @GetMapping("/trainer/{trainerUsername}")
+    public ResponseEntity<TrainingRecord.TrainingPage<TrainingRecord.TrainerTrainingResponse>> getTrainingPageByTrainerUsername(
+            @PathVariable String trainerUsername, TrainingRecord.TrainingFilterRequest filter,
+            @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size){
+        return trainingListingService.getTrainingPageByTrainer(trainerUsername, filter, cursor, size);
+    }
+
+    @ApiOperation(value = "Export Trainings by Trainee username", notes = "Stream every matching Training of the Trainee as NDJSON")
+    @GetMapping(value = "/trainee/{traineeUsername}/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportTrainingsByTraineeUsername(@PathVariable String traineeUsername,
+                                                 TrainingRecord.TrainingFilterRequest filter,
+                                                 HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        try {
+            trainingListingService.exportTrainingsByTrainee(traineeUsername, filter, response.getOutputStream());
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @ApiOperation(value = "Export Trainings by Trainer username", notes = "Stream every matching Training of the Trainer as NDJSON")
+    @GetMapping(value = "/trainer/{trainerUsername}/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportTrainingsByTrainerUsername(@PathVariable String trainerUsername,
+                                                 TrainingRecord.TrainingFilterRequest filter,
+                                                 HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        try {
+            trainingListingService.exportTrainingsByTrainer(trainerUsername, filter, response.getOutputStream());
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
     }
 
     @ApiOperation(value = "Get Training List by Trainer username", notes = "Retrieve Training List by Trainer username")
 //    @ApiImplicitParam(name = "Authorization", value = "Authorization Token Bearer", required = true,
 //            dataTypeClass = String.class, paramType = "header", example = "Bearer")
     @GetMapping("/summary/trainer/{trainerUsername}")
-    public ResponseEntity<TrainingRecord.TrainerTrainingSummary> getTrainingSummaryByTrainerUsername(@PathVariable String trainerUsername){
-        return trainingService.getTrainingSummaryByTrainer(trainerUsername);
+    public ResponseEntity<TrainingRecord.TrainerTrainingSummary> getTrainingSummaryByTrainerUsername(@PathVariable String trainerUsername,
+                                                                                                   WebRequest webRequest){
+        String eTag = trainingService.getTrainerSummaryETag(trainerUsername, false);
+        if (eTag == null) {
+            return ResponseEntity.notFound().build(); // no version, the trainer never had a training
+        }
+        if (webRequest.checkNotModified(eTag)) {
+            return null; // 304 written by checkNotModified
+        }
+        return withETag(trainingService.getVersionedTrainingSummaryByTrainer(trainerUsername), false, Function.identity());
+    }
+
+    @ApiOperation(value = "Get compact Training summary by Trainer username",
+            notes = "Retrieve the Trainer summary as one array of 12 monthly durations per year")
+    @GetMapping(value = "/summary/trainer/{trainerUsername}", produces = TrainingRecord.CompactTrainerTrainingSummary.MEDIA_TYPE)
+    public ResponseEntity<TrainingRecord.CompactTrainerTrainingSummary> getCompactTrainingSummaryByTrainerUsername(@PathVariable String trainerUsername,
+                                                                                                                 WebRequest webRequest){
+        String eTag = trainingService.getTrainerSummaryETag(trainerUsername, true);
+        if (eTag == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return withETag(trainingService.getVersionedTrainingSummaryByTrainer(trainerUsername), true,
+                summary -> new TrainingRecord.CompactTrainerTrainingSummary(summary.summary()));
+    }
+
+    @ApiOperation(value = "Get Training summary by Trainer username and Training type",
+            notes = "Retrieve the Trainer summary broken down by Training type, with the total of each type")
+    @GetMapping("/summary/trainer/{trainerUsername}/types")
+    public ResponseEntity<TrainingRecord.TrainerTrainingTypeSummary> getTrainingTypeSummaryByTrainerUsername(@PathVariable String trainerUsername){
+        return trainingService.getTrainingTypeSummaryByTrainer(trainerUsername);
     }
 
-    @ApiOperation(value = "Delete Trainings By Trainer Username")
+    @ApiOperation(value = "Get Training summary by Trainee username",
+            notes = "Retrieve the monthly workload of a Trainee across all of their Trainers")
+    @GetMapping("/summary/trainee/{traineeUsername}")
+    public ResponseEntity<TrainingRecord.TraineeTrainingSummary> getTrainingSummaryByTraineeUsername(@PathVariable String traineeUsername){
+        return trainingService.getTrainingSummaryByTrainee(traineeUsername);
+    }
+
+    @ApiOperation(value = "Get Training Summaries by Trainer usernames",
+            notes = "Retrieve the summaries of several Trainers keyed by username, Trainers without Trainings are left out")
+    @PostMapping(value = "/summary/trainer", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, TrainingRecord.TrainerTrainingSummary>> getTrainingSummariesByTrainerUsernames(
+            @RequestBody List<String> trainerUsernames){
+        return trainingService.getTrainingSummariesByTrainers(trainerUsernames);
+    }
+
+    @ApiOperation(value = "Export Trainer Summaries", notes = "Stream the monthly duration of every Trainer as NDJSON")
+    @GetMapping(value = "/summary/trainer", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<TrainingRecord.TrainerMonthlyDuration> exportTrainerSummaries(){
+        return trainingService.streamTrainerSummaries();
+    }
+
+    @ApiOperation(value = "Delete Trainings By Trainer Username", notes = "Remove every Training of the Trainer, returning how many were removed")
 //    @ApiImplicitParam(name = "Authorization", value = "Authorization Token Bearer", required = true,
 //            dataTypeClass = String.class, paramType = "header", example = "Bearer")
     @DeleteMapping("/{trainerUsername}")
-    public ResponseEntity<String> deleteTrainingByTrainerUsername(@PathVariable String trainerUsername){
+    public ResponseEntity<TrainingRecord.TrainingDeleteResponse> deleteTrainingByTrainerUsername(@PathVariable String trainerUsername){
         return trainingService.deleteTrainingByTrainerUsername(trainerUsername);
     }
+
+    /**
+     * Tags the body with the version of the summary it was built from, which can be newer
+     * than the version checked against If-None-Match.
+     */
+    private static <T> ResponseEntity<T> withETag(ResponseEntity<TrainingRecord.VersionedTrainerTrainingSummary> response,
+                                                  boolean compact, Function<TrainingRecord.TrainerTrainingSummary, T> body) {
+        if (response.getBody() == null) {
+            return ResponseEntity.status(response.getStatusCode()).build();
+        }
+        return ResponseEntity.ok().eTag(TrainingService.summaryETag(response.getBody().version(), compact))
+                .cacheControl(CacheControl.noCache()).body(body.apply(response.getBody().summary()));
+    }
 }
@@ -0,0 +1,48 @@
+package com.training_microservice.dao;
+
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.Map;
+
+/**
+ * Adds to a row keyed by a unique constraint, creating it when missing, as one atomic step.
+ * MySQL does it in one INSERT … ON DUPLICATE KEY UPDATE. Elsewhere the row is updated,
+ * inserted when the update found none and updated again when a concurrent writer inserted
+ * it first. The statements run through JDBC in the caller's transaction, so the losing
+ * insert does not mark the JPA transaction rollback-only.
+ */
+abstract class SummaryUpsertSupport {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private volatile Boolean upsertStatement;
+
+    protected SummaryUpsertSupport(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    protected void upsert(String upsert, String update, String insert, Map<String, ?> parameters) {
+        if (hasUpsertStatement()) {
+            jdbcTemplate.update(upsert, parameters);
+            return;
+        }
+        if (jdbcTemplate.update(update, parameters) == 0) {
+            try {
+                jdbcTemplate.update(insert, parameters);
+            } catch (DuplicateKeyException e) {
+                jdbcTemplate.update(update, parameters);
+            }
+        }
+    }
+
+    private boolean hasUpsertStatement() {
+        if (upsertStatement == null) {
+            DatabaseDriver driver = jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<DatabaseDriver>) connection ->
+                    DatabaseDriver.fromProductName(connection.getMetaData().getDatabaseProductName()));
+            upsertStatement = driver == DatabaseDriver.MYSQL || driver == DatabaseDriver.MARIADB;
+        }
+        return upsertStatement;
+    }
+}
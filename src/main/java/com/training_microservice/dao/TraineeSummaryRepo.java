@@ -0,0 +1,32 @@
+package com.training_microservice.dao;
+
+import com.training_microservice.domain.entities.TraineeMonthlySummary;
+
+import java.util.List;
+
+public interface TraineeSummaryRepo {
+    TraineeMonthlySummary save(TraineeMonthlySummary value);
+
+    List<TraineeMonthlySummary> findAll();
+    List<TraineeMonthlySummary> findSummaryByTrainee(String traineeUsername);
+
+    /**
+     * Adds the duration and count, negative when trainings are removed, to an existing
+     * trainee/year/month row.
+     * @return number of rows updated, 0 when the month has no row yet
+     */
+    int addTrainings(String traineeUsername, Integer summaryYear, Integer summaryMonth,
+                     Long trainingDuration, Long trainingCount);
+
+    /**
+     * Adds the duration and count to the trainee/year/month row, opening the row on the
+     * month's first training. Concurrent first trainings of a month both land in the one row.
+     */
+    void upsertTrainings(String traineeUsername, Integer summaryYear, Integer summaryMonth,
+                         Long trainingDuration, Long trainingCount);
+
+    /**
+     * Removes the trainee/year/month row once no training is left in it.
+     */
+    void deleteEmptySummary(String traineeUsername, Integer summaryYear, Integer summaryMonth);
+}
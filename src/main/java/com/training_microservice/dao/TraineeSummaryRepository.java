@@ -0,0 +1,34 @@
+package com.training_microservice.dao;
+
+import com.training_microservice.domain.entities.TraineeMonthlySummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TraineeSummaryRepository extends JpaRepository<TraineeMonthlySummary, Long>, TraineeSummaryRepo {
+
+    @Query("SELECT ts FROM TraineeMonthlySummary ts WHERE ts.traineeUsername = :traineeUsername")
+    List<TraineeMonthlySummary> findSummaryByTrainee(@Param("traineeUsername") String traineeUsername);
+
+    @Modifying
+    @Query("UPDATE TraineeMonthlySummary ts SET ts.totalDuration = ts.totalDuration + :trainingDuration, " +
+            "ts.trainingCount = ts.trainingCount + :trainingCount " +
+            "WHERE ts.traineeUsername = :traineeUsername AND ts.summaryYear = :summaryYear AND ts.summaryMonth = :summaryMonth")
+    int addTrainings(@Param("traineeUsername") String traineeUsername,
+                     @Param("summaryYear") Integer summaryYear,
+                     @Param("summaryMonth") Integer summaryMonth,
+                     @Param("trainingDuration") Long trainingDuration,
+                     @Param("trainingCount") Long trainingCount);
+
+    @Modifying
+    @Query("DELETE FROM TraineeMonthlySummary ts WHERE ts.traineeUsername = :traineeUsername " +
+            "AND ts.summaryYear = :summaryYear AND ts.summaryMonth = :summaryMonth AND ts.trainingCount <= 0")
+    void deleteEmptySummary(@Param("traineeUsername") String traineeUsername,
+                            @Param("summaryYear") Integer summaryYear,
+                            @Param("summaryMonth") Integer summaryMonth);
+}
@@ -0,0 +1,34 @@
+package com.training_microservice.dao;
+
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.Map;
+
+/**
+ * The atomic writes of TraineeSummaryRepository, see SummaryUpsertSupport.
+ */
+class TraineeSummaryRepositoryImpl extends SummaryUpsertSupport {
+
+    private static final String UPSERT =
+            "INSERT INTO trainee_monthly_summary (trainee_username, summary_year, summary_month, total_duration, training_count) " +
+            "VALUES (:traineeUsername, :summaryYear, :summaryMonth, :trainingDuration, :trainingCount) " +
+            "ON DUPLICATE KEY UPDATE total_duration = total_duration + VALUES(total_duration), " +
+            "training_count = training_count + VALUES(training_count)";
+    private static final String UPDATE =
+            "UPDATE trainee_monthly_summary SET total_duration = total_duration + :trainingDuration, " +
+            "training_count = training_count + :trainingCount " +
+            "WHERE trainee_username = :traineeUsername AND summary_year = :summaryYear AND summary_month = :summaryMonth";
+    private static final String INSERT =
+            "INSERT INTO trainee_monthly_summary (trainee_username, summary_year, summary_month, total_duration, training_count) " +
+            "VALUES (:traineeUsername, :summaryYear, :summaryMonth, :trainingDuration, :trainingCount)";
+
+    TraineeSummaryRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate);
+    }
+
+    public void upsertTrainings(String traineeUsername, Integer summaryYear, Integer summaryMonth,
+                                Long trainingDuration, Long trainingCount) {
+        upsert(UPSERT, UPDATE, INSERT, Map.of("traineeUsername", traineeUsername, "summaryYear", summaryYear,
+                "summaryMonth", summaryMonth, "trainingDuration", trainingDuration, "trainingCount", trainingCount));
+    }
+}
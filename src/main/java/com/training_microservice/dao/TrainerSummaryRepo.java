@@ -0,0 +1,55 @@
+package com.training_microservice.dao;
+
+import com.training_microservice.domain.entities.TrainerMonthlySummary;
+import com.training_microservice.domain.entities.TrainerSummaryVersion;
+import com.training_microservice.domain.records.TrainingRecord;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface TrainerSummaryRepo {
+    TrainerMonthlySummary save(TrainerMonthlySummary value);
+
+    List<TrainerMonthlySummary> findAll();
+    List<TrainerMonthlySummary> findSummaryByTrainer(String trainerUsername);
+
+    /**
+     * Every trainer month, read as the stream is consumed rather than loaded up front. The
+     * stream needs no surrounding transaction and is not a snapshot, months written while
+     * it is read may or may not be part of it.
+     */
+    Stream<TrainingRecord.TrainerMonthlyDuration> streamMonthlyDurations();
+
+    /**
+     * Adds the duration to an existing trainer/year/month row.
+     * @return number of rows updated, 0 when the month has no row yet
+     */
+    int addTrainingDuration(String trainerUsername, Integer summaryYear, Integer summaryMonth, Long trainingDuration);
+
+    /**
+     * Adds the duration to the trainer/year/month row, opening the row on the month's first
+     * training. Concurrent first trainings of a month both land in the one row.
+     */
+    void upsertTrainingDuration(String trainerUsername, Integer summaryYear, Integer summaryMonth, Long trainingDuration);
+
+    void deleteSummaryByTrainerUsername(String trainerUsername);
+    void deleteSummaryMonth(String trainerUsername, Integer summaryYear, Integer summaryMonth);
+
+    /**
+     * @return the version of the trainer's summary, null while the trainer has never changed
+     */
+    Long findSummaryVersion(String trainerUsername);
+
+    /**
+     * @return the version rows of those trainers that have one
+     */
+    List<TrainerSummaryVersion> findSummaryVersions(Collection<String> trainerUsernames);
+
+    /**
+     * Moves the trainer's summary to a new version, in one atomic step also for a trainer
+     * that has none yet. A trainer's first version is the current time, so a store
+     * recreated on restart doesn't hand out a version again.
+     */
+    void bumpSummaryVersion(String trainerUsername);
+}
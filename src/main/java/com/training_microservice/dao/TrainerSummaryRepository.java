@@ -0,0 +1,67 @@
+package com.training_microservice.dao;
+
+import com.training_microservice.domain.entities.TrainerMonthlySummary;
+import com.training_microservice.domain.entities.TrainerSummaryVersion;
+import com.training_microservice.domain.records.TrainingRecord;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface TrainerSummaryRepository extends JpaRepository<TrainerMonthlySummary, Long>, TrainerSummaryRepo {
+
+    Pageable STREAM_PAGE = PageRequest.of(0, 500);
+
+    @Query("SELECT ts FROM TrainerMonthlySummary ts WHERE ts.trainerUsername = :trainerUsername")
+    List<TrainerMonthlySummary> findSummaryByTrainer(@Param("trainerUsername") String trainerUsername);
+
+    @Query("SELECT ts FROM TrainerMonthlySummary ts WHERE ts.Id > :afterId ORDER BY ts.Id")
+    List<TrainerMonthlySummary> findSummaryPage(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Reads the months by id keyset, a page of STREAM_PAGE rows per query, so no
+     * connection or transaction is held between pages.
+     */
+    @Override
+    default Stream<TrainingRecord.TrainerMonthlyDuration> streamMonthlyDurations() {
+        return Stream.iterate(findSummaryPage(0L, STREAM_PAGE), page -> !page.isEmpty(),
+                        page -> page.size() < STREAM_PAGE.getPageSize() ? List.of()
+                                : findSummaryPage(page.get(page.size() - 1).getId(), STREAM_PAGE))
+                .flatMap(List::stream)
+                .map(summary -> new TrainingRecord.TrainerMonthlyDuration(summary.getTrainerUsername(),
+                        summary.getSummaryYear(), summary.getSummaryMonth(), summary.getTotalDuration()));
+    }
+
+    @Modifying
+    @Query("UPDATE TrainerMonthlySummary ts SET ts.totalDuration = ts.totalDuration + :trainingDuration " +
+            "WHERE ts.trainerUsername = :trainerUsername AND ts.summaryYear = :summaryYear AND ts.summaryMonth = :summaryMonth")
+    int addTrainingDuration(@Param("trainerUsername") String trainerUsername,
+                            @Param("summaryYear") Integer summaryYear,
+                            @Param("summaryMonth") Integer summaryMonth,
+                            @Param("trainingDuration") Long trainingDuration);
+
+    @Modifying
+    @Query("DELETE FROM TrainerMonthlySummary ts WHERE ts.trainerUsername = :trainerUsername")
+    void deleteSummaryByTrainerUsername(@Param("trainerUsername") String trainerUsername);
+
+    @Modifying
+    @Query("DELETE FROM TrainerMonthlySummary ts WHERE ts.trainerUsername = :trainerUsername " +
+            "AND ts.summaryYear = :summaryYear AND ts.summaryMonth = :summaryMonth")
+    void deleteSummaryMonth(@Param("trainerUsername") String trainerUsername,
+                            @Param("summaryYear") Integer summaryYear,
+                            @Param("summaryMonth") Integer summaryMonth);
+
+    @Query("SELECT sv.version FROM TrainerSummaryVersion sv WHERE sv.trainerUsername = :trainerUsername")
+    Long findSummaryVersion(@Param("trainerUsername") String trainerUsername);
+
+    @Query("SELECT sv FROM TrainerSummaryVersion sv WHERE sv.trainerUsername IN :trainerUsernames")
+    List<TrainerSummaryVersion> findSummaryVersions(@Param("trainerUsernames") Collection<String> trainerUsernames);
+}
@@ -0,0 +1,45 @@
+package com.training_microservice.dao;
+
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.Map;
+
+/**
+ * The atomic writes of TrainerSummaryRepository, see SummaryUpsertSupport.
+ */
+class TrainerSummaryRepositoryImpl extends SummaryUpsertSupport {
+
+    private static final String UPSERT_DURATION =
+            "INSERT INTO trainer_monthly_summary (trainer_username, summary_year, summary_month, total_duration) " +
+            "VALUES (:trainerUsername, :summaryYear, :summaryMonth, :trainingDuration) " +
+            "ON DUPLICATE KEY UPDATE total_duration = total_duration + VALUES(total_duration)";
+    private static final String UPDATE_DURATION =
+            "UPDATE trainer_monthly_summary SET total_duration = total_duration + :trainingDuration " +
+            "WHERE trainer_username = :trainerUsername AND summary_year = :summaryYear AND summary_month = :summaryMonth";
+    private static final String INSERT_DURATION =
+            "INSERT INTO trainer_monthly_summary (trainer_username, summary_year, summary_month, total_duration) " +
+            "VALUES (:trainerUsername, :summaryYear, :summaryMonth, :trainingDuration)";
+
+    private static final String UPSERT_VERSION =
+            "INSERT INTO trainer_summary_version (trainer_username, version) VALUES (:trainerUsername, :version) " +
+            "ON DUPLICATE KEY UPDATE version = version + 1";
+    private static final String UPDATE_VERSION =
+            "UPDATE trainer_summary_version SET version = version + 1 WHERE trainer_username = :trainerUsername";
+    private static final String INSERT_VERSION =
+            "INSERT INTO trainer_summary_version (trainer_username, version) VALUES (:trainerUsername, :version)";
+
+    TrainerSummaryRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate);
+    }
+
+    public void upsertTrainingDuration(String trainerUsername, Integer summaryYear, Integer summaryMonth,
+                                       Long trainingDuration) {
+        upsert(UPSERT_DURATION, UPDATE_DURATION, INSERT_DURATION, Map.of("trainerUsername", trainerUsername,
+                "summaryYear", summaryYear, "summaryMonth", summaryMonth, "trainingDuration", trainingDuration));
+    }
+
+    public void bumpSummaryVersion(String trainerUsername) {
+        upsert(UPSERT_VERSION, UPDATE_VERSION, INSERT_VERSION,
+                Map.of("trainerUsername", trainerUsername, "version", System.currentTimeMillis()));
+    }
+}
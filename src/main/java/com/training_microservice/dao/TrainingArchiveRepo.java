@@ -0,0 +1,54 @@
+package com.training_microservice.dao;
+
+import com.training_microservice.domain.entities.Training;
+import com.training_microservice.domain.entities.TrainingArchiveMonth;
+import com.training_microservice.domain.records.TrainingRecord;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Cold side of the trainings: the raw rows moved out of the hot store and their monthly
+ * aggregates. The grouped queries mirror the TrainingRepo ones over the aggregates, so a
+ * caller adds both results to cover the whole history; the pages and exports mirror them
+ * over the raw rows, in the same order, so a caller merges both.
+ */
+public interface TrainingArchiveRepo {
+    TrainingArchiveMonth save(TrainingArchiveMonth value);
+
+    /**
+     * Copies the hot trainings dated before the given day into the raw archive.
+     * @return number of trainings copied
+     */
+    int archiveTrainingsBefore(LocalDate before);
+
+    List<Training> findTrainingPageByTrainee(String username, LocalDate periodFrom, LocalDate periodTo,
+                                             Long trainingTypeId, LocalDate afterDate, Long afterId, Pageable pageable);
+    List<Training> findTrainingPageByTrainer(String username, LocalDate periodFrom, LocalDate periodTo,
+                                             Long trainingTypeId, LocalDate afterDate, Long afterId, Pageable pageable);
+    Stream<TrainingRecord.TraineeTrainingResponse> streamTrainingByTrainee(String username, LocalDate periodFrom,
+                                                                          LocalDate periodTo, Long trainingTypeId);
+    Stream<TrainingRecord.TrainerTrainingResponse> streamTrainingByTrainer(String username, LocalDate periodFrom,
+                                                                          LocalDate periodTo, Long trainingTypeId);
+
+    /**
+     * @return those of the given idempotency keys held by archived trainings
+     */
+    List<String> findIdempotencyKeys(Collection<String> idempotencyKeys);
+
+    List<TrainingRecord.TrainerMonthlyDuration> findMonthlyDurationByTrainer(String username);
+    List<TrainingRecord.TrainerMonthlyDuration> findMonthlyDurationByTrainers(Collection<String> usernames);
+    List<TrainingRecord.TrainerMonthlyDuration> findMonthlyDurations();
+    List<TrainingRecord.TrainerMonthlyTypeDuration> findMonthlyTypeDurationByTrainer(String username);
+    List<TrainingRecord.TraineeMonthlyDuration> findTraineeMonthlyDurationByTrainer(String trainerUsername);
+    List<TrainingRecord.TraineeMonthlyDuration> findTraineeMonthlyDurations();
+
+    /**
+     * @return number of archived trainings removed
+     */
+    int deleteArchivedTrainingByTrainerUsername(String trainerUsername);
+    void deleteArchivedMonthByTrainerUsername(String trainerUsername);
+}
@@ -0,0 +1,141 @@
+package com.training_microservice.dao;
+
+import com.training_microservice.domain.entities.Training;
+import com.training_microservice.domain.entities.TrainingArchiveMonth;
+import com.training_microservice.domain.records.TrainingRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+@Repository
+public interface TrainingArchiveRepository extends JpaRepository<TrainingArchiveMonth, Long>, TrainingArchiveRepo {
+
+    @Modifying
+    @Query("INSERT INTO ArchivedTraining (Id, traineeUsername, trainerUsername, trainingName, trainingTypeId, " +
+            "trainingDate, trainingDuration, idempotencyKey) " +
+            "SELECT tr.Id, tr.traineeUsername, tr.trainerUsername, tr.trainingName, tr.trainingTypeId, " +
+            "tr.trainingDate, tr.trainingDuration, tr.idempotencyKey " +
+            "FROM Training tr WHERE tr.trainingDate < :before")
+    int archiveTrainingsBefore(@Param("before") LocalDate before);
+
+    @Query("SELECT new com.training_microservice.domain.entities.Training(at.Id, at.traineeUsername, " +
+            "at.trainerUsername, at.trainingName, at.trainingTypeId, at.trainingDate, at.trainingDuration, " +
+            "at.idempotencyKey) " +
+            "FROM ArchivedTraining at WHERE at.traineeUsername = :username " +
+            "AND (:periodFrom IS NULL OR at.trainingDate >= :periodFrom) " +
+            "AND (:periodTo IS NULL OR at.trainingDate <= :periodTo) " +
+            "AND (:trainingTypeId IS NULL OR at.trainingTypeId = :trainingTypeId) " +
+            "AND (:afterDate IS NULL OR at.trainingDate > :afterDate " +
+            "OR (at.trainingDate = :afterDate AND at.Id > :afterId)) " +
+            "ORDER BY at.trainingDate, at.Id")
+    List<Training> findTrainingPageByTrainee(@Param("username") String username,
+                                             @Param("periodFrom") LocalDate periodFrom,
+                                             @Param("periodTo") LocalDate periodTo,
+                                             @Param("trainingTypeId") Long trainingTypeId,
+                                             @Param("afterDate") LocalDate afterDate,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    @Query("SELECT new com.training_microservice.domain.entities.Training(at.Id, at.traineeUsername, " +
+            "at.trainerUsername, at.trainingName, at.trainingTypeId, at.trainingDate, at.trainingDuration, " +
+            "at.idempotencyKey) " +
+            "FROM ArchivedTraining at WHERE at.trainerUsername = :username " +
+            "AND (:periodFrom IS NULL OR at.trainingDate >= :periodFrom) " +
+            "AND (:periodTo IS NULL OR at.trainingDate <= :periodTo) " +
+            "AND (:trainingTypeId IS NULL OR at.trainingTypeId = :trainingTypeId) " +
+            "AND (:afterDate IS NULL OR at.trainingDate > :afterDate " +
+            "OR (at.trainingDate = :afterDate AND at.Id > :afterId)) " +
+            "ORDER BY at.trainingDate, at.Id")
+    List<Training> findTrainingPageByTrainer(@Param("username") String username,
+                                             @Param("periodFrom") LocalDate periodFrom,
+                                             @Param("periodTo") LocalDate periodTo,
+                                             @Param("trainingTypeId") Long trainingTypeId,
+                                             @Param("afterDate") LocalDate afterDate,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.training_microservice.domain.records.TrainingRecord$TraineeTrainingResponse(" +
+            "at.trainingName, at.trainingDate, at.trainerUsername, at.trainingDuration) " +
+            "FROM ArchivedTraining at WHERE at.traineeUsername = :username " +
+            "AND (:periodFrom IS NULL OR at.trainingDate >= :periodFrom) " +
+            "AND (:periodTo IS NULL OR at.trainingDate <= :periodTo) " +
+            "AND (:trainingTypeId IS NULL OR at.trainingTypeId = :trainingTypeId) " +
+            "ORDER BY at.trainingDate, at.Id")
+    Stream<TrainingRecord.TraineeTrainingResponse> streamTrainingByTrainee(@Param("username") String username,
+                                             @Param("periodFrom") LocalDate periodFrom,
+                                             @Param("periodTo") LocalDate periodTo,
+                                             @Param("trainingTypeId") Long trainingTypeId);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.training_microservice.domain.records.TrainingRecord$TrainerTrainingResponse(" +
+            "at.trainingName, at.trainingDate, at.traineeUsername, at.trainingDuration) " +
+            "FROM ArchivedTraining at WHERE at.trainerUsername = :username " +
+            "AND (:periodFrom IS NULL OR at.trainingDate >= :periodFrom) " +
+            "AND (:periodTo IS NULL OR at.trainingDate <= :periodTo) " +
+            "AND (:trainingTypeId IS NULL OR at.trainingTypeId = :trainingTypeId) " +
+            "ORDER BY at.trainingDate, at.Id")
+    Stream<TrainingRecord.TrainerTrainingResponse> streamTrainingByTrainer(@Param("username") String username,
+                                             @Param("periodFrom") LocalDate periodFrom,
+                                             @Param("periodTo") LocalDate periodTo,
+                                             @Param("trainingTypeId") Long trainingTypeId);
+
+    @Query("SELECT at.idempotencyKey FROM ArchivedTraining at WHERE at.idempotencyKey IN :idempotencyKeys")
+    List<String> findIdempotencyKeys(@Param("idempotencyKeys") Collection<String> idempotencyKeys);
+
+    @Query("SELECT new com.training_microservice.domain.records.TrainingRecord$TrainerMonthlyDuration(" +
+            "ta.trainerUsername, ta.summaryYear, ta.summaryMonth, SUM(ta.totalDuration)) " +
+            "FROM TrainingArchiveMonth ta WHERE ta.trainerUsername = :trainerUsername " +
+            "GROUP BY ta.trainerUsername, ta.summaryYear, ta.summaryMonth")
+    List<TrainingRecord.TrainerMonthlyDuration> findMonthlyDurationByTrainer(@Param("trainerUsername") String trainerUsername);
+
+    @Query("SELECT new com.training_microservice.domain.records.TrainingRecord$TrainerMonthlyDuration(" +
+            "ta.trainerUsername, ta.summaryYear, ta.summaryMonth, SUM(ta.totalDuration)) " +
+            "FROM TrainingArchiveMonth ta WHERE ta.trainerUsername IN :trainerUsernames " +
+            "GROUP BY ta.trainerUsername, ta.summaryYear, ta.summaryMonth")
+    List<TrainingRecord.TrainerMonthlyDuration> findMonthlyDurationByTrainers(@Param("trainerUsernames") Collection<String> trainerUsernames);
+
+    @Query("SELECT new com.training_microservice.domain.records.TrainingRecord$TrainerMonthlyDuration(" +
+            "ta.trainerUsername, ta.summaryYear, ta.summaryMonth, SUM(ta.totalDuration)) " +
+            "FROM TrainingArchiveMonth ta " +
+            "GROUP BY ta.trainerUsername, ta.summaryYear, ta.summaryMonth")
+    List<TrainingRecord.TrainerMonthlyDuration> findMonthlyDurations();
+
+    @Query("SELECT new com.training_microservice.domain.records.TrainingRecord$TrainerMonthlyTypeDuration(" +
+            "ta.trainerUsername, ta.summaryYear, ta.summaryMonth, ta.trainingTypeId, SUM(ta.totalDuration)) " +
+            "FROM TrainingArchiveMonth ta WHERE ta.trainerUsername = :trainerUsername " +
+            "GROUP BY ta.trainerUsername, ta.trainingTypeId, ta.summaryYear, ta.summaryMonth")
+    List<TrainingRecord.TrainerMonthlyTypeDuration> findMonthlyTypeDurationByTrainer(@Param("trainerUsername") String trainerUsername);
+
+    @Query("SELECT new com.training_microservice.domain.records.TrainingRecord$TraineeMonthlyDuration(" +
+            "ta.traineeUsername, ta.summaryYear, ta.summaryMonth, SUM(ta.totalDuration), SUM(ta.trainingCount)) " +
+            "FROM TrainingArchiveMonth ta WHERE ta.trainerUsername = :trainerUsername " +
+            "GROUP BY ta.traineeUsername, ta.summaryYear, ta.summaryMonth")
+    List<TrainingRecord.TraineeMonthlyDuration> findTraineeMonthlyDurationByTrainer(@Param("trainerUsername") String trainerUsername);
+
+    @Query("SELECT new com.training_microservice.domain.records.TrainingRecord$TraineeMonthlyDuration(" +
+            "ta.traineeUsername, ta.summaryYear, ta.summaryMonth, SUM(ta.totalDuration), SUM(ta.trainingCount)) " +
+            "FROM TrainingArchiveMonth ta " +
+            "GROUP BY ta.traineeUsername, ta.summaryYear, ta.summaryMonth")
+    List<TrainingRecord.TraineeMonthlyDuration> findTraineeMonthlyDurations();
+
+    @Modifying
+    @Query("DELETE FROM ArchivedTraining at WHERE at.trainerUsername = :trainerUsername")
+    int deleteArchivedTrainingByTrainerUsername(@Param("trainerUsername") String trainerUsername);
+
+    @Modifying
+    @Query("DELETE FROM TrainingArchiveMonth ta WHERE ta.trainerUsername = :trainerUsername")
+    void deleteArchivedMonthByTrainerUsername(@Param("trainerUsername") String trainerUsername);
+}
@@ -1,9 +1,15 @@
 package com.training_microservice.dao;
 
 import com.training_microservice.domain.entities.Training;
+import com.training_microservice.domain.records.TrainingRecord;
 
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface TrainingRepo {
     Training save(Training value);
@@ -13,5 +19,60 @@ public interface TrainingRepo {
     List<Training> findTrainingByTrainee(String username);
     List<Training> findTrainingByTrainer(String username);
 
-    void deleteTrainingByTrainerUsername(String trainerUsername);
+    /**
+     * Filtered page ordered by (trainingDate, Id), starting after the (afterDate, afterId) key.
+     * Null filters and a null afterDate are ignored; the page size comes from the Pageable.
+     */
+    List<Training> findTrainingPageByTrainee(String username, LocalDate periodFrom, LocalDate periodTo,
+                                             Long trainingTypeId, LocalDate afterDate, Long afterId, Pageable pageable);
+    List<Training> findTrainingPageByTrainer(String username, LocalDate periodFrom, LocalDate periodTo,
+                                             Long trainingTypeId, LocalDate afterDate, Long afterId, Pageable pageable);
+
+    /**
+     * Unbounded filtered export ordered by (trainingDate, Id). Rows are projected straight
+     * into response records, so nothing is held by the persistence context; the stream
+     * must be consumed and closed inside a transaction.
+     */
+    Stream<TrainingRecord.TraineeTrainingResponse> streamTrainingByTrainee(String username, LocalDate periodFrom,
+                                                                          LocalDate periodTo, Long trainingTypeId);
+    Stream<TrainingRecord.TrainerTrainingResponse> streamTrainingByTrainer(String username, LocalDate periodFrom,
+                                                                          LocalDate periodTo, Long trainingTypeId);
+
+    List<TrainingRecord.TrainerMonthlyDuration> findMonthlyDurationByTrainer(String username);
+
+    /**
+     * Monthly durations of several trainers grouped in one pass; trainers without
+     * trainings are absent from the result.
+     */
+    List<TrainingRecord.TrainerMonthlyDuration> findMonthlyDurationByTrainers(Collection<String> usernames);
+    List<TrainingRecord.TrainerMonthlyDuration> findMonthlyDurations();
+
+    /**
+     * Monthly durations of a trainer grouped by training type as well; untyped
+     * trainings are grouped under a null trainingTypeId.
+     */
+    List<TrainingRecord.TrainerMonthlyTypeDuration> findMonthlyTypeDurationByTrainer(String username);
+
+    /**
+     * Trainee monthly durations and counts of one trainer's trainings, what deleting
+     * the trainer removes from the trainee summaries.
+     */
+    List<TrainingRecord.TraineeMonthlyDuration> findTraineeMonthlyDurationByTrainer(String trainerUsername);
+    List<TrainingRecord.TraineeMonthlyDuration> findTraineeMonthlyDurations();
+
+    /**
+     * Trainings dated before the given day grouped by trainer, trainee, type and month,
+     * what the archive job keeps of them.
+     */
+    List<TrainingRecord.TrainingMonthlyAggregate> findMonthlyAggregatesBefore(LocalDate before);
+
+    /**
+     * @return number of trainings removed
+     */
+    int deleteTrainingByTrainerUsername(String trainerUsername);
+
+    /**
+     * @return number of trainings dated before the given day removed
+     */
+    int deleteTrainingsBefore(LocalDate before);
 }
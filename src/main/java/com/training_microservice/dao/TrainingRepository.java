@@ -1,12 +1,22 @@
 package com.training_microservice.dao;
 
 import com.training_microservice.domain.entities.Training;
+import com.training_microservice.domain.records.TrainingRecord;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface TrainingRepository extends JpaRepository<Training, Long>,TrainingRepo {
@@ -16,4 +26,111 @@ public interface TrainingRepository extends JpaRepository<Training, Long>,Traini
 
     @Query("SELECT tr FROM Training tr WHERE tr.trainerUsername = :trainerUsername")
     List<Training> findTrainingByTrainer(@Param("trainerUsername") String trainerUsername);
-}
\ No newline at end of file
+
+    @Query("SELECT tr FROM Training tr WHERE tr.traineeUsername = :username " +
+            "AND (:periodFrom IS NULL OR tr.trainingDate >= :periodFrom) " +
+            "AND (:periodTo IS NULL OR tr.trainingDate <= :periodTo) " +
+            "AND (:trainingTypeId IS NULL OR tr.trainingTypeId = :trainingTypeId) " +
+            "AND (:afterDate IS NULL OR tr.trainingDate > :afterDate " +
+            "OR (tr.trainingDate = :afterDate AND tr.Id > :afterId)) " +
+            "ORDER BY tr.trainingDate, tr.Id")
+    List<Training> findTrainingPageByTrainee(@Param("username") String username,
+                                             @Param("periodFrom") LocalDate periodFrom,
+                                             @Param("periodTo") LocalDate periodTo,
+                                             @Param("trainingTypeId") Long trainingTypeId,
+                                             @Param("afterDate") LocalDate afterDate,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    @Query("SELECT tr FROM Training tr WHERE tr.trainerUsername = :username " +
+            "AND (:periodFrom IS NULL OR tr.trainingDate >= :periodFrom) " +
+            "AND (:periodTo IS NULL OR tr.trainingDate <= :periodTo) " +
+            "AND (:trainingTypeId IS NULL OR tr.trainingTypeId = :trainingTypeId) " +
+            "AND (:afterDate IS NULL OR tr.trainingDate > :afterDate " +
+            "OR (tr.trainingDate = :afterDate AND tr.Id > :afterId)) " +
+            "ORDER BY tr.trainingDate, tr.Id")
+    List<Training> findTrainingPageByTrainer(@Param("username") String username,
+                                             @Param("periodFrom") LocalDate periodFrom,
+                                             @Param("periodTo") LocalDate periodTo,
+                                             @Param("trainingTypeId") Long trainingTypeId,
+                                             @Param("afterDate") LocalDate afterDate,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.training_microservice.domain.records.TrainingRecord$TraineeTrainingResponse(" +
+            "tr.trainingName, tr.trainingDate, tr.trainerUsername, tr.trainingDuration) " +
+            "FROM Training tr WHERE tr.traineeUsername = :username " +
+            "AND (:periodFrom IS NULL OR tr.trainingDate >= :periodFrom) " +
+            "AND (:periodTo IS NULL OR tr.trainingDate <= :periodTo) " +
+            "AND (:trainingTypeId IS NULL OR tr.trainingTypeId = :trainingTypeId) " +
+            "ORDER BY tr.trainingDate, tr.Id")
+    Stream<TrainingRecord.TraineeTrainingResponse> streamTrainingByTrainee(@Param("username") String username,
+                                             @Param("periodFrom") LocalDate periodFrom,
+                                             @Param("periodTo") LocalDate periodTo,
+                                             @Param("trainingTypeId") Long trainingTypeId);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.training_microservice.domain.records.TrainingRecord$TrainerTrainingResponse(" +
+            "tr.trainingName, tr.trainingDate, tr.traineeUsername, tr.trainingDuration) " +
+            "FROM Training tr WHERE tr.trainerUsername = :username " +
+            "AND (:periodFrom IS NULL OR tr.trainingDate >= :periodFrom) " +
+            "AND (:periodTo IS NULL OR tr.trainingDate <= :periodTo) " +
+            "AND (:trainingTypeId IS NULL OR tr.trainingTypeId = :trainingTypeId) " +
+            "ORDER BY tr.trainingDate, tr.Id")
+    Stream<TrainingRecord.TrainerTrainingResponse> streamTrainingByTrainer(@Param("username") String username,
+                                             @Param("periodFrom") LocalDate periodFrom,
+                                             @Param("periodTo") LocalDate periodTo,
+                                             @Param("trainingTypeId") Long trainingTypeId);
+
+    @Query("SELECT new com.training_microservice.domain.records.TrainingRecord$TrainerMonthlyDuration(" +
+            "tr.trainerUsername, YEAR(tr.trainingDate), MONTH(tr.trainingDate), SUM(tr.trainingDuration)) " +
+            "FROM Training tr WHERE tr.trainerUsername = :trainerUsername " +
+            "GROUP BY tr.trainerUsername, YEAR(tr.trainingDate), MONTH(tr.trainingDate)")
+    List<TrainingRecord.TrainerMonthlyDuration> findMonthlyDurationByTrainer(@Param("trainerUsername") String trainerUsername);
+
+    @Query("SELECT new com.training_microservice.domain.records.TrainingRecord$TrainerMonthlyDuration(" +
+            "tr.trainerUsername, YEAR(tr.trainingDate), MONTH(tr.trainingDate), SUM(tr.trainingDuration)) " +
+            "FROM Training tr WHERE tr.trainerUsername IN :trainerUsernames " +
+            "GROUP BY tr.trainerUsername, YEAR(tr.trainingDate), MONTH(tr.trainingDate)")
+    List<TrainingRecord.TrainerMonthlyDuration> findMonthlyDurationByTrainers(@Param("trainerUsernames") Collection<String> trainerUsernames);
+
+    @Query("SELECT new com.training_microservice.domain.records.TrainingRecord$TrainerMonthlyDuration(" +
+            "tr.trainerUsername, YEAR(tr.trainingDate), MONTH(tr.trainingDate), SUM(tr.trainingDuration)) " +
+            "FROM Training tr " +
+            "GROUP BY tr.trainerUsername, YEAR(tr.trainingDate), MONTH(tr.trainingDate)")
+    List<TrainingRecord.TrainerMonthlyDuration> findMonthlyDurations();
+
+    @Query("SELECT new com.training_microservice.domain.records.TrainingRecord$TrainerMonthlyTypeDuration(" +
+            "tr.trainerUsername, YEAR(tr.trainingDate), MONTH(tr.trainingDate), tr.trainingTypeId, SUM(tr.trainingDuration)) " +
+            "FROM Training tr WHERE tr.trainerUsername = :trainerUsername " +
+            "GROUP BY tr.trainerUsername, tr.trainingTypeId, YEAR(tr.trainingDate), MONTH(tr.trainingDate)")
+    List<TrainingRecord.TrainerMonthlyTypeDuration> findMonthlyTypeDurationByTrainer(@Param("trainerUsername") String trainerUsername);
+
+    @Query("SELECT new com.training_microservice.domain.records.TrainingRecord$TraineeMonthlyDuration(" +
+            "tr.traineeUsername, YEAR(tr.trainingDate), MONTH(tr.trainingDate), SUM(tr.trainingDuration), COUNT(tr)) " +
+            "FROM Training tr WHERE tr.trainerUsername = :trainerUsername " +
+            "GROUP BY tr.traineeUsername, YEAR(tr.trainingDate), MONTH(tr.trainingDate)")
+    List<TrainingRecord.TraineeMonthlyDuration> findTraineeMonthlyDurationByTrainer(@Param("trainerUsername") String trainerUsername);
+
+    @Query("SELECT new com.training_microservice.domain.records.TrainingRecord$TraineeMonthlyDuration(" +
+            "tr.traineeUsername, YEAR(tr.trainingDate), MONTH(tr.trainingDate), SUM(tr.trainingDuration), COUNT(tr)) " +
+            "FROM Training tr " +
+            "GROUP BY tr.traineeUsername, YEAR(tr.trainingDate), MONTH(tr.trainingDate)")
+    List<TrainingRecord.TraineeMonthlyDuration> findTraineeMonthlyDurations();
+
+    @Query("SELECT new com.training_microservice.domain.records.TrainingRecord$TrainingMonthlyAggregate(" +
+            "tr.trainerUsername, tr.traineeUsername, tr.trainingTypeId, YEAR(tr.trainingDate), MONTH(tr.trainingDate), " +
+            "SUM(tr.trainingDuration), COUNT(tr)) " +
+            "FROM Training tr WHERE tr.trainingDate < :before " +
+            "GROUP BY tr.trainerUsername, tr.traineeUsername, tr.trainingTypeId, YEAR(tr.trainingDate), MONTH(tr.trainingDate)")
+    List<TrainingRecord.TrainingMonthlyAggregate> findMonthlyAggregatesBefore(@Param("before") LocalDate before);
+
+    @Modifying
+    @Query("DELETE FROM Training tr WHERE tr.trainerUsername = :trainerUsername")
+    int deleteTrainingByTrainerUsername(@Param("trainerUsername") String trainerUsername);
+
+    @Modifying
+    @Query("DELETE FROM Training tr WHERE tr.trainingDate < :before")
+    int deleteTrainingsBefore(@Param("before") LocalDate before);
+}
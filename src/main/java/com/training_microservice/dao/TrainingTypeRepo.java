@@ -0,0 +1,11 @@
+package com.training_microservice.dao;
+
+import com.training_microservice.domain.entities.TrainingType;
+
+import java.util.List;
+
+public interface TrainingTypeRepo {
+    TrainingType save(TrainingType value);
+
+    List<TrainingType> findAll();
+}
@@ -0,0 +1,9 @@
+package com.training_microservice.dao;
+
+import com.training_microservice.domain.entities.TrainingType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TrainingTypeRepository extends JpaRepository<TrainingType, Long>, TrainingTypeRepo {
+}
@@ -0,0 +1,259 @@
+package com.training_microservice.dao.inmemory;
+
+import com.training_microservice.config.InMemoryDurabilityProperties;
+import com.training_microservice.dao.TrainingRepo;
+import com.training_microservice.domain.entities.Training;
+import com.training_microservice.domain.records.TrainingRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Pageable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory backend that survives restarts (app.inmemory.durability.enabled). Reads go
+ * straight to the wrapped store; every write is logged to a TrainingWriteAheadLog, which
+ * replays into the store on startup. Once the log outgrows compact-after it is rotated
+ * and the store is snapshotted, so recovery time stays bounded by the data size instead
+ * of the write history.
+ * <p>
+ * A write reserves its log record, applies the change and writes the record under one
+ * ordering lock, so the log holds the writes in the order the store applied them. A log
+ * that can't take the record fails the write before the store changed; the wait for
+ * fsync happens after the lock is released, so group commit still batches writers.
+ */
+@Slf4j
+public class DurableTrainingStorage implements TrainingRepo, Closeable {
+
+    private final TrainingStorageInMemory storage;
+    private final TrainingWriteAheadLog writeAheadLog;
+    private final long compactAfterBytes;
+    // orders the writes in the log as in the store, a compaction takes it to rotate between two writes
+    private final Lock writeLock = new ReentrantLock();
+    private final ScheduledExecutorService compactor;
+
+    public DurableTrainingStorage(TrainingStorageInMemory storage, InMemoryDurabilityProperties properties) throws IOException {
+        this.storage = storage;
+        this.writeAheadLog = TrainingWriteAheadLog.open(properties, storage);
+        this.compactAfterBytes = properties.getCompactAfter().toBytes();
+        this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "training-log-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long checkInterval = properties.getCompactCheckInterval().toMillis();
+        compactor.scheduleWithFixedDelay(this::compactIfNeeded, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the wrapped store, reading it directly skips nothing since only writes are logged
+     */
+    public TrainingStorageInMemory getStorage() {
+        return storage;
+    }
+
+    @Override
+    public Training save(Training value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] record = TrainingWriteAheadLog.encodeSave(value);
+        Training saved;
+        long end;
+        writeLock.lock();
+        try {
+            writeAheadLog.reserve(record);
+            saved = storage.save(value);
+            TrainingWriteAheadLog.setSavedId(record, saved.getId());
+            end = writeAheadLog.write(record);
+        } finally {
+            writeLock.unlock();
+        }
+        writeAheadLog.awaitDurable(end);
+        return saved;
+    }
+
+    @Override
+    public int deleteTrainingByTrainerUsername(String trainerUsername) {
+        byte[] record = TrainingWriteAheadLog.encodeDeleteTrainer(trainerUsername);
+        int deleted;
+        long end;
+        writeLock.lock();
+        try {
+            writeAheadLog.reserve(record);
+            deleted = storage.deleteTrainingByTrainerUsername(trainerUsername);
+            if (deleted == 0) {
+                return 0;
+            }
+            end = writeAheadLog.write(record);
+        } finally {
+            writeLock.unlock();
+        }
+        writeAheadLog.awaitDurable(end);
+        return deleted;
+    }
+
+    @Override
+    public Optional<Training> findById(Long value) {
+        return storage.findById(value);
+    }
+
+    @Override
+    public List<Training> findAll() {
+        return storage.findAll();
+    }
+
+    @Override
+    public List<Training> findTrainingByTrainee(String username) {
+        return storage.findTrainingByTrainee(username);
+    }
+
+    @Override
+    public List<Training> findTrainingByTrainer(String username) {
+        return storage.findTrainingByTrainer(username);
+    }
+
+    @Override
+    public List<Training> findTrainingPageByTrainee(String username, LocalDate periodFrom, LocalDate periodTo,
+                                                    Long trainingTypeId, LocalDate afterDate, Long afterId,
+                                                    Pageable pageable) {
+        return storage.findTrainingPageByTrainee(username, periodFrom, periodTo, trainingTypeId, afterDate, afterId, pageable);
+    }
+
+    @Override
+    public List<Training> findTrainingPageByTrainer(String username, LocalDate periodFrom, LocalDate periodTo,
+                                                    Long trainingTypeId, LocalDate afterDate, Long afterId,
+                                                    Pageable pageable) {
+        return storage.findTrainingPageByTrainer(username, periodFrom, periodTo, trainingTypeId, afterDate, afterId, pageable);
+    }
+
+    @Override
+    public Stream<TrainingRecord.TraineeTrainingResponse> streamTrainingByTrainee(String username, LocalDate periodFrom,
+                                                                                 LocalDate periodTo, Long trainingTypeId) {
+        return storage.streamTrainingByTrainee(username, periodFrom, periodTo, trainingTypeId);
+    }
+
+    @Override
+    public Stream<TrainingRecord.TrainerTrainingResponse> streamTrainingByTrainer(String username, LocalDate periodFrom,
+                                                                                 LocalDate periodTo, Long trainingTypeId) {
+        return storage.streamTrainingByTrainer(username, periodFrom, periodTo, trainingTypeId);
+    }
+
+    @Override
+    public List<TrainingRecord.TrainerMonthlyDuration> findMonthlyDurationByTrainer(String username) {
+        return storage.findMonthlyDurationByTrainer(username);
+    }
+
+    @Override
+    public List<TrainingRecord.TrainerMonthlyDuration> findMonthlyDurationByTrainers(Collection<String> usernames) {
+        return storage.findMonthlyDurationByTrainers(usernames);
+    }
+
+    @Override
+    public List<TrainingRecord.TrainerMonthlyDuration> findMonthlyDurations() {
+        return storage.findMonthlyDurations();
+    }
+
+    @Override
+    public List<TrainingRecord.TrainerMonthlyTypeDuration> findMonthlyTypeDurationByTrainer(String username) {
+        return storage.findMonthlyTypeDurationByTrainer(username);
+    }
+
+    @Override
+    public List<TrainingRecord.TraineeMonthlyDuration> findTraineeMonthlyDurationByTrainer(String trainerUsername) {
+        return storage.findTraineeMonthlyDurationByTrainer(trainerUsername);
+    }
+
+    @Override
+    public List<TrainingRecord.TraineeMonthlyDuration> findTraineeMonthlyDurations() {
+        return storage.findTraineeMonthlyDurations();
+    }
+
+    @Override
+    public List<TrainingRecord.TrainingMonthlyAggregate> findMonthlyAggregatesBefore(LocalDate before) {
+        return storage.findMonthlyAggregatesBefore(before);
+    }
+
+    /**
+     * Logged as one record with the day, replay deletes the same trainings again since
+     * the log holds every save in the order the store applied it.
+     */
+    @Override
+    public int deleteTrainingsBefore(LocalDate before) {
+        byte[] record = TrainingWriteAheadLog.encodeDeleteBefore(before);
+        int deleted;
+        long end;
+        writeLock.lock();
+        try {
+            writeAheadLog.reserve(record);
+            deleted = storage.deleteTrainingsBefore(before);
+            if (deleted == 0) {
+                return 0;
+            }
+            end = writeAheadLog.write(record);
+        } finally {
+            writeLock.unlock();
+        }
+        writeAheadLog.awaitDurable(end);
+        return deleted;
+    }
+
+    /**
+     * Rotates the log and snapshots the store into the new generation. The snapshot is
+     * streamed from the columns a chunk at a time while writes continue, so a write that
+     * lands after the rotation may or may not be in it; it is always in the new log.
+     * Replaying such a save again is an upsert by id, except when the snapshot already
+     * holds a later training with the same idempotency key, which the replay skips (see
+     * TrainingStorageInMemory.saveReplayed).
+     */
+    public void compact() throws IOException {
+        writeSnapshot(rotateLog());
+    }
+
+    /**
+     * @return the generation started, the one the snapshot is written for
+     */
+    long rotateLog() throws IOException {
+        writeLock.lock();
+        try {
+            return writeAheadLog.rotate();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    void writeSnapshot(long generation) throws IOException {
+        writeAheadLog.writeSnapshot(generation, storage);
+    }
+
+    @Override
+    public void close() throws IOException {
+        compactor.shutdownNow();
+        writeLock.lock();
+        try {
+            writeAheadLog.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void compactIfNeeded() {
+        try {
+            if (writeAheadLog.size() > compactAfterBytes) {
+                compact();
+            }
+        } catch (Exception e) {
+            log.error("Error, compacting the training log", e);
+        }
+    }
+}
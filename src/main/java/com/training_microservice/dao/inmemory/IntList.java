@@ -0,0 +1,70 @@
+package com.training_microservice.dao.inmemory;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Growable list of primitive ints, holds the row numbers of one trainer or trainee, kept
+ * in (trainingDate, id) order by TrainingStorageInMemory. Not thread-safe; TrainingStorageInMemory guards it with its lock.
+ */
+final class IntList {
+
+    private int[] elements = new int[4];
+    private int size;
+
+    void add(int value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size + (size >> 1) + 1);
+        }
+        elements[size++] = value;
+    }
+
+    int get(int index) {
+        return elements[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int removeLast() {
+        return elements[--size];
+    }
+
+    /**
+     * Inserts the value at the index, shifting the later elements, so an ordered list stays ordered.
+     */
+    void insert(int index, int value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size + (size >> 1) + 1);
+        }
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = value;
+        size++;
+    }
+
+    /**
+     * Removes the element at the index, the others keep their order.
+     */
+    void removeAt(int index) {
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+    }
+
+    /**
+     * Removes every matching element in one pass, the others keep their order.
+     */
+    void removeIf(IntPredicate filter) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!filter.test(elements[i])) {
+                elements[kept++] = elements[i];
+            }
+        }
+        size = kept;
+    }
+}
@@ -0,0 +1,104 @@
+package com.training_microservice.dao.inmemory;
+
+import com.training_microservice.dao.TraineeSummaryRepo;
+import com.training_microservice.domain.entities.TraineeMonthlySummary;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Every write to a trainee's months runs inside compute on the trainee's entry, so
+ * adding to a month, opening it and dropping it don't interleave.
+ */
+public class TraineeSummaryStorageInMemory implements TraineeSummaryRepo {
+
+    private final AtomicLong idSequence = new AtomicLong();
+    // traineeUsername -> (year * 12 + month - 1) -> monthly row
+    private final Map<String, Map<Integer, TraineeMonthlySummary>> summaryMap = new ConcurrentHashMap<>();
+
+    /**
+     * Stores the row. Like the table's unique key, a new row for a month that already has
+     * one throws DataIntegrityViolationException.
+     */
+    @Override
+    public TraineeMonthlySummary save(TraineeMonthlySummary value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.getId() == null) {
+            value.setId(idSequence.incrementAndGet());
+        }
+        summaryMap.compute(value.getTraineeUsername(), (traineeUsername, months) -> {
+            Map<Integer, TraineeMonthlySummary> updated = months != null ? months : new ConcurrentHashMap<>();
+            updated.merge(monthKey(value.getSummaryYear(), value.getSummaryMonth()), value, (current, saved) -> {
+                if (!current.getId().equals(saved.getId())) {
+                    throw new DataIntegrityViolationException("Duplicate summary month of trainee " + traineeUsername);
+                }
+                return saved;
+            });
+            return updated;
+        });
+        return value;
+    }
+
+    @Override
+    public List<TraineeMonthlySummary> findAll() {
+        List<TraineeMonthlySummary> all = new ArrayList<>();
+        summaryMap.values().forEach(months -> all.addAll(months.values()));
+        return all;
+    }
+
+    @Override
+    public List<TraineeMonthlySummary> findSummaryByTrainee(String traineeUsername) {
+        Map<Integer, TraineeMonthlySummary> months = summaryMap.get(traineeUsername);
+        return months == null ? new ArrayList<>() : new ArrayList<>(months.values());
+    }
+
+    @Override
+    public int addTrainings(String traineeUsername, Integer summaryYear, Integer summaryMonth,
+                            Long trainingDuration, Long trainingCount) {
+        boolean[] updated = new boolean[1];
+        summaryMap.computeIfPresent(traineeUsername, (k, months) -> {
+            updated[0] = months.computeIfPresent(monthKey(summaryYear, summaryMonth), (month, summary) -> {
+                summary.setTotalDuration(summary.getTotalDuration() + trainingDuration);
+                summary.setTrainingCount(summary.getTrainingCount() + trainingCount);
+                return summary;
+            }) != null;
+            return months;
+        });
+        return updated[0] ? 1 : 0;
+    }
+
+    @Override
+    public void upsertTrainings(String traineeUsername, Integer summaryYear, Integer summaryMonth,
+                                Long trainingDuration, Long trainingCount) {
+        summaryMap.compute(traineeUsername, (k, months) -> {
+            Map<Integer, TraineeMonthlySummary> updated = months != null ? months : new ConcurrentHashMap<>();
+            updated.compute(monthKey(summaryYear, summaryMonth), (month, summary) -> {
+                if (summary == null) {
+                    return new TraineeMonthlySummary(idSequence.incrementAndGet(), traineeUsername,
+                            summaryYear, summaryMonth, trainingDuration, trainingCount);
+                }
+                summary.setTotalDuration(summary.getTotalDuration() + trainingDuration);
+                summary.setTrainingCount(summary.getTrainingCount() + trainingCount);
+                return summary;
+            });
+            return updated;
+        });
+    }
+
+    @Override
+    public void deleteEmptySummary(String traineeUsername, Integer summaryYear, Integer summaryMonth) {
+        summaryMap.computeIfPresent(traineeUsername, (k, months) -> {
+            months.computeIfPresent(monthKey(summaryYear, summaryMonth),
+                    (month, summary) -> summary.getTrainingCount() <= 0 ? null : summary);
+            return months.isEmpty() ? null : months;
+        });
+    }
+
+    private static int monthKey(int year, int month) {
+        return year * 12 + month - 1;
+    }
+}
@@ -0,0 +1,141 @@
+package com.training_microservice.dao.inmemory;
+
+import com.training_microservice.dao.TrainerSummaryRepo;
+import com.training_microservice.domain.entities.TrainerMonthlySummary;
+import com.training_microservice.domain.entities.TrainerSummaryVersion;
+import com.training_microservice.domain.records.TrainingRecord;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Every write to a trainer's months runs inside compute on the trainer's entry, so
+ * adding to a month, opening it and deleting the trainer don't interleave.
+ */
+public class TrainerSummaryStorageInMemory implements TrainerSummaryRepo {
+
+    private final AtomicLong idSequence = new AtomicLong();
+    // trainerUsername -> (year * 12 + month - 1) -> monthly row
+    private final Map<String, Map<Integer, TrainerMonthlySummary>> summaryMap = new ConcurrentHashMap<>();
+    private final Map<String, Long> summaryVersions = new ConcurrentHashMap<>();
+
+    /**
+     * Stores the row. Like the table's unique key, a new row for a month that already has
+     * one throws DataIntegrityViolationException.
+     */
+    @Override
+    public TrainerMonthlySummary save(TrainerMonthlySummary value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.getId() == null) {
+            value.setId(idSequence.incrementAndGet());
+        }
+        summaryMap.compute(value.getTrainerUsername(), (trainerUsername, months) -> {
+            Map<Integer, TrainerMonthlySummary> updated = months != null ? months : new ConcurrentHashMap<>();
+            updated.merge(monthKey(value.getSummaryYear(), value.getSummaryMonth()), value, (current, saved) -> {
+                if (!current.getId().equals(saved.getId())) {
+                    throw new DataIntegrityViolationException("Duplicate summary month of trainer " + trainerUsername);
+                }
+                return saved;
+            });
+            return updated;
+        });
+        return value;
+    }
+
+    @Override
+    public List<TrainerMonthlySummary> findAll() {
+        List<TrainerMonthlySummary> all = new ArrayList<>();
+        summaryMap.values().forEach(months -> all.addAll(months.values()));
+        return all;
+    }
+
+    /**
+     * Walks the live maps, whose iterators tolerate concurrent writes, instead of copying them.
+     */
+    @Override
+    public Stream<TrainingRecord.TrainerMonthlyDuration> streamMonthlyDurations() {
+        return summaryMap.values().stream()
+                .flatMap(months -> months.values().stream())
+                .map(summary -> new TrainingRecord.TrainerMonthlyDuration(summary.getTrainerUsername(),
+                        summary.getSummaryYear(), summary.getSummaryMonth(), summary.getTotalDuration()));
+    }
+
+    @Override
+    public List<TrainerMonthlySummary> findSummaryByTrainer(String trainerUsername) {
+        Map<Integer, TrainerMonthlySummary> months = summaryMap.get(trainerUsername);
+        return months == null ? new ArrayList<>() : new ArrayList<>(months.values());
+    }
+
+    @Override
+    public int addTrainingDuration(String trainerUsername, Integer summaryYear, Integer summaryMonth, Long trainingDuration) {
+        boolean[] updated = new boolean[1];
+        summaryMap.computeIfPresent(trainerUsername, (k, months) -> {
+            updated[0] = months.computeIfPresent(monthKey(summaryYear, summaryMonth), (month, summary) -> {
+                summary.setTotalDuration(summary.getTotalDuration() + trainingDuration);
+                return summary;
+            }) != null;
+            return months;
+        });
+        return updated[0] ? 1 : 0;
+    }
+
+    @Override
+    public void upsertTrainingDuration(String trainerUsername, Integer summaryYear, Integer summaryMonth, Long trainingDuration) {
+        summaryMap.compute(trainerUsername, (k, months) -> {
+            Map<Integer, TrainerMonthlySummary> updated = months != null ? months : new ConcurrentHashMap<>();
+            updated.compute(monthKey(summaryYear, summaryMonth), (month, summary) -> {
+                if (summary == null) {
+                    return new TrainerMonthlySummary(idSequence.incrementAndGet(), trainerUsername,
+                            summaryYear, summaryMonth, trainingDuration);
+                }
+                summary.setTotalDuration(summary.getTotalDuration() + trainingDuration);
+                return summary;
+            });
+            return updated;
+        });
+    }
+
+    @Override
+    public void deleteSummaryByTrainerUsername(String trainerUsername) {
+        summaryMap.remove(trainerUsername);
+    }
+
+    @Override
+    public void deleteSummaryMonth(String trainerUsername, Integer summaryYear, Integer summaryMonth) {
+        summaryMap.computeIfPresent(trainerUsername, (k, months) -> {
+            months.remove(monthKey(summaryYear, summaryMonth));
+            return months.isEmpty() ? null : months;
+        });
+    }
+
+    @Override
+    public Long findSummaryVersion(String trainerUsername) {
+        return summaryVersions.get(trainerUsername);
+    }
+
+    @Override
+    public List<TrainerSummaryVersion> findSummaryVersions(Collection<String> trainerUsernames) {
+        List<TrainerSummaryVersion> versions = new ArrayList<>();
+        for (String trainerUsername : trainerUsernames) {
+            Long version = summaryVersions.get(trainerUsername);
+            if (version != null) {
+                versions.add(new TrainerSummaryVersion(trainerUsername, version));
+            }
+        }
+        return versions;
+    }
+
+    @Override
+    public void bumpSummaryVersion(String trainerUsername) {
+        summaryVersions.merge(trainerUsername, System.currentTimeMillis(), (current, created) -> current + 1);
+    }
+
+    private static int monthKey(int year, int month) {
+        return year * 12 + month - 1;
+    }
+}
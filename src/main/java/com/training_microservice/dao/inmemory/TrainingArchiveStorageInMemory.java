@@ -0,0 +1,169 @@
+package com.training_microservice.dao.inmemory;
+
+import com.training_microservice.dao.TrainingArchiveRepo;
+import com.training_microservice.domain.entities.Training;
+import com.training_microservice.domain.entities.TrainingArchiveMonth;
+import com.training_microservice.domain.records.TrainingRecord;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Archive of the in-memory backend. The raw trainings are copied column by column from the
+ * hot store it is given into a store of their own, so they take the same compact rows as
+ * the hot ones; the monthly aggregates are kept per trainer. Like the in-memory summaries
+ * it is not logged, so it is not used with durability enabled.
+ */
+public class TrainingArchiveStorageInMemory implements TrainingArchiveRepo {
+
+    private final TrainingStorageInMemory hotStorage;
+    private final TrainingStorageInMemory archivedTrainings = new TrainingStorageInMemory();
+    private final AtomicLong idSequence = new AtomicLong();
+    private final Map<String, List<TrainingArchiveMonth>> monthsByTrainer = new HashMap<>();
+
+    public TrainingArchiveStorageInMemory(TrainingStorageInMemory hotStorage) {
+        this.hotStorage = hotStorage;
+    }
+
+    @Override
+    public synchronized TrainingArchiveMonth save(TrainingArchiveMonth value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.getId() == null) {
+            value.setId(idSequence.incrementAndGet());
+        }
+        monthsByTrainer.computeIfAbsent(value.getTrainerUsername(), k -> new ArrayList<>()).add(value);
+        return value;
+    }
+
+    @Override
+    public int archiveTrainingsBefore(LocalDate before) {
+        return hotStorage.copyTrainingsBefore(before, archivedTrainings);
+    }
+
+    @Override
+    public List<Training> findTrainingPageByTrainee(String username, LocalDate periodFrom, LocalDate periodTo,
+                                                    Long trainingTypeId, LocalDate afterDate, Long afterId,
+                                                    Pageable pageable) {
+        return archivedTrainings.findTrainingPageByTrainee(username, periodFrom, periodTo, trainingTypeId,
+                afterDate, afterId, pageable);
+    }
+
+    @Override
+    public List<Training> findTrainingPageByTrainer(String username, LocalDate periodFrom, LocalDate periodTo,
+                                                    Long trainingTypeId, LocalDate afterDate, Long afterId,
+                                                    Pageable pageable) {
+        return archivedTrainings.findTrainingPageByTrainer(username, periodFrom, periodTo, trainingTypeId,
+                afterDate, afterId, pageable);
+    }
+
+    @Override
+    public Stream<TrainingRecord.TraineeTrainingResponse> streamTrainingByTrainee(String username, LocalDate periodFrom,
+                                                                                 LocalDate periodTo, Long trainingTypeId) {
+        return archivedTrainings.streamTrainingByTrainee(username, periodFrom, periodTo, trainingTypeId);
+    }
+
+    @Override
+    public Stream<TrainingRecord.TrainerTrainingResponse> streamTrainingByTrainer(String username, LocalDate periodFrom,
+                                                                                 LocalDate periodTo, Long trainingTypeId) {
+        return archivedTrainings.streamTrainingByTrainer(username, periodFrom, periodTo, trainingTypeId);
+    }
+
+    @Override
+    public List<String> findIdempotencyKeys(Collection<String> idempotencyKeys) {
+        return idempotencyKeys.stream().filter(archivedTrainings::containsIdempotencyKey).toList();
+    }
+
+    @Override
+    public synchronized List<TrainingRecord.TrainerMonthlyDuration> findMonthlyDurationByTrainer(String username) {
+        return findMonthlyDurationByTrainers(List.of(username));
+    }
+
+    @Override
+    public synchronized List<TrainingRecord.TrainerMonthlyDuration> findMonthlyDurationByTrainers(Collection<String> usernames) {
+        List<TrainingArchiveMonth> months = new ArrayList<>();
+        new LinkedHashSet<>(usernames).forEach(username -> months.addAll(monthsByTrainer.getOrDefault(username, List.of())));
+        return groupTrainerMonths(months);
+    }
+
+    @Override
+    public synchronized List<TrainingRecord.TrainerMonthlyDuration> findMonthlyDurations() {
+        return groupTrainerMonths(allMonths());
+    }
+
+    @Override
+    public synchronized List<TrainingRecord.TrainerMonthlyTypeDuration> findMonthlyTypeDurationByTrainer(String username) {
+        return group(monthsByTrainer.getOrDefault(username, List.of()),
+                month -> new TypeMonth(month.getTrainerUsername(), month.getTrainingTypeId(),
+                        month.getSummaryYear(), month.getSummaryMonth()),
+                (key, totals) -> new TrainingRecord.TrainerMonthlyTypeDuration(key.trainerUsername(),
+                        key.year(), key.month(), key.trainingTypeId(), totals[0]));
+    }
+
+    @Override
+    public synchronized List<TrainingRecord.TraineeMonthlyDuration> findTraineeMonthlyDurationByTrainer(String trainerUsername) {
+        return groupTraineeMonths(monthsByTrainer.getOrDefault(trainerUsername, List.of()));
+    }
+
+    @Override
+    public synchronized List<TrainingRecord.TraineeMonthlyDuration> findTraineeMonthlyDurations() {
+        return groupTraineeMonths(allMonths());
+    }
+
+    @Override
+    public int deleteArchivedTrainingByTrainerUsername(String trainerUsername) {
+        return archivedTrainings.deleteTrainingByTrainerUsername(trainerUsername);
+    }
+
+    @Override
+    public synchronized void deleteArchivedMonthByTrainerUsername(String trainerUsername) {
+        monthsByTrainer.remove(trainerUsername);
+    }
+
+    private List<TrainingArchiveMonth> allMonths() {
+        List<TrainingArchiveMonth> all = new ArrayList<>();
+        monthsByTrainer.values().forEach(all::addAll);
+        return all;
+    }
+
+    private static List<TrainingRecord.TrainerMonthlyDuration> groupTrainerMonths(List<TrainingArchiveMonth> months) {
+        return group(months,
+                month -> new UserMonth(month.getTrainerUsername(), month.getSummaryYear(), month.getSummaryMonth()),
+                (key, totals) -> new TrainingRecord.TrainerMonthlyDuration(key.username(), key.year(), key.month(), totals[0]));
+    }
+
+    private static List<TrainingRecord.TraineeMonthlyDuration> groupTraineeMonths(List<TrainingArchiveMonth> months) {
+        return group(months,
+                month -> new UserMonth(month.getTraineeUsername(), month.getSummaryYear(), month.getSummaryMonth()),
+                (key, totals) -> new TrainingRecord.TraineeMonthlyDuration(key.username(), key.year(), key.month(),
+                        totals[0], totals[1]));
+    }
+
+    /**
+     * Sums the duration and count of the months sharing a key, {total duration, count} per key.
+     */
+    private static <K, R> List<R> group(List<TrainingArchiveMonth> months, Function<TrainingArchiveMonth, K> key,
+                                        BiFunction<K, long[], R> result) {
+        Map<K, long[]> totals = new LinkedHashMap<>();
+        for (TrainingArchiveMonth month : months) {
+            long[] monthTotals = totals.computeIfAbsent(key.apply(month), k -> new long[2]);
+            monthTotals[0] += month.getTotalDuration();
+            monthTotals[1] += month.getTrainingCount();
+        }
+        List<R> grouped = new ArrayList<>(totals.size());
+        totals.forEach((k, monthTotals) -> grouped.add(result.apply(k, monthTotals)));
+        return grouped;
+    }
+
+    private record UserMonth(String username, int year, int month) {
+    }
+
+    private record TypeMonth(String trainerUsername, Long trainingTypeId, int year, int month) {
+    }
+}
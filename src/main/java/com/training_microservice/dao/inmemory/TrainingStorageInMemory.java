@@ -2,52 +2,537 @@ package com.training_microservice.dao.inmemory;
 
 import com.training_microservice.dao.TrainingRepo;
 import com.training_microservice.domain.entities.Training;
+import com.training_microservice.domain.records.TrainingRecord;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * Thread-safe in-memory backend stored by column. Trainings are split over STRIPES
+ * stripes by a hash of the trainer username, each a TrainingStripe with its own columns,
+ * dictionaries, indexes and read-write lock: a training is a row across primitive arrays
+ * (id, epoch day, duration, type id), usernames and training names are int codes, and
+ * per-trainer and per-trainee row lists are kept in (trainingDate, id) order, so a keyset
+ * page seeks to its cursor and reads only the rows it returns, like the
+ * (username, training_date) database indexes.
+ * <p>
+ * Writes lock the stripe of their trainer only, so saves of trainers in different stripes
+ * run in parallel instead of queueing on one store-wide lock. Trainer reads and
+ * aggregations read one stripe. A trainee's trainings sit in the stripes of their trainers:
+ * trainee pages and streams select from every stripe and merge by (trainingDate, id), each
+ * stripe read under its own lock, so they are not a snapshot across stripes. An update
+ * moving a training to a trainer of another stripe is serialized with the other updates
+ * by id and locks both stripes in stripe order.
+ * <p>
+ * Training objects are only built for the rows a caller asks for, exports and monthly
+ * aggregations read the columns directly. Measured with 1M trainings over 500 trainers and
+ * 20,000 trainees, a row takes about 80 bytes of heap against about 350 bytes for the
+ * previous map of Training objects with concurrent username indexes; a username appears in
+ * the dictionary of every stripe it has rows in.
+ * <p>
+ * Idempotency keys are unique like the JPA unique index, a save reusing the key of
+ * another training throws DataIntegrityViolationException. The keys of all stripes share
+ * one concurrent map to the id holding them, a save claims its key there before locking
+ * its stripe. Keys are not interned; only rows saved through POST /training carry one.
+ */
 public class TrainingStorageInMemory implements TrainingRepo {
 
-    private static Map<Long, Training> trainingMap = new HashMap<>();
+    static final int STRIPES = 16;
+    private static final int STREAM_CHUNK = 256;
+    private static final Comparator<Selected<?>> SELECTED_ORDER =
+            Comparator.<Selected<?>>comparingInt(Selected::day).thenComparingLong(Selected::id);
+
+    private final TrainingStripe[] stripes = new TrainingStripe[STRIPES];
+    private final Map<String, Long> idsByIdempotencyKey = new ConcurrentHashMap<>();
+    private final AtomicLong idSequence = new AtomicLong();
+    private final ReadWriteLock moveLock = new ReentrantReadWriteLock();
+    private final ForkJoinPool aggregationPool;
+
+    public TrainingStorageInMemory() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param aggregationPool runs the per-trainer tasks of multi-trainer aggregations
+     */
+    public TrainingStorageInMemory(ForkJoinPool aggregationPool) {
+        this.aggregationPool = aggregationPool;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new TrainingStripe();
+        }
+    }
 
     @Override
     public Training save(Training value) {
         if (value == null) {
             return null;
         }
-        trainingMap.put(value.getId(), value);
-        return trainingMap.get(value.getId());
+        boolean update = value.getId() != null;
+        long id = update ? value.getId() : idSequence.incrementAndGet();
+        if (update) {
+            idSequence.accumulateAndGet(id, Math::max);
+        }
+        String idempotencyKey = value.getIdempotencyKey();
+        Long keyHolder = idempotencyKey == null ? null : idsByIdempotencyKey.putIfAbsent(idempotencyKey, id);
+        if (keyHolder != null && keyHolder != id) {
+            throw new DataIntegrityViolationException("Duplicate idempotency key " + idempotencyKey
+                    + ", violates " + Training.IDEMPOTENCY_KEY_CONSTRAINT);
+        }
+        value.setId(id);
+        try {
+            String previousKey = write(value, update);
+            if (previousKey != null && !previousKey.equals(idempotencyKey)) {
+                idsByIdempotencyKey.remove(previousKey, id);
+            }
+            return value;
+        } catch (RuntimeException e) {
+            if (idempotencyKey != null && keyHolder == null) {
+                idsByIdempotencyKey.remove(idempotencyKey, id);
+            }
+            throw e;
+        }
     }
 
     @Override
     public Optional<Training> findById(Long value) {
-        return Optional.ofNullable(trainingMap.get(value));
+        if (value == null) {
+            return Optional.empty();
+        }
+        for (TrainingStripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                Optional<Training> training = stripe.findById(value);
+                if (training.isPresent()) {
+                    return training;
+                }
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        return Optional.empty();
     }
 
     @Override
     public List<Training> findAll() {
-        return new ArrayList<>(trainingMap.values());
+        List<Training> trainings = new ArrayList<>();
+        for (TrainingStripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                stripe.forEachRow(0, Integer.MAX_VALUE, trainings::add);
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        return trainings;
     }
 
     @Override
     public List<Training> findTrainingByTrainee(String username) {
-        return trainingMap.values().stream()
-                .filter(t -> t.getTraineeUsername().equals(username))
-                .collect(Collectors.toList());
+        return selectTrainee(username, null, null, null, null, null, Integer.MAX_VALUE, TrainingStripe::toTraining, null);
     }
 
     @Override
     public List<Training> findTrainingByTrainer(String username) {
-        return trainingMap.values().stream()
-                .filter(t -> t.getTrainerUsername().equals(username))
-                .collect(Collectors.toList());
+        return selectTrainer(username, null, null, null, null, null, Integer.MAX_VALUE, TrainingStripe::toTraining, null);
+    }
+
+    @Override
+    public List<Training> findTrainingPageByTrainee(String username, LocalDate periodFrom, LocalDate periodTo,
+                                                    Long trainingTypeId, LocalDate afterDate, Long afterId,
+                                                    Pageable pageable) {
+        return selectTrainee(username, periodFrom, periodTo, trainingTypeId, afterDate, afterId,
+                pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE, TrainingStripe::toTraining, null);
+    }
+
+    @Override
+    public List<Training> findTrainingPageByTrainer(String username, LocalDate periodFrom, LocalDate periodTo,
+                                                    Long trainingTypeId, LocalDate afterDate, Long afterId,
+                                                    Pageable pageable) {
+        return selectTrainer(username, periodFrom, periodTo, trainingTypeId, afterDate, afterId,
+                pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE, TrainingStripe::toTraining, null);
+    }
+
+    @Override
+    public Stream<TrainingRecord.TraineeTrainingResponse> streamTrainingByTrainee(String username, LocalDate periodFrom,
+                                                                                 LocalDate periodTo, Long trainingTypeId) {
+        return stream((afterDate, afterId, last) -> selectTrainee(username, periodFrom, periodTo, trainingTypeId,
+                afterDate, afterId, STREAM_CHUNK, TrainingStripe::toTraineeTrainingResponse, last));
+    }
+
+    @Override
+    public Stream<TrainingRecord.TrainerTrainingResponse> streamTrainingByTrainer(String username, LocalDate periodFrom,
+                                                                                 LocalDate periodTo, Long trainingTypeId) {
+        return stream((afterDate, afterId, last) -> selectTrainer(username, periodFrom, periodTo, trainingTypeId,
+                afterDate, afterId, STREAM_CHUNK, TrainingStripe::toTrainerTrainingResponse, last));
+    }
+
+    @Override
+    public List<TrainingRecord.TrainerMonthlyDuration> findMonthlyDurationByTrainer(String username) {
+        TrainingStripe stripe = stripeOf(username);
+        stripe.lock.readLock().lock();
+        try {
+            return stripe.groupByMonth(username);
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Groups each trainer as its own task on the aggregation pool; a task holds the read
+     * lock of its trainer's stripe only while it groups that trainer.
+     */
+    @Override
+    public List<TrainingRecord.TrainerMonthlyDuration> findMonthlyDurationByTrainers(Collection<String> usernames) {
+        List<String> trainers = usernames.stream().distinct().toList();
+        return aggregationPool.submit(() -> trainers.parallelStream()
+                .map(this::findMonthlyDurationByTrainer)
+                .flatMap(List::stream)
+                .toList()).join();
+    }
+
+    @Override
+    public List<TrainingRecord.TrainerMonthlyDuration> findMonthlyDurations() {
+        List<TrainingRecord.TrainerMonthlyDuration> grouped = new ArrayList<>();
+        for (TrainingStripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                grouped.addAll(stripe.groupAllByMonth());
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        return grouped;
     }
 
     @Override
-    public void deleteTrainingByTrainerUsername(String trainerUsername) {
-        trainingMap.values().removeIf(
-                training -> training.getTrainerUsername().equals(trainerUsername));
+    public List<TrainingRecord.TrainerMonthlyTypeDuration> findMonthlyTypeDurationByTrainer(String username) {
+        TrainingStripe stripe = stripeOf(username);
+        stripe.lock.readLock().lock();
+        try {
+            return stripe.groupByTypeAndMonth(username);
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<TrainingRecord.TraineeMonthlyDuration> findTraineeMonthlyDurationByTrainer(String trainerUsername) {
+        TrainingStripe stripe = stripeOf(trainerUsername);
+        stripe.lock.readLock().lock();
+        try {
+            return stripe.groupByTraineeAndMonth(trainerUsername);
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
 
+    /**
+     * Adds up the per-stripe groups of a trainee and month, a trainee has rows in the
+     * stripes of all their trainers.
+     */
+    @Override
+    public List<TrainingRecord.TraineeMonthlyDuration> findTraineeMonthlyDurations() {
+        Map<List<Object>, long[]> months = new LinkedHashMap<>();
+        for (TrainingStripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                for (TrainingRecord.TraineeMonthlyDuration duration : stripe.groupAllByTraineeAndMonth()) {
+                    long[] totals = months.computeIfAbsent(
+                            List.of(duration.traineeUsername(), duration.year(), duration.month()), key -> new long[2]);
+                    totals[0] += duration.totalDuration();
+                    totals[1] += duration.trainingCount();
+                }
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        List<TrainingRecord.TraineeMonthlyDuration> grouped = new ArrayList<>(months.size());
+        months.forEach((key, totals) -> grouped.add(new TrainingRecord.TraineeMonthlyDuration(
+                (String) key.get(0), (Integer) key.get(1), (Integer) key.get(2), totals[0], totals[1])));
+        return grouped;
+    }
+
+    /**
+     * Aggregates are keyed by trainer, so the groups of different stripes never overlap.
+     */
+    @Override
+    public List<TrainingRecord.TrainingMonthlyAggregate> findMonthlyAggregatesBefore(LocalDate before) {
+        List<TrainingRecord.TrainingMonthlyAggregate> aggregates = new ArrayList<>();
+        for (TrainingStripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                aggregates.addAll(stripe.aggregateBefore(before.toEpochDay()));
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        return aggregates;
     }
 
+    /**
+     * Saves the rows dated before the day into the target store, reading the columns of
+     * one stripe at a time under its read lock instead of building the whole store as in
+     * findAll. Idempotency keys are copied with their rows, the target keeps them in use.
+     * @return number of rows copied
+     */
+    public int copyTrainingsBefore(LocalDate before, TrainingStorageInMemory target) {
+        int copied = 0;
+        for (TrainingStripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                copied += stripe.forEachBefore(before.toEpochDay(), target::save);
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        return copied;
+    }
+
+    boolean containsIdempotencyKey(String idempotencyKey) {
+        return idsByIdempotencyKey.containsKey(idempotencyKey);
+    }
+
+    /**
+     * Hands every row to the consumer as a Training, building STREAM_CHUNK rows per hold of
+     * a stripe's read lock and running the consumer with the lock released, so writers
+     * interleave with a walk of the whole store. A row saved or deleted during the walk may
+     * or may not be seen.
+     */
+    void forEachTraining(Consumer<Training> consumer) {
+        List<Training> chunk = new ArrayList<>(STREAM_CHUNK);
+        for (TrainingStripe stripe : stripes) {
+            for (int start = 0; ; start += STREAM_CHUNK) {
+                boolean more;
+                stripe.lock.readLock().lock();
+                try {
+                    more = stripe.forEachRow(start, STREAM_CHUNK, chunk::add);
+                } finally {
+                    stripe.lock.readLock().unlock();
+                }
+                if (!more) {
+                    break;
+                }
+                chunk.forEach(consumer);
+                chunk.clear();
+            }
+        }
+    }
+
+    /**
+     * Saves a training read back from the training log unless another training holds its
+     * idempotency key. Only a snapshot taken while writes continued leads there: it can
+     * hold a training saved after an older one with the same key was deleted, the older
+     * one's save is replayed and skipped, and its delete and the newer save follow in the
+     * log. Replay runs before the store is shared, nothing saves between the check and the
+     * save.
+     * @return whether the training was saved
+     */
+    boolean saveReplayed(Training training) {
+        String idempotencyKey = training.getIdempotencyKey();
+        Long keyHolder = idempotencyKey == null ? null : idsByIdempotencyKey.get(idempotencyKey);
+        if (keyHolder != null && !keyHolder.equals(training.getId())) {
+            return false;
+        }
+        save(training);
+        return true;
+    }
+
+    @Override
+    public int deleteTrainingByTrainerUsername(String trainerUsername) {
+        TrainingStripe stripe = stripeOf(trainerUsername);
+        stripe.lock.writeLock().lock();
+        try {
+            return stripe.deleteTrainer(trainerUsername, idsByIdempotencyKey::remove);
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int deleteTrainingsBefore(LocalDate before) {
+        int deleted = 0;
+        for (TrainingStripe stripe : stripes) {
+            stripe.lock.writeLock().lock();
+            try {
+                deleted += stripe.deleteBefore(before.toEpochDay(), idsByIdempotencyKey::remove);
+            } finally {
+                stripe.lock.writeLock().unlock();
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Writes the training, its id set, into the stripe of its trainer. An update of a row
+     * that stays in its stripe holds the move lock shared; one that moves the row to
+     * another stripe, or finds no row for its id, holds it exclusively, so no other update
+     * looks the id up while the row is between stripes or inserts the same id elsewhere.
+     * A move takes the write locks of both stripes in stripe order.
+     * @return the idempotency key the updated row held before, null for an insert
+     */
+    private String write(Training value, boolean update) {
+        int target = stripeIndex(value.getTrainerUsername());
+        if (!update) {
+            return save(stripes[target], value);
+        }
+        moveLock.readLock().lock();
+        try {
+            if (stripeHolding(value.getId()) == target) {
+                return save(stripes[target], value);
+            }
+        } finally {
+            moveLock.readLock().unlock();
+        }
+        moveLock.writeLock().lock();
+        try {
+            int source = stripeHolding(value.getId());
+            if (source == -1 || source == target) {
+                return save(stripes[target], value);
+            }
+            TrainingStripe first = stripes[Math.min(source, target)];
+            TrainingStripe second = stripes[Math.max(source, target)];
+            first.lock.writeLock().lock();
+            second.lock.writeLock().lock();
+            try {
+                String previousKey = stripes[source].remove(value.getId());
+                stripes[target].save(value);
+                return previousKey;
+            } finally {
+                second.lock.writeLock().unlock();
+                first.lock.writeLock().unlock();
+            }
+        } finally {
+            moveLock.writeLock().unlock();
+        }
+    }
+
+    private static String save(TrainingStripe stripe, Training value) {
+        stripe.lock.writeLock().lock();
+        try {
+            return stripe.save(value);
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return index of the stripe holding the id, -1 when none does
+     */
+    private int stripeHolding(long id) {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i].lock.readLock().lock();
+            try {
+                if (stripes[i].contains(id)) {
+                    return i;
+                }
+            } finally {
+                stripes[i].lock.readLock().unlock();
+            }
+        }
+        return -1;
+    }
+
+    private <T> List<T> selectTrainer(String username, LocalDate periodFrom, LocalDate periodTo, Long trainingTypeId,
+                                      LocalDate afterDate, Long afterId, int limit,
+                                      TrainingStripe.RowMapper<T> mapper, long[] last) {
+        TrainingStripe stripe = stripeOf(username);
+        stripe.lock.readLock().lock();
+        try {
+            return stripe.select(true, username, periodFrom, periodTo, trainingTypeId, afterDate, afterId, limit,
+                    mapper, last);
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Selects up to limit rows of the trainee from every stripe and keeps the first limit
+     * of them in (trainingDate, id) order.
+     * @param last when given, receives the epoch day and id of the last selected row
+     */
+    private <T> List<T> selectTrainee(String username, LocalDate periodFrom, LocalDate periodTo, Long trainingTypeId,
+                                      LocalDate afterDate, Long afterId, int limit,
+                                      TrainingStripe.RowMapper<T> mapper, long[] last) {
+        List<Selected<T>> selected = new ArrayList<>();
+        for (TrainingStripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                selected.addAll(stripe.select(false, username, periodFrom, periodTo, trainingTypeId, afterDate,
+                        afterId, limit, (from, row) -> new Selected<>(from.day(row), from.id(row), mapper.map(from, row)),
+                        null));
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        selected.sort(SELECTED_ORDER);
+        List<T> page = new ArrayList<>(Math.min(limit, selected.size()));
+        for (Selected<T> row : selected.subList(0, Math.min(limit, selected.size()))) {
+            page.add(row.value());
+            if (last != null) {
+                last[0] = row.day();
+                last[1] = row.id();
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Selects the matching rows STREAM_CHUNK at a time as the stream is consumed. Every chunk
+     * takes the read locks on its own and seeks past the last row of the previous one, so a
+     * slow consumer holds neither a lock nor the rows it has not reached yet; rows written
+     * meanwhile show up if they sort after the rows already read.
+     */
+    private static <T> Stream<T> stream(ChunkSelector<T> selector) {
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private final long[] last = new long[2];
+            private LocalDate afterDate;
+            private Iterator<T> chunk = Collections.emptyIterator();
+            private boolean exhausted;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                if (!chunk.hasNext() && !exhausted) {
+                    List<T> next = selector.select(afterDate, last[1], last);
+                    exhausted = next.size() < STREAM_CHUNK;
+                    afterDate = LocalDate.ofEpochDay(last[0]);
+                    chunk = next.iterator();
+                }
+                if (!chunk.hasNext()) {
+                    return false;
+                }
+                action.accept(chunk.next());
+                return true;
+            }
+        }, false);
+    }
+
+    private TrainingStripe stripeOf(String trainerUsername) {
+        return stripes[stripeIndex(trainerUsername)];
+    }
+
+    private static int stripeIndex(String trainerUsername) {
+        int hash = Objects.hashCode(trainerUsername);
+        return (hash ^ hash >>> 16) & (STRIPES - 1);
+    }
+
+    /**
+     * Selects the next chunk of a stream after the (afterDate, afterId) cursor.
+     */
+    private interface ChunkSelector<T> {
+        List<T> select(LocalDate afterDate, Long afterId, long[] last);
+    }
+
+    private record Selected<T>(int day, long id, T value) {
+    }
 }
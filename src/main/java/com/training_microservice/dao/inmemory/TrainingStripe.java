@@ -0,0 +1,468 @@
+package com.training_microservice.dao.inmemory;
+
+import com.training_microservice.domain.entities.Training;
+import com.training_microservice.domain.records.TrainingRecord;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * One stripe of TrainingStorageInMemory, the trainings of the trainers hashed to it stored
+ * by column. A training is a row across primitive arrays (id, epoch day, duration, type
+ * id), usernames and training names are interned in the stripe's dictionaries and kept as
+ * int codes. Rows are found by id through a primitive hash map and by username through
+ * per-trainer and per-trainee row lists kept in (trainingDate, id) order; deleted rows are
+ * reused.
+ * <p>
+ * Not thread-safe; TrainingStorageInMemory holds the stripe's lock around every call.
+ */
+final class TrainingStripe {
+
+    static final long NULL_VALUE = Long.MIN_VALUE;
+    private static final int FREE_ROW = -2;
+
+    final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final StringDictionary usernames = new StringDictionary();
+    private final StringDictionary trainingNames = new StringDictionary();
+    private final LongIntHashMap rowsById = new LongIntHashMap();
+    // row lists indexed by username code, null when the user has no rows on that side
+    private final List<IntList> trainerRows = new ArrayList<>();
+    private final List<IntList> traineeRows = new ArrayList<>();
+    private final IntList freeRows = new IntList();
+
+    private int rowCount;
+    private long[] ids = new long[256];
+    private int[] trainers = new int[256];
+    private int[] trainees = new int[256];
+    private int[] names = new int[256];
+    private int[] days = new int[256];
+    private long[] durations = new long[256];
+    private long[] trainingTypes = new long[256];
+    private String[] idempotencyKeys = new String[256];
+
+    /**
+     * Maps a selected row of a stripe to what the caller returns.
+     */
+    interface RowMapper<T> {
+        T map(TrainingStripe stripe, int row);
+    }
+
+    boolean contains(long id) {
+        return rowsById.get(id) != LongIntHashMap.MISSING;
+    }
+
+    /**
+     * Inserts the training or updates the row holding its id, which must be set.
+     * @return the idempotency key the updated row held before, null for an insert
+     */
+    String save(Training value) {
+        int trainer = usernames.encode(value.getTrainerUsername());
+        int trainee = usernames.encode(value.getTraineeUsername());
+        int day = Math.toIntExact(value.getTrainingDate().toEpochDay());
+        int row = rowsById.get(value.getId());
+        boolean placed = false;
+        if (row == LongIntHashMap.MISSING) {
+            row = freeRows.isEmpty() ? appendRow() : freeRows.removeLast();
+            rowsById.put(value.getId(), row);
+        } else if (trainers[row] == trainer && trainees[row] == trainee && days[row] == day) {
+            placed = true;
+        } else {
+            // the update moves the training to another user or date, it is placed again below
+            removeRow(trainerRows, trainers[row], row);
+            removeRow(traineeRows, trainees[row], row);
+        }
+        String previousKey = idempotencyKeys[row];
+        ids[row] = value.getId();
+        trainers[row] = trainer;
+        trainees[row] = trainee;
+        names[row] = trainingNames.encode(value.getTrainingName());
+        days[row] = day;
+        if (!placed) {
+            insertRow(trainerRows, trainer, row);
+            insertRow(traineeRows, trainee, row);
+        }
+        durations[row] = value.getTrainingDuration() != null ? value.getTrainingDuration() : NULL_VALUE;
+        trainingTypes[row] = value.getTrainingTypeId() != null ? value.getTrainingTypeId() : NULL_VALUE;
+        idempotencyKeys[row] = value.getIdempotencyKey();
+        return previousKey;
+    }
+
+    /**
+     * Removes the row of a training moving to another stripe.
+     * @return the idempotency key the row held
+     */
+    String remove(long id) {
+        int row = rowsById.get(id);
+        removeRow(trainerRows, trainers[row], row);
+        removeRow(traineeRows, trainees[row], row);
+        return free(row);
+    }
+
+    Optional<Training> findById(long id) {
+        int row = rowsById.get(id);
+        return row == LongIntHashMap.MISSING ? Optional.empty() : Optional.of(toTraining(row));
+    }
+
+    int size() {
+        return rowsById.size();
+    }
+
+    /**
+     * Hands the rows from start up to start + count, skipping free ones.
+     * @return false once start is past the last row
+     */
+    boolean forEachRow(int start, int count, Consumer<Training> consumer) {
+        if (start >= rowCount) {
+            return false;
+        }
+        for (int row = start; row < Math.min(rowCount, start + count); row++) {
+            if (trainers[row] != FREE_ROW) {
+                consumer.accept(toTraining(row));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Maps up to limit rows of a user that pass the filters, in (trainingDate, id) order
+     * and after the (afterDate, afterId) cursor when one is given. The scan starts from a
+     * binary search of the user's ordered rows and stops past periodTo, so rows before the
+     * cursor or outside the period are never visited.
+     * @param last when given, receives the epoch day and id of the last selected row
+     */
+    <T> List<T> select(boolean byTrainer, String username, LocalDate periodFrom, LocalDate periodTo,
+                       Long trainingTypeId, LocalDate afterDate, Long afterId, int limit,
+                       RowMapper<T> mapper, long[] last) {
+        IntList rows = findRows(byTrainer ? trainerRows : traineeRows, usernames.find(username));
+        if (rows == null) {
+            return new ArrayList<>();
+        }
+        int start = periodFrom == null ? 0 : after(rows, Math.toIntExact(periodFrom.toEpochDay()) - 1, Long.MAX_VALUE);
+        if (afterDate != null) {
+            start = Math.max(start, after(rows, Math.toIntExact(afterDate.toEpochDay()), afterId));
+        }
+        int toDay = periodTo == null ? Integer.MAX_VALUE : Math.toIntExact(periodTo.toEpochDay());
+        List<T> selected = new ArrayList<>();
+        for (int i = start; i < rows.size() && selected.size() < limit; i++) {
+            int row = rows.get(i);
+            if (days[row] > toDay) {
+                break;
+            }
+            if (trainingTypeId == null || trainingTypes[row] == trainingTypeId) {
+                selected.add(mapper.map(this, row));
+                if (last != null) {
+                    last[0] = days[row];
+                    last[1] = ids[row];
+                }
+            }
+        }
+        return selected;
+    }
+
+    int day(int row) {
+        return days[row];
+    }
+
+    long id(int row) {
+        return ids[row];
+    }
+
+    Training toTraining(int row) {
+        Training training = new Training();
+        training.setId(ids[row]);
+        training.setTrainerUsername(usernames.decode(trainers[row]));
+        training.setTraineeUsername(usernames.decode(trainees[row]));
+        training.setTrainingName(trainingNames.decode(names[row]));
+        training.setTrainingDate(LocalDate.ofEpochDay(days[row]));
+        training.setTrainingDuration(nullable(durations[row]));
+        training.setTrainingTypeId(nullable(trainingTypes[row]));
+        training.setIdempotencyKey(idempotencyKeys[row]);
+        return training;
+    }
+
+    TrainingRecord.TraineeTrainingResponse toTraineeTrainingResponse(int row) {
+        return new TrainingRecord.TraineeTrainingResponse(trainingNames.decode(names[row]),
+                LocalDate.ofEpochDay(days[row]), usernames.decode(trainers[row]), nullable(durations[row]));
+    }
+
+    TrainingRecord.TrainerTrainingResponse toTrainerTrainingResponse(int row) {
+        return new TrainingRecord.TrainerTrainingResponse(trainingNames.decode(names[row]),
+                LocalDate.ofEpochDay(days[row]), usernames.decode(trainees[row]), nullable(durations[row]));
+    }
+
+    boolean hasTrainer(String username) {
+        return findRows(trainerRows, usernames.find(username)) != null;
+    }
+
+    List<TrainingRecord.TrainerMonthlyDuration> groupByMonth(String trainerUsername) {
+        return groupByMonth(usernames.find(trainerUsername));
+    }
+
+    List<TrainingRecord.TrainerMonthlyDuration> groupAllByMonth() {
+        List<TrainingRecord.TrainerMonthlyDuration> grouped = new ArrayList<>();
+        for (int trainer = 0; trainer < trainerRows.size(); trainer++) {
+            grouped.addAll(groupByMonth(trainer));
+        }
+        return grouped;
+    }
+
+    List<TrainingRecord.TrainerMonthlyTypeDuration> groupByTypeAndMonth(String username) {
+        IntList rows = findRows(trainerRows, usernames.find(username));
+        if (rows == null) {
+            return List.of();
+        }
+        // type id -> year * 12 + month - 1 -> total duration, the null key holds untyped rows
+        Map<Long, Map<Integer, long[]>> types = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            int row = rows.get(i);
+            if (durations[row] == NULL_VALUE) {
+                continue;
+            }
+            LocalDate date = LocalDate.ofEpochDay(days[row]);
+            types.computeIfAbsent(nullable(trainingTypes[row]), type -> new HashMap<>())
+                    .computeIfAbsent(date.getYear() * 12 + date.getMonthValue() - 1, month -> new long[1])[0]
+                    += durations[row];
+        }
+        List<TrainingRecord.TrainerMonthlyTypeDuration> grouped = new ArrayList<>();
+        types.forEach((type, months) -> months.forEach((month, total) -> grouped.add(
+                new TrainingRecord.TrainerMonthlyTypeDuration(username, month / 12, month % 12 + 1, type, total[0]))));
+        return grouped;
+    }
+
+    List<TrainingRecord.TraineeMonthlyDuration> groupByTraineeAndMonth(String trainerUsername) {
+        IntList rows = findRows(trainerRows, usernames.find(trainerUsername));
+        return rows == null ? List.of() : groupByTraineeAndMonth(rows.size(), rows::get);
+    }
+
+    List<TrainingRecord.TraineeMonthlyDuration> groupAllByTraineeAndMonth() {
+        return groupByTraineeAndMonth(rowCount, row -> row);
+    }
+
+    List<TrainingRecord.TrainingMonthlyAggregate> aggregateBefore(long beforeDay) {
+        Map<AggregateKey, long[]> months = new HashMap<>();
+        for (int row = 0; row < rowCount; row++) {
+            if (trainers[row] == FREE_ROW || days[row] >= beforeDay) {
+                continue;
+            }
+            LocalDate date = LocalDate.ofEpochDay(days[row]);
+            long[] totals = months.computeIfAbsent(new AggregateKey(trainers[row], trainees[row], trainingTypes[row],
+                    date.getYear() * 12 + date.getMonthValue() - 1), key -> new long[2]);
+            if (durations[row] != NULL_VALUE) {
+                totals[0] += durations[row];
+            }
+            totals[1]++;
+        }
+        List<TrainingRecord.TrainingMonthlyAggregate> aggregates = new ArrayList<>(months.size());
+        months.forEach((key, totals) -> aggregates.add(new TrainingRecord.TrainingMonthlyAggregate(
+                usernames.decode(key.trainer()), usernames.decode(key.trainee()), nullable(key.trainingType()),
+                key.month() / 12, key.month() % 12 + 1, totals[0], totals[1])));
+        return aggregates;
+    }
+
+    /**
+     * @return number of rows dated before the day handed to the consumer
+     */
+    int forEachBefore(long beforeDay, Consumer<Training> consumer) {
+        int handed = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (trainers[row] != FREE_ROW && days[row] < beforeDay) {
+                consumer.accept(toTraining(row));
+                handed++;
+            }
+        }
+        return handed;
+    }
+
+    /**
+     * @param removedKeys receives the idempotency keys of the removed rows
+     * @return number of rows removed
+     */
+    int deleteTrainer(String trainerUsername, Consumer<String> removedKeys) {
+        int trainer = usernames.find(trainerUsername);
+        IntList rows = findRows(trainerRows, trainer);
+        if (rows == null) {
+            return 0;
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            int row = rows.get(i);
+            removeRow(traineeRows, trainees[row], row);
+            accept(removedKeys, free(row));
+        }
+        trainerRows.set(trainer, null);
+        return rows.size();
+    }
+
+    /**
+     * @param removedKeys receives the idempotency keys of the removed rows
+     * @return number of rows dated before the day removed
+     */
+    int deleteBefore(long beforeDay, Consumer<String> removedKeys) {
+        int deleted = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (trainers[row] == FREE_ROW || days[row] >= beforeDay) {
+                continue;
+            }
+            accept(removedKeys, free(row));
+            deleted++;
+        }
+        if (deleted > 0) {
+            // one compacting pass per list instead of a search per removed row
+            dropFreeRows(trainerRows);
+            dropFreeRows(traineeRows);
+        }
+        return deleted;
+    }
+
+    static Long nullable(long value) {
+        return value == NULL_VALUE ? null : value;
+    }
+
+    private static void accept(Consumer<String> removedKeys, String idempotencyKey) {
+        if (idempotencyKey != null) {
+            removedKeys.accept(idempotencyKey);
+        }
+    }
+
+    /**
+     * Marks the row free, the caller takes it out of the row lists.
+     * @return the idempotency key the row held
+     */
+    private String free(int row) {
+        rowsById.remove(ids[row]);
+        String idempotencyKey = idempotencyKeys[row];
+        idempotencyKeys[row] = null;
+        trainers[row] = FREE_ROW;
+        freeRows.add(row);
+        return idempotencyKey;
+    }
+
+    /**
+     * Index of the first of the ordered rows that comes after (day, id).
+     */
+    private int after(IntList rows, int day, long id) {
+        int low = 0;
+        int high = rows.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int row = rows.get(middle);
+            if (days[row] < day || days[row] == day && ids[row] <= id) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private List<TrainingRecord.TrainerMonthlyDuration> groupByMonth(int trainer) {
+        IntList rows = findRows(trainerRows, trainer);
+        if (rows == null) {
+            return List.of();
+        }
+        // year * 12 + month - 1 -> total duration
+        Map<Integer, long[]> months = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            int row = rows.get(i);
+            if (durations[row] == NULL_VALUE) {
+                continue;
+            }
+            LocalDate date = LocalDate.ofEpochDay(days[row]);
+            months.computeIfAbsent(date.getYear() * 12 + date.getMonthValue() - 1, month -> new long[1])[0]
+                    += durations[row];
+        }
+        String trainerUsername = usernames.decode(trainer);
+        List<TrainingRecord.TrainerMonthlyDuration> grouped = new ArrayList<>(months.size());
+        months.forEach((month, total) -> grouped.add(new TrainingRecord.TrainerMonthlyDuration(
+                trainerUsername, month / 12, month % 12 + 1, total[0])));
+        return grouped;
+    }
+
+    /**
+     * Groups rows(0) .. rows(size - 1) by trainee and month, skipping free rows. Like the
+     * JPA query, trainings without a duration are counted but add nothing to the total.
+     */
+    private List<TrainingRecord.TraineeMonthlyDuration> groupByTraineeAndMonth(int size, IntUnaryOperator rows) {
+        // trainee code << 32 | (year * 12 + month - 1) -> {total duration, count}
+        Map<Long, long[]> months = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            int row = rows.applyAsInt(i);
+            if (trainers[row] == FREE_ROW) {
+                continue;
+            }
+            LocalDate date = LocalDate.ofEpochDay(days[row]);
+            long[] totals = months.computeIfAbsent(
+                    (long) trainees[row] << 32 | (date.getYear() * 12 + date.getMonthValue() - 1), key -> new long[2]);
+            if (durations[row] != NULL_VALUE) {
+                totals[0] += durations[row];
+            }
+            totals[1]++;
+        }
+        List<TrainingRecord.TraineeMonthlyDuration> grouped = new ArrayList<>(months.size());
+        months.forEach((key, totals) -> {
+            int month = (int) (long) key;
+            grouped.add(new TrainingRecord.TraineeMonthlyDuration(usernames.decode((int) (key >>> 32)),
+                    month / 12, month % 12 + 1, totals[0], totals[1]));
+        });
+        return grouped;
+    }
+
+    private int appendRow() {
+        if (rowCount == ids.length) {
+            int capacity = rowCount + (rowCount >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            trainers = Arrays.copyOf(trainers, capacity);
+            trainees = Arrays.copyOf(trainees, capacity);
+            names = Arrays.copyOf(names, capacity);
+            days = Arrays.copyOf(days, capacity);
+            durations = Arrays.copyOf(durations, capacity);
+            trainingTypes = Arrays.copyOf(trainingTypes, capacity);
+            idempotencyKeys = Arrays.copyOf(idempotencyKeys, capacity);
+        }
+        return rowCount++;
+    }
+
+    private void insertRow(List<IntList> index, int code, int row) {
+        while (index.size() <= code) {
+            index.add(null);
+        }
+        IntList rows = index.get(code);
+        if (rows == null) {
+            rows = new IntList();
+            index.set(code, rows);
+        }
+        rows.insert(after(rows, days[row], ids[row]), row);
+    }
+
+    private static IntList findRows(List<IntList> index, int code) {
+        return code >= 0 && code < index.size() ? index.get(code) : null;
+    }
+
+    private void dropFreeRows(List<IntList> index) {
+        for (int code = 0; code < index.size(); code++) {
+            IntList rows = index.get(code);
+            if (rows != null) {
+                rows.removeIf(row -> trainers[row] == FREE_ROW);
+                if (rows.isEmpty()) {
+                    index.set(code, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the row from the user's ordered rows, found by its current date and id.
+     */
+    private void removeRow(List<IntList> index, int code, int row) {
+        IntList rows = index.get(code);
+        rows.removeAt(after(rows, days[row], ids[row]) - 1);
+        if (rows.isEmpty()) {
+            index.set(code, null);
+        }
+    }
+
+    private record AggregateKey(int trainer, int trainee, long trainingType, int month) {
+    }
+}
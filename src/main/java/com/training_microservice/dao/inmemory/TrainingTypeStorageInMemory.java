@@ -0,0 +1,44 @@
+package com.training_microservice.dao.inmemory;
+
+import com.training_microservice.dao.TrainingTypeRepo;
+import com.training_microservice.domain.entities.TrainingType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Training types of the in-memory backend, seeded with the types of the V5 migration.
+ */
+public class TrainingTypeStorageInMemory implements TrainingTypeRepo {
+
+    private static final List<String> DEFAULT_TYPES = List.of("FITNESS", "YOGA", "ZUMBA", "STRETCHING", "RESISTANCE");
+
+    private final AtomicLong idSequence = new AtomicLong();
+    private final Map<Long, TrainingType> trainingTypeMap = new ConcurrentHashMap<>();
+
+    public TrainingTypeStorageInMemory() {
+        DEFAULT_TYPES.forEach(name -> save(new TrainingType(null, name)));
+    }
+
+    @Override
+    public TrainingType save(TrainingType value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.getId() == null) {
+            value.setId(idSequence.incrementAndGet());
+        } else {
+            idSequence.accumulateAndGet(value.getId(), Math::max);
+        }
+        trainingTypeMap.put(value.getId(), value);
+        return value;
+    }
+
+    @Override
+    public List<TrainingType> findAll() {
+        return new ArrayList<>(trainingTypeMap.values());
+    }
+}
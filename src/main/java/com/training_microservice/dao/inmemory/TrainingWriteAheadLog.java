@@ -0,0 +1,621 @@
+package com.training_microservice.dao.inmemory;
+
+import com.training_microservice.config.InMemoryDurabilityProperties;
+import com.training_microservice.config.InMemoryDurabilityProperties.FsyncPolicy;
+import com.training_microservice.domain.entities.Training;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary log of the in-memory training store. Every generation is one
+ * "wal-{generation}.log" file written through fixed size memory-mapped regions, a
+ * compaction writes "snapshot-{generation}.bin" with the whole store and drops the older
+ * files, so recovery loads the newest snapshot and replays the logs from its generation.
+ * <p>
+ * Files start with a header (magic, version, region size) followed by records framed as
+ * [int length][int crc32][payload]. A zero length or a bad checksum ends the log, which
+ * is how a torn tail from a crash is detected; a negative length pads the rest of a
+ * region that was too small for the next record. Replay is idempotent (saves are
+ * upserts by id, a save whose idempotency key is held by another training is skipped),
+ * which lets a snapshot be taken while writes continue.
+ * <p>
+ * A record is appended in three steps: reserve makes room for it (the only step that
+ * touches the file system), write copies it into the mapped region and awaitDurable waits
+ * for the fsync policy. The caller reserves before changing its store, so a full disk or a
+ * closed log fails the write before anything was applied.
+ */
+@Slf4j
+public class TrainingWriteAheadLog implements Closeable {
+
+    private static final int MAGIC = 0x54524e4c;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int FRAME_HEADER_SIZE = 8;
+    private static final int SKIP_TO_NEXT_REGION = -1;
+
+    private static final byte SAVE = 1;
+    private static final byte DELETE_TRAINER = 2;
+    private static final byte DELETE_BEFORE = 3;
+    private static final byte HAS_TRAINING_TYPE = 1;
+    private static final byte HAS_DURATION = 2;
+    // the key string follows the training name, records written before it existed lack the flag
+    private static final byte HAS_IDEMPOTENCY_KEY = 4;
+
+    private static final String LOG_PREFIX = "wal-";
+    private static final String LOG_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final int regionSize;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Condition flushRequested = appendLock.newCondition();
+    private final Condition durableAdvanced = appendLock.newCondition();
+    private final ScheduledExecutorService flusher;
+
+    // guarded by appendLock
+    private long generation;
+    private FileChannel channel;
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long appended;
+    private long durable;
+    private boolean closed;
+
+    private TrainingWriteAheadLog(InMemoryDurabilityProperties properties) {
+        this.directory = Path.of(properties.getDirectory());
+        this.fsyncPolicy = properties.getFsync();
+        this.regionSize = Math.toIntExact(properties.getRegionSize().toBytes());
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "training-log-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Replays the newest snapshot and the logs after it into the given store, then opens
+     * the last log for appending.
+     */
+    public static TrainingWriteAheadLog open(InMemoryDurabilityProperties properties, TrainingStorageInMemory target) throws IOException {
+        TrainingWriteAheadLog log = new TrainingWriteAheadLog(properties);
+        log.recover(target);
+        if (log.fsyncPolicy == FsyncPolicy.GROUP_COMMIT) {
+            log.flusher.execute(log::groupCommit);
+        } else if (log.fsyncPolicy == FsyncPolicy.INTERVAL) {
+            long interval = properties.getFsyncInterval().toNanos();
+            log.flusher.scheduleWithFixedDelay(log::force, interval, interval, TimeUnit.NANOSECONDS);
+        }
+        return log;
+    }
+
+    /**
+     * Encodes a save, a training without an id yet gets it later through setSavedId.
+     */
+    static byte[] encodeSave(Training training) {
+        ByteBuffer payload = ByteBuffer.allocate(1 + Long.BYTES * 4 + 1
+                + stringSize(training.getTraineeUsername())
+                + stringSize(training.getTrainerUsername())
+                + stringSize(training.getTrainingName())
+                + (training.getIdempotencyKey() != null ? stringSize(training.getIdempotencyKey()) : 0));
+        payload.put(SAVE);
+        payload.putLong(training.getId() != null ? training.getId() : 0);
+        payload.putLong(training.getTrainingDate().toEpochDay());
+        byte flags = 0;
+        if (training.getTrainingTypeId() != null) {
+            flags |= HAS_TRAINING_TYPE;
+        }
+        if (training.getTrainingDuration() != null) {
+            flags |= HAS_DURATION;
+        }
+        if (training.getIdempotencyKey() != null) {
+            flags |= HAS_IDEMPOTENCY_KEY;
+        }
+        payload.put(flags);
+        payload.putLong(training.getTrainingTypeId() != null ? training.getTrainingTypeId() : 0);
+        payload.putLong(training.getTrainingDuration() != null ? training.getTrainingDuration() : 0);
+        putString(payload, training.getTraineeUsername());
+        putString(payload, training.getTrainerUsername());
+        putString(payload, training.getTrainingName());
+        if (training.getIdempotencyKey() != null) {
+            putString(payload, training.getIdempotencyKey());
+        }
+        return payload.array();
+    }
+
+    static void setSavedId(byte[] record, long id) {
+        ByteBuffer.wrap(record).putLong(1, id);
+    }
+
+    static byte[] encodeDeleteTrainer(String trainerUsername) {
+        ByteBuffer payload = ByteBuffer.allocate(1 + stringSize(trainerUsername));
+        payload.put(DELETE_TRAINER);
+        putString(payload, trainerUsername);
+        return payload.array();
+    }
+
+    static byte[] encodeDeleteBefore(LocalDate before) {
+        ByteBuffer payload = ByteBuffer.allocate(1 + Long.BYTES);
+        payload.put(DELETE_BEFORE);
+        payload.putLong(before.toEpochDay());
+        return payload.array();
+    }
+
+    /**
+     * Makes room for the record in the current region, mapping the next one when it is
+     * too small. Callers serialize reserve and the following write.
+     * @throws UncheckedIOException when the next region can't be mapped
+     */
+    public void reserve(byte[] record) {
+        int frameSize = FRAME_HEADER_SIZE + record.length;
+        if (frameSize > regionSize - HEADER_SIZE) {
+            throw new IllegalArgumentException("Training record of " + frameSize + " bytes exceeds the log region");
+        }
+        appendLock.lock();
+        try {
+            checkOpen();
+            if (region.remaining() < frameSize) {
+                if (region.remaining() >= Integer.BYTES) {
+                    region.putInt(region.position(), SKIP_TO_NEXT_REGION);
+                }
+                region.force();
+                mapRegion(regionStart + regionSize, 0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error, appending to the training log", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Copies a reserved record into the region, it is durable once awaitDurable returns.
+     * @return the log position after the record
+     */
+    public long write(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        appendLock.lock();
+        try {
+            checkOpen();
+            int frameSize = FRAME_HEADER_SIZE + record.length;
+            if (region.remaining() < frameSize) {
+                throw new IllegalStateException("Training record written without reserving room for it");
+            }
+            int position = region.position();
+            region.position(position + FRAME_HEADER_SIZE);
+            region.put(record);
+            region.putInt(position + Integer.BYTES, (int) crc.getValue());
+            // the length goes last, until then a reader sees the end of the log here
+            region.putInt(position, record.length);
+            appended += frameSize;
+            if (fsyncPolicy == FsyncPolicy.GROUP_COMMIT) {
+                flushRequested.signal();
+            }
+            return appended;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the log is durable up to the position as the fsync policy defines it:
+     * forced by this call, by the group commit flusher, or not waited for at all.
+     */
+    public void awaitDurable(long end) {
+        switch (fsyncPolicy) {
+            case PER_WRITE -> {
+                appendLock.lock();
+                try {
+                    // earlier regions were forced when the next one was mapped
+                    if (durable < end && !closed) {
+                        region.force();
+                        durable = appended;
+                    }
+                } finally {
+                    appendLock.unlock();
+                }
+            }
+            case GROUP_COMMIT -> {
+                appendLock.lock();
+                try {
+                    while (durable < end && !closed) {
+                        durableAdvanced.awaitUninterruptibly();
+                    }
+                } finally {
+                    appendLock.unlock();
+                }
+            }
+            case INTERVAL -> {
+                // the flusher forces on its own schedule
+            }
+        }
+    }
+
+    /**
+     * Bytes appended to the current generation.
+     */
+    public long size() {
+        appendLock.lock();
+        try {
+            return regionStart + region.position();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Forces and closes the current log and starts the next generation. Writes appended
+     * before the rotation must already be applied to the store that gets snapshotted.
+     * @return the new generation, the one a snapshot taken now has to be replayed from
+     */
+    public long rotate() throws IOException {
+        appendLock.lock();
+        try {
+            region.force();
+            durable = appended;
+            durableAdvanced.signalAll();
+            channel.close();
+            openGeneration(generation + 1, HEADER_SIZE, true);
+            return generation;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the snapshot of a generation atomically, streaming the store into it, then
+     * deletes every older snapshot and log.
+     */
+    public void writeSnapshot(long snapshotGeneration, TrainingStorageInMemory storage) throws IOException {
+        Path snapshot = directory.resolve(fileName(SNAPSHOT_PREFIX, snapshotGeneration, SNAPSHOT_SUFFIX));
+        Path temporary = directory.resolve(snapshot.getFileName() + ".tmp");
+        long[] written = {0};
+        try (FileChannel snapshotChannel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                     java.nio.channels.Channels.newOutputStream(snapshotChannel), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(0);
+            CRC32 crc = new CRC32();
+            try {
+                storage.forEachTraining(training -> {
+                    byte[] payload = encodeSave(training);
+                    crc.reset();
+                    crc.update(payload);
+                    try {
+                        out.writeInt(payload.length);
+                        out.writeInt((int) crc.getValue());
+                        out.write(payload);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    written[0]++;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+            snapshotChannel.force(true);
+        }
+        Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE);
+        for (Path file : listFiles()) {
+            String name = file.getFileName().toString();
+            if ((isLog(name) || isSnapshot(name)) && generationOf(name) < snapshotGeneration) {
+                Files.delete(file);
+            }
+        }
+        log.info("Training snapshot {} written with {} trainings", snapshotGeneration, written[0]);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flusher.shutdownNow();
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            region.force();
+            durable = appended;
+            closed = true;
+            durableAdvanced.signalAll();
+            channel.close();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Training log is closed");
+        }
+    }
+
+    /**
+     * Group commit loop: one force covers every record appended while the previous force ran.
+     */
+    private void groupCommit() {
+        while (true) {
+            appendLock.lock();
+            try {
+                while (durable >= appended && !closed) {
+                    flushRequested.awaitUninterruptibly();
+                }
+                if (closed) {
+                    return;
+                }
+            } finally {
+                appendLock.unlock();
+            }
+            force();
+        }
+    }
+
+    private void force() {
+        MappedByteBuffer target;
+        long covered;
+        appendLock.lock();
+        try {
+            if (closed || durable >= appended) {
+                return;
+            }
+            target = region;
+            covered = appended;
+        } finally {
+            appendLock.unlock();
+        }
+        // outside the lock, writers keep appending while the disk catches up
+        target.force();
+        appendLock.lock();
+        try {
+            durable = Math.max(durable, covered);
+            durableAdvanced.signalAll();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void recover(TrainingStorageInMemory target) throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files = listFiles();
+        long snapshotGeneration = files.stream().map(path -> path.getFileName().toString())
+                .filter(TrainingWriteAheadLog::isSnapshot)
+                .mapToLong(TrainingWriteAheadLog::generationOf)
+                .max().orElse(0);
+        long replayed = 0;
+        if (snapshotGeneration > 0) {
+            replayed += replaySnapshot(directory.resolve(fileName(SNAPSHOT_PREFIX, snapshotGeneration, SNAPSHOT_SUFFIX)), target);
+        }
+        List<Long> logGenerations = files.stream().map(path -> path.getFileName().toString())
+                .filter(TrainingWriteAheadLog::isLog)
+                .map(TrainingWriteAheadLog::generationOf)
+                .filter(logGeneration -> logGeneration >= snapshotGeneration)
+                .sorted()
+                .toList();
+        if (logGenerations.isEmpty()) {
+            openGeneration(Math.max(1, snapshotGeneration), HEADER_SIZE, true);
+        } else {
+            long end = 0;
+            for (long logGeneration : logGenerations) {
+                long[] result = replayLog(directory.resolve(fileName(LOG_PREFIX, logGeneration, LOG_SUFFIX)), target);
+                replayed += result[0];
+                end = result[1];
+            }
+            openGeneration(logGenerations.get(logGenerations.size() - 1), end, false);
+        }
+        log.info("Training log recovered from {}: snapshot {}, {} records replayed", directory, snapshotGeneration, replayed);
+    }
+
+    private long replaySnapshot(Path snapshot, TrainingStorageInMemory target) throws IOException {
+        long records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot), 1 << 16))) {
+            readHeader(in.readInt(), in.readInt());
+            in.readInt();
+            CRC32 crc = new CRC32();
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return records;
+                }
+                int checksum = in.readInt();
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    throw new IOException("Corrupted training snapshot " + snapshot);
+                }
+                apply(ByteBuffer.wrap(payload), target);
+                records++;
+            }
+        }
+    }
+
+    /**
+     * @return the replayed records and the file offset where the valid log ends
+     */
+    private long[] replayLog(Path logFile, TrainingStorageInMemory target) throws IOException {
+        long records = 0;
+        try (FileChannel logChannel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            long fileSize = logChannel.size();
+            if (fileSize < HEADER_SIZE) {
+                return new long[]{0, HEADER_SIZE};
+            }
+            ByteBuffer header = logChannel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            readHeader(header.getInt(), header.getInt());
+            int logRegionSize = header.getInt();
+            if (logRegionSize != regionSize) {
+                throw new IOException("Training log " + logFile + " uses regions of " + logRegionSize
+                        + " bytes, app.inmemory.durability.region-size is " + regionSize);
+            }
+            CRC32 crc = new CRC32();
+            long start = 0;
+            int position = HEADER_SIZE;
+            while (start < fileSize) {
+                ByteBuffer buffer = logChannel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(regionSize, fileSize - start));
+                while (true) {
+                    if (buffer.limit() - position < FRAME_HEADER_SIZE) {
+                        break;
+                    }
+                    int length = buffer.getInt(position);
+                    if (length == SKIP_TO_NEXT_REGION) {
+                        break;
+                    }
+                    if (length <= 0 || length > buffer.limit() - position - FRAME_HEADER_SIZE) {
+                        return new long[]{records, start + position};
+                    }
+                    ByteBuffer payload = buffer.slice(position + FRAME_HEADER_SIZE, length);
+                    crc.reset();
+                    crc.update(payload.duplicate());
+                    if ((int) crc.getValue() != buffer.getInt(position + Integer.BYTES)) {
+                        log.warn("Training log {} has a torn record at offset {}, ignoring the rest", logFile, start + position);
+                        return new long[]{records, start + position};
+                    }
+                    apply(payload, target);
+                    records++;
+                    position += FRAME_HEADER_SIZE + length;
+                }
+                start += regionSize;
+                position = 0;
+            }
+            return new long[]{records, start};
+        }
+    }
+
+    private void openGeneration(long logGeneration, long end, boolean create) throws IOException {
+        Path logFile = directory.resolve(fileName(LOG_PREFIX, logGeneration, LOG_SUFFIX));
+        channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        generation = logGeneration;
+        long start = end / regionSize * regionSize;
+        // drop regions past the end, a crash may have mapped one without writing to it
+        if (!create && channel.size() > start + regionSize) {
+            channel.truncate(start + regionSize);
+        }
+        mapRegion(start, (int) (end - start));
+        if (create) {
+            region.putInt(0, MAGIC);
+            region.putInt(Integer.BYTES, VERSION);
+            region.putInt(2 * Integer.BYTES, regionSize);
+            region.force();
+        } else {
+            // clear a torn tail so it can't be mistaken for records appended after it
+            for (int position = region.position(); position < region.limit(); position++) {
+                region.put(position, (byte) 0);
+            }
+        }
+    }
+
+    private void mapRegion(long start, int position) throws IOException {
+        region = channel.map(FileChannel.MapMode.READ_WRITE, start, regionSize);
+        region.position(position);
+        regionStart = start;
+    }
+
+    private static void apply(ByteBuffer payload, TrainingStorageInMemory target) throws IOException {
+        byte type = payload.get();
+        if (type == SAVE) {
+            Training training = new Training();
+            training.setId(payload.getLong());
+            training.setTrainingDate(LocalDate.ofEpochDay(payload.getLong()));
+            byte flags = payload.get();
+            long trainingTypeId = payload.getLong();
+            long trainingDuration = payload.getLong();
+            training.setTrainingTypeId((flags & HAS_TRAINING_TYPE) != 0 ? trainingTypeId : null);
+            training.setTrainingDuration((flags & HAS_DURATION) != 0 ? trainingDuration : null);
+            training.setTraineeUsername(getString(payload));
+            training.setTrainerUsername(getString(payload));
+            training.setTrainingName(getString(payload));
+            if ((flags & HAS_IDEMPOTENCY_KEY) != 0) {
+                training.setIdempotencyKey(getString(payload));
+            }
+            if (!target.saveReplayed(training)) {
+                log.debug("Replayed training {} skipped, idempotency key {} is held by a later training",
+                        training.getId(), training.getIdempotencyKey());
+            }
+        } else if (type == DELETE_TRAINER) {
+            target.deleteTrainingByTrainerUsername(getString(payload));
+        } else if (type == DELETE_BEFORE) {
+            target.deleteTrainingsBefore(LocalDate.ofEpochDay(payload.getLong()));
+        } else {
+            throw new IOException("Unknown training log record type " + type);
+        }
+    }
+
+    private static int stringSize(String value) {
+        return Integer.BYTES + (value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void readHeader(int magic, int version) throws IOException {
+        if (magic != MAGIC || version != VERSION) {
+            throw new IOException("Not a training log file");
+        }
+    }
+
+    private List<Path> listFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return new ArrayList<>(files.toList());
+        }
+    }
+
+    private static boolean isLog(String name) {
+        return name.startsWith(LOG_PREFIX) && name.endsWith(LOG_SUFFIX);
+    }
+
+    private static boolean isSnapshot(String name) {
+        return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+    }
+
+    private static long generationOf(String name) {
+        String prefix = isLog(name) ? LOG_PREFIX : SNAPSHOT_PREFIX;
+        String suffix = isLog(name) ? LOG_SUFFIX : SNAPSHOT_SUFFIX;
+        return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+    }
+
+    private static String fileName(String prefix, long fileGeneration, String suffix) {
+        return String.format("%s%016d%s", prefix, fileGeneration, suffix);
+    }
+}
@@ -0,0 +1,48 @@
+package com.training_microservice.domain.entities;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * A Training moved out of the hot table by the archive job, kept with its original id and
+ * idempotency key.
+ */
+@Data
+@Entity
+@Table(name = "TrainingArchive", indexes = {
+        @Index(name = "idx_training_archive_trainer", columnList = "trainerUsername"),
+        @Index(name = "idx_training_archive_trainer_date", columnList = "trainerUsername, trainingDate"),
+        @Index(name = "idx_training_archive_trainee_date", columnList = "traineeUsername, trainingDate"),
+        @Index(name = ArchivedTraining.IDEMPOTENCY_KEY_INDEX, columnList = "idempotencyKey", unique = true)
+})
+public class ArchivedTraining implements Serializable {
+    public static final String IDEMPOTENCY_KEY_INDEX = "uk_training_archive_idempotency_key";
+
+    @Id
+    @Column(name = "Id", nullable = false)
+    private Long Id;
+
+    @Column(name = "traineeUsername", nullable = false)
+    private String traineeUsername;
+
+    @Column(name = "trainerUsername", nullable = false)
+    private String trainerUsername;
+
+    @Column(name = "trainingName", nullable = false)
+    private String trainingName;
+
+    @Column(name = "trainingTypeId")
+    private Long trainingTypeId;
+
+    @Column(name = "trainingDate", nullable = false)
+    private LocalDate trainingDate;
+
+    @Column(name = "trainingDuration", nullable = false)
+    private Long trainingDuration;
+
+    @Column(name = "idempotencyKey", length = 64)
+    private String idempotencyKey;
+}
@@ -0,0 +1,38 @@
+package com.training_microservice.domain.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "TraineeMonthlySummary",
+        uniqueConstraints = @UniqueConstraint(name = "uk_trainee_summary_month",
+                columnNames = {"traineeUsername", "summaryYear", "summaryMonth"}))
+public class TraineeMonthlySummary implements Serializable {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "Id", nullable = false)
+    private Long Id;
+
+    @Column(name = "traineeUsername", nullable = false)
+    private String traineeUsername;
+
+    @Column(name = "summaryYear", nullable = false)
+    private Integer summaryYear;
+
+    @Column(name = "summaryMonth", nullable = false)
+    private Integer summaryMonth;
+
+    @Column(name = "totalDuration", nullable = false)
+    private Long totalDuration;
+
+    // lets a month be dropped once its last training is deleted
+    @Column(name = "trainingCount", nullable = false)
+    private Long trainingCount;
+}
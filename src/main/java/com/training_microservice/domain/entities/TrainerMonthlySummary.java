@@ -0,0 +1,34 @@
+package com.training_microservice.domain.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "TrainerMonthlySummary",
+        uniqueConstraints = @UniqueConstraint(name = "uk_trainer_summary_month",
+                columnNames = {"trainerUsername", "summaryYear", "summaryMonth"}))
+public class TrainerMonthlySummary implements Serializable {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "Id", nullable = false)
+    private Long Id;
+
+    @Column(name = "trainerUsername", nullable = false)
+    private String trainerUsername;
+
+    @Column(name = "summaryYear", nullable = false)
+    private Integer summaryYear;
+
+    @Column(name = "summaryMonth", nullable = false)
+    private Integer summaryMonth;
+
+    @Column(name = "totalDuration", nullable = false)
+    private Long totalDuration;
+}
@@ -0,0 +1,22 @@
+package com.training_microservice.domain.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "TrainerSummaryVersion")
+public class TrainerSummaryVersion implements Serializable {
+    @Id
+    @Column(name = "trainerUsername", nullable = false)
+    private String trainerUsername;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+}
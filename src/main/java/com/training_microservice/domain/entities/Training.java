@@ -1,17 +1,29 @@
 package com.training_microservice.domain.entities;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import javax.persistence.*;
 import java.io.Serializable;
 import java.time.LocalDate;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 @Entity
-@Table(name = "Training")
+@Table(name = "Training", indexes = {
+        @Index(name = "idx_training_trainer_date", columnList = "trainerUsername, trainingDate"),
+        @Index(name = "idx_training_trainee_date", columnList = "traineeUsername, trainingDate"),
+        @Index(name = "idx_training_trainer_type_date", columnList = "trainerUsername, trainingTypeId, trainingDate"),
+        @Index(name = Training.IDEMPOTENCY_KEY_CONSTRAINT, columnList = "idempotencyKey", unique = true)
+})
 public class Training implements Serializable {
+    public static final String IDEMPOTENCY_KEY_CONSTRAINT = "uk_training_idempotency_key";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "training_seq")
+    @SequenceGenerator(name = "training_seq", sequenceName = "training_seq", allocationSize = 50)
     @Column(name = "Id", nullable = false)
     private Long Id;
 
@@ -32,4 +44,7 @@ public class Training implements Serializable {
 
     @Column(name = "trainingDuration", nullable = false)
     private Long trainingDuration;
+
+    @Column(name = "idempotencyKey", length = 64)
+    private String idempotencyKey;
 }
@@ -0,0 +1,46 @@
+package com.training_microservice.domain.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * Duration and count of the archived trainings of one trainer, trainee, type and month.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "TrainingArchiveMonth", indexes = {
+        @Index(name = "idx_training_archive_month_trainer", columnList = "trainerUsername")
+})
+public class TrainingArchiveMonth implements Serializable {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "Id", nullable = false)
+    private Long Id;
+
+    @Column(name = "trainerUsername", nullable = false)
+    private String trainerUsername;
+
+    @Column(name = "traineeUsername", nullable = false)
+    private String traineeUsername;
+
+    @Column(name = "trainingTypeId")
+    private Long trainingTypeId;
+
+    @Column(name = "summaryYear", nullable = false)
+    private Integer summaryYear;
+
+    @Column(name = "summaryMonth", nullable = false)
+    private Integer summaryMonth;
+
+    @Column(name = "totalDuration", nullable = false)
+    private Long totalDuration;
+
+    @Column(name = "trainingCount", nullable = false)
+    private Long trainingCount;
+}
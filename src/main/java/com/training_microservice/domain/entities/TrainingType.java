@@ -0,0 +1,24 @@
+package com.training_microservice.domain.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "TrainingType",
+        uniqueConstraints = @UniqueConstraint(name = "uk_training_type_name", columnNames = "name"))
+public class TrainingType implements Serializable {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "Id", nullable = false)
+    private Long Id;
+
+    @Column(name = "name", nullable = false, length = 100)
+    private String name;
+}
@@ -0,0 +1,149 @@
+package com.training_microservice.domain.records;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.time.Month;
+import java.util.Arrays;
+
+/**
+ * Training durations by year and month, stored as one long[12] per year with the years
+ * kept sorted. A month without trainings holds ABSENT. Built once by the service and not
+ * modified after it is cached or returned.
+ * <p>
+ * Serialized as {"2024":{"JANUARY":60,...},...}, the shape of the summary endpoint, or
+ * with CompactSerializer as {"2024":[60,0,...],...} with one number per month.
+ */
+@JsonSerialize(using = MonthlyDurations.ObjectSerializer.class)
+public final class MonthlyDurations implements Serializable {
+
+    private static final long ABSENT = Long.MIN_VALUE;
+    private static final SerializableString[] MONTH_NAMES = Arrays.stream(Month.values())
+            .map(month -> new SerializedString(month.name()))
+            .toArray(SerializableString[]::new);
+
+    private int[] years = new int[2];
+    private long[][] durations = new long[2][];
+    private int size;
+
+    /**
+     * Adds the duration to the month, opening the month on its first duration.
+     */
+    public void add(int year, int month, long duration) {
+        long[] months = monthsOf(year);
+        months[month - 1] = months[month - 1] == ABSENT ? duration : months[month - 1] + duration;
+    }
+
+    /**
+     * @return the duration of the month, null when the month has no trainings
+     */
+    public Long get(int year, int month) {
+        int index = Arrays.binarySearch(years, 0, size, year);
+        if (index < 0 || durations[index][month - 1] == ABSENT) {
+            return null;
+        }
+        return durations[index][month - 1];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private long[] monthsOf(int year) {
+        int index = Arrays.binarySearch(years, 0, size, year);
+        if (index >= 0) {
+            return durations[index];
+        }
+        int insertAt = -index - 1;
+        if (size == years.length) {
+            years = Arrays.copyOf(years, size * 2);
+            durations = Arrays.copyOf(durations, size * 2);
+        }
+        System.arraycopy(years, insertAt, years, insertAt + 1, size - insertAt);
+        System.arraycopy(durations, insertAt, durations, insertAt + 1, size - insertAt);
+        long[] months = new long[12];
+        Arrays.fill(months, ABSENT);
+        years[insertAt] = year;
+        durations[insertAt] = months;
+        size++;
+        return months;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof MonthlyDurations that) || size != that.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (years[i] != that.years[i] || !Arrays.equals(durations[i], that.durations[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + years[i];
+            hash = 31 * hash + Arrays.hashCode(durations[i]);
+        }
+        return hash;
+    }
+
+    public static class ObjectSerializer extends StdSerializer<MonthlyDurations> {
+
+        public ObjectSerializer() {
+            super(MonthlyDurations.class);
+        }
+
+        @Override
+        public void serialize(MonthlyDurations value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < value.size; i++) {
+                generator.writeFieldName(Integer.toString(value.years[i]));
+                generator.writeStartObject();
+                long[] months = value.durations[i];
+                for (int month = 0; month < 12; month++) {
+                    if (months[month] != ABSENT) {
+                        generator.writeFieldName(MONTH_NAMES[month]);
+                        generator.writeNumber(months[month]);
+                    }
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * One array of 12 numbers per year, January first, 0 for months without trainings.
+     */
+    public static class CompactSerializer extends StdSerializer<MonthlyDurations> {
+
+        public CompactSerializer() {
+            super(MonthlyDurations.class);
+        }
+
+        @Override
+        public void serialize(MonthlyDurations value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < value.size; i++) {
+                generator.writeFieldName(Integer.toString(value.years[i]));
+                generator.writeStartArray();
+                for (long duration : value.durations[i]) {
+                    generator.writeNumber(duration == ABSENT ? 0 : duration);
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        }
+    }
+}
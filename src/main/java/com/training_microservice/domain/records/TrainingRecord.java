@@ -1,14 +1,21 @@
 package com.training_microservice.domain.records;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.training_microservice.domain.validation.KnownTrainingType;
+import org.springframework.format.annotation.DateTimeFormat;
+
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 
 public class TrainingRecord {
 
     public record TrainingFilterRequest(
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
         LocalDate periodFrom,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
         LocalDate periodTo,
         String user_name,
         String training_type
@@ -25,11 +32,20 @@ public class TrainingRecord {
     public record TrainerTrainingResponse(
             String trainingName,
             LocalDate trainingDate,
-            Long traineeUsername,
+            String traineeUsername,
             Long trainingDuration
     ){
     }
 
+    /**
+     * One keyset page ordered by (trainingDate, Id), nextCursor is null on the last page.
+     */
+    public record TrainingPage<T>(
+            List<T> trainings,
+            String nextCursor
+    ){
+    }
+
     public record TrainingRequest(
             @NotBlank(message = "Trainee username can't be null or empty")
             String traineeUsername,
@@ -40,11 +56,128 @@ public class TrainingRecord {
             @NotNull(message = "Training Date can't be null or empty")
             LocalDate trainingDate,
             @NotNull(message = "Training Duration can't be null or empty")
-            Long trainingDuration
+            Long trainingDuration,
+            @KnownTrainingType
+            String trainingType
             ){}
 
+    public record TrainingBatchItemResult(
+            int index,
+            String status,
+            Long trainingId,
+            String message
+    ){
+    }
+
+    /**
+     * rejected counts the items refused for their content, duplicates those already saved
+     * under the same natural key, failed those that could not be saved and may succeed
+     * when sent again.
+     */
+    public record TrainingBatchResponse(
+            int saved,
+            int rejected,
+            int duplicates,
+            int failed,
+            List<TrainingBatchItemResult> items
+    ){
+    }
+
+    public record TrainingAcceptedResponse(
+            String trackingId
+    ){
+    }
+
+    public record TrainingIngestionStatus(
+            String trackingId,
+            String status,
+            Long trainingId
+    ){
+    }
+
+    public record TrainingDeleteResponse(
+            String trainerUsername,
+            int deletedTrainings
+    ){
+    }
+
+    public record TrainerMonthlyDuration(
+            String trainerUsername,
+            Integer year,
+            Integer month,
+            Long totalDuration
+    ){
+    }
+
+    public record TraineeMonthlyDuration(
+            String traineeUsername,
+            Integer year,
+            Integer month,
+            Long totalDuration,
+            Long trainingCount
+    ){
+    }
+
+    public record TraineeTrainingSummary (
+            MonthlyDurations summary
+    ){
+    }
+
+    public record TrainingMonthlyAggregate(
+            String trainerUsername,
+            String traineeUsername,
+            Long trainingTypeId,
+            Integer year,
+            Integer month,
+            Long totalDuration,
+            Long trainingCount
+    ){
+    }
+
+    public record TrainerMonthlyTypeDuration(
+            String trainerUsername,
+            Integer year,
+            Integer month,
+            Long trainingTypeId,
+            Long totalDuration
+    ){
+    }
+
+    /**
+     * The trainer summary broken down by training type name, trainings without a type
+     * are reported under UNTYPED. typeTotals sums every month of each type.
+     */
+    public record TrainerTrainingTypeSummary (
+            MonthlyDurations summary,
+            Map<String, MonthlyDurations> byType,
+            Map<String, Long> typeTotals
+    ){
+        public static final String UNTYPED = "UNTYPED";
+    }
+
     public record TrainerTrainingSummary (
-            Map<Integer, Map<String, Long>> summary
+            MonthlyDurations summary
+    ){
+    }
+
+    /**
+     * A cached trainer summary with the summary version read before it, null while the
+     * trainer has no version yet. The entry is only served while the version is current.
+     */
+    public record VersionedTrainerTrainingSummary (
+            Long version,
+            TrainerTrainingSummary summary
+    ){
+    }
+
+    /**
+     * The same summary with one array of 12 monthly durations per year, served to
+     * internal callers that send Accept: application/vnd.training.summary-compact+json.
+     */
+    public record CompactTrainerTrainingSummary (
+            @JsonSerialize(using = MonthlyDurations.CompactSerializer.class)
+            MonthlyDurations summary
     ){
+        public static final String MEDIA_TYPE = "application/vnd.training.summary-compact+json";
     }
 }
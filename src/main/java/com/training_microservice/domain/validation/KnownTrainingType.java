@@ -0,0 +1,20 @@
+package com.training_microservice.domain.validation;
+
+import javax.validation.Constraint;
+import javax.validation.Payload;
+import java.lang.annotation.*;
+
+/**
+ * The value is null or the name of a training type of TrainingTypeCache.
+ */
+@Documented
+@Constraint(validatedBy = KnownTrainingTypeValidator.class)
+@Target({ElementType.FIELD, ElementType.PARAMETER, ElementType.RECORD_COMPONENT})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface KnownTrainingType {
+    String message() default "Training Type is unknown";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
@@ -0,0 +1,21 @@
+package com.training_microservice.domain.validation;
+
+import com.training_microservice.service.TrainingTypeCache;
+import lombok.AllArgsConstructor;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+
+/**
+ * Created by Spring's validator factory, which injects the cache.
+ */
+@AllArgsConstructor
+public class KnownTrainingTypeValidator implements ConstraintValidator<KnownTrainingType, String> {
+
+    private TrainingTypeCache trainingTypeCache;
+
+    @Override
+    public boolean isValid(String value, ConstraintValidatorContext context) {
+        return value == null || value.isBlank() || trainingTypeCache.findId(value) != null;
+    }
+}
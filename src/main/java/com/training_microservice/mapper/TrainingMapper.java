@@ -2,10 +2,15 @@ package com.training_microservice.mapper;
 
 import com.training_microservice.domain.entities.Training;
 import com.training_microservice.domain.records.TrainingRecord;
+import com.training_microservice.service.TrainingTypeCache;
+import org.mapstruct.InjectionStrategy;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", uses = TrainingTypeCache.class, injectionStrategy = InjectionStrategy.CONSTRUCTOR)
 public interface TrainingMapper {
+    @Mapping(target = "trainingTypeId", source = "trainingType", qualifiedByName = "trainingTypeId")
+    @Mapping(target = "idempotencyKey", ignore = true)
     Training trainingRequestToTraining(TrainingRecord.TrainingRequest trainingRequest);
     TrainingRecord.TraineeTrainingResponse trainingToTraineeTrainingResponse(Training training);
     TrainingRecord.TrainerTrainingResponse trainingToTrainerTrainingResponse(Training training);
@@ -0,0 +1,53 @@
+package com.training_microservice.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Keeps summary rebuilds and archive runs apart from the writes that change trainings and
+ * summaries. Writes share the gate and a rebuild or an archive run takes it exclusively,
+ * so the rebuild reads the trainings and the stored summaries at one point in time and
+ * the corrections it applies add up with the writes that follow, and the archive copies
+ * and deletes the same trainings it aggregated. Inside a transaction the gate is held
+ * until the transaction completes, so a write can't commit between the exclusive
+ * holder's reads.
+ * <p>
+ * The gate is per instance; instances sharing a database rely on the rebuild running on
+ * one of them.
+ */
+@Component
+public class SummaryWriteGate {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public <T> T write(Supplier<T> work) {
+        return hold(lock.readLock(), work);
+    }
+
+    public <T> T exclusive(Supplier<T> work) {
+        return hold(lock.writeLock(), work);
+    }
+
+    private static <T> T hold(Lock gate, Supplier<T> work) {
+        gate.lock();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                return work.get();
+            } finally {
+                gate.unlock();
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                gate.unlock();
+            }
+        });
+        return work.get();
+    }
+}
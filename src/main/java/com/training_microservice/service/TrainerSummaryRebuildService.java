@@ -0,0 +1,175 @@
+package com.training_microservice.service;
+
+import com.training_microservice.dao.TraineeSummaryRepo;
+import com.training_microservice.dao.TrainerSummaryRepo;
+import com.training_microservice.dao.TrainingArchiveRepo;
+import com.training_microservice.dao.TrainingRepo;
+import com.training_microservice.domain.entities.TraineeMonthlySummary;
+import com.training_microservice.domain.entities.TrainerMonthlySummary;
+import com.training_microservice.domain.records.TrainingRecord;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+@Slf4j
+@Service
+@AllArgsConstructor
+public class TrainerSummaryRebuildService {
+
+    private TrainingRepo trainingRepository;
+    private TrainingArchiveRepo trainingArchiveRepository;
+    private TrainerSummaryRepo trainerSummaryRepository;
+    private TraineeSummaryRepo traineeSummaryRepository;
+    private Cache trainerSummaryCache;
+    private SummaryWriteGate summaryWriteGate;
+
+    /**
+     * Recomputes the trainer monthly aggregates from the raw Training rows and the
+     * archived months, and corrects the stored rows that drifted in place: a wrong month
+     * gets the difference added, a missing one is opened and a surplus one removed. Writes
+     * wait at the SummaryWriteGate meanwhile, so none is lost or counted twice.
+     * @return number of trainer/year/month rows that did not match the raw data
+     */
+    @Scheduled(cron = "${app.summary.rebuild.cron:-}")
+    @Transactional
+    public int rebuildTrainerSummaries() {
+        return summaryWriteGate.exclusive(() -> {
+            Map<SummaryKey, Long> expected = new HashMap<>();
+            List<TrainingRecord.TrainerMonthlyDuration> monthlyDurations =
+                    new ArrayList<>(trainingRepository.findMonthlyDurations());
+            monthlyDurations.addAll(trainingArchiveRepository.findMonthlyDurations());
+            for (TrainingRecord.TrainerMonthlyDuration monthlyDuration : monthlyDurations) {
+                SummaryKey key = new SummaryKey(monthlyDuration.trainerUsername(),
+                        monthlyDuration.year(), monthlyDuration.month());
+                expected.merge(key, monthlyDuration.totalDuration(), Long::sum);
+            }
+
+            Map<SummaryKey, Long> stored = new HashMap<>();
+            for (TrainerMonthlySummary summary : trainerSummaryRepository.findAll()) {
+                SummaryKey key = new SummaryKey(summary.getTrainerUsername(),
+                        summary.getSummaryYear(), summary.getSummaryMonth());
+                stored.put(key, summary.getTotalDuration());
+            }
+
+            int drift = countDrift(expected, stored);
+            if (drift == 0) {
+                log.info("Trainer summaries verified, {} monthly rows in sync", stored.size());
+                return 0;
+            }
+
+            log.warn("Trainer summaries drifted on {} monthly rows, correcting them", drift);
+            Set<String> driftedTrainers = new HashSet<>();
+            expected.forEach((key, duration) -> {
+                Long storedDuration = stored.get(key);
+                if (!duration.equals(storedDuration)) {
+                    trainerSummaryRepository.upsertTrainingDuration(key.username(), key.year(), key.month(),
+                            duration - Objects.requireNonNullElse(storedDuration, 0L));
+                    driftedTrainers.add(key.username());
+                }
+            });
+            for (SummaryKey key : stored.keySet()) {
+                if (!expected.containsKey(key)) {
+                    trainerSummaryRepository.deleteSummaryMonth(key.username(), key.year(), key.month());
+                    driftedTrainers.add(key.username());
+                }
+            }
+            // the repaired summaries must not be served as 304 against their old ETags or from the cache
+            driftedTrainers.forEach(trainerSummaryRepository::bumpSummaryVersion);
+            driftedTrainers.forEach(trainerSummaryCache::evict);
+            return drift;
+        });
+    }
+
+    /**
+     * Recomputes the trainee monthly aggregates from the raw Training rows and the
+     * archived months, and corrects the rows whose duration or count drifted in place,
+     * like rebuildTrainerSummaries.
+     * @return number of trainee/year/month rows that did not match the raw data
+     */
+    @Scheduled(cron = "${app.summary.rebuild.cron:-}")
+    @Transactional
+    public int rebuildTraineeSummaries() {
+        return summaryWriteGate.exclusive(() -> {
+            Map<SummaryKey, MonthTotals> expected = new HashMap<>();
+            List<TrainingRecord.TraineeMonthlyDuration> monthlyDurations =
+                    new ArrayList<>(trainingRepository.findTraineeMonthlyDurations());
+            monthlyDurations.addAll(trainingArchiveRepository.findTraineeMonthlyDurations());
+            for (TrainingRecord.TraineeMonthlyDuration monthlyDuration : monthlyDurations) {
+                SummaryKey key = new SummaryKey(monthlyDuration.traineeUsername(),
+                        monthlyDuration.year(), monthlyDuration.month());
+                expected.merge(key, new MonthTotals(Objects.requireNonNullElse(monthlyDuration.totalDuration(), 0L),
+                        monthlyDuration.trainingCount()), MonthTotals::plus);
+            }
+
+            Map<SummaryKey, MonthTotals> stored = new HashMap<>();
+            for (TraineeMonthlySummary summary : traineeSummaryRepository.findAll()) {
+                SummaryKey key = new SummaryKey(summary.getTraineeUsername(),
+                        summary.getSummaryYear(), summary.getSummaryMonth());
+                stored.put(key, new MonthTotals(summary.getTotalDuration(), summary.getTrainingCount()));
+            }
+
+            int drift = countDrift(expected, stored);
+            if (drift == 0) {
+                log.info("Trainee summaries verified, {} monthly rows in sync", stored.size());
+                return 0;
+            }
+
+            log.warn("Trainee summaries drifted on {} monthly rows, correcting them", drift);
+            expected.forEach((key, totals) -> {
+                MonthTotals storedTotals = stored.get(key);
+                if (!totals.equals(storedTotals)) {
+                    MonthTotals difference = storedTotals == null ? totals : totals.minus(storedTotals);
+                    traineeSummaryRepository.upsertTrainings(key.username(), key.year(), key.month(),
+                            difference.duration(), difference.count());
+                }
+            });
+            stored.forEach((key, totals) -> {
+                if (!expected.containsKey(key)) {
+                    traineeSummaryRepository.addTrainings(key.username(), key.year(), key.month(),
+                            -totals.duration(), -totals.count());
+                    traineeSummaryRepository.deleteEmptySummary(key.username(), key.year(), key.month());
+                }
+            });
+            return drift;
+        });
+    }
+
+    private static <V> int countDrift(Map<SummaryKey, V> expected, Map<SummaryKey, V> stored) {
+        int drift = 0;
+        for (Map.Entry<SummaryKey, V> entry : expected.entrySet()) {
+            if (!Objects.equals(entry.getValue(), stored.get(entry.getKey()))) {
+                drift++;
+            }
+        }
+        for (SummaryKey key : stored.keySet()) {
+            if (!expected.containsKey(key)) {
+                drift++;
+            }
+        }
+        return drift;
+    }
+
+    private record SummaryKey(String username, int year, int month) {
+    }
+
+    private record MonthTotals(long duration, long count) {
+        MonthTotals plus(MonthTotals other) {
+            return new MonthTotals(duration + other.duration, count + other.count);
+        }
+
+        MonthTotals minus(MonthTotals other) {
+            return new MonthTotals(duration - other.duration, count - other.count);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.training_microservice.service;
+
+import com.training_microservice.config.ArchiveProperties;
+import com.training_microservice.dao.TrainingArchiveRepo;
+import com.training_microservice.dao.TrainingRepo;
+import com.training_microservice.domain.entities.TrainingArchiveMonth;
+import com.training_microservice.domain.records.TrainingRecord;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Moves the trainings of closed months out of the hot store: their monthly aggregates and
+ * raw rows go to the TrainingArchiveRepo, then they are deleted. The trainer and trainee
+ * summaries are left as they are, they already cover the archived months.
+ * <p>
+ * A run holds the SummaryWriteGate exclusively, so no training is saved between the
+ * aggregation, the copy and the delete. Counts that still disagree, a write from another
+ * instance on the same database, fail the run and roll it back.
+ * <p>
+ * Not available with the durable in-memory store: its trainings are logged, but the
+ * in-memory archive they would move to is not and would be lost on restart.
+ */
+@Slf4j
+@Service
+@AllArgsConstructor
+@ConditionalOnExpression("!('${app.repository:}' == 'in-memory' and ${app.inmemory.durability.enabled:false})")
+public class TrainingArchiveService {
+
+    private TrainingRepo trainingRepository;
+    private TrainingArchiveRepo trainingArchiveRepository;
+    private ArchiveProperties archiveProperties;
+    private SummaryWriteGate summaryWriteGate;
+
+    /**
+     * Archives what is older than the hot window, which starts on the first day of the
+     * month hot-months - 1 months back. The current month is never archived.
+     * @return number of trainings archived
+     */
+    @Scheduled(cron = "${app.archive.cron:-}")
+    @Transactional
+    public int archiveClosedMonths() {
+        int hotMonths = Math.max(1, archiveProperties.getHotMonths());
+        return archiveTrainingsBefore(LocalDate.now().withDayOfMonth(1).minusMonths(hotMonths - 1));
+    }
+
+    /**
+     * @return number of trainings dated before the given day archived
+     */
+    @Transactional
+    public int archiveTrainingsBefore(LocalDate before) {
+        return summaryWriteGate.exclusive(() -> {
+            List<TrainingRecord.TrainingMonthlyAggregate> aggregates = trainingRepository.findMonthlyAggregatesBefore(before);
+            if (aggregates.isEmpty()) {
+                log.info("No trainings to archive before {}", before);
+                return 0;
+            }
+            long expected = aggregates.stream().mapToLong(TrainingRecord.TrainingMonthlyAggregate::trainingCount).sum();
+            int copied = trainingArchiveRepository.archiveTrainingsBefore(before);
+            if (copied != expected) {
+                throw new IllegalStateException("Archived " + copied + " trainings before " + before
+                        + " but aggregated " + expected);
+            }
+            int deleted = trainingRepository.deleteTrainingsBefore(before);
+            if (deleted != copied) {
+                throw new IllegalStateException("Deleted " + deleted + " trainings before " + before
+                        + " but archived " + copied);
+            }
+            for (TrainingRecord.TrainingMonthlyAggregate aggregate : aggregates) {
+                trainingArchiveRepository.save(new TrainingArchiveMonth(null, aggregate.trainerUsername(),
+                        aggregate.traineeUsername(), aggregate.trainingTypeId(), aggregate.year(), aggregate.month(),
+                        Objects.requireNonNullElse(aggregate.totalDuration(), 0L), aggregate.trainingCount()));
+            }
+            log.info("Archived {} trainings before {} into {} monthly rows", deleted, before, aggregates.size());
+            return deleted;
+        });
+    }
+}
@@ -0,0 +1,203 @@
+package com.training_microservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.training_microservice.config.IngestionProperties;
+import com.training_microservice.domain.entities.Training;
+import com.training_microservice.domain.records.TrainingRecord;
+import com.training_microservice.mapper.TrainingMapper;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@AllArgsConstructor
+public class TrainingBatchService {
+
+    static final String SAVED = "SAVED";
+    static final String REJECTED = "REJECTED";
+    static final String FAILED = "FAILED";
+    static final String DUPLICATE = "DUPLICATE";
+    static final String SAVE_FAILED_REASON = "Training could not be saved";
+    static final String DUPLICATE_REASON = "Training was already saved";
+
+    private TrainingService trainingService;
+    private TrainingMapper trainingMapper;
+    private Validator validator;
+    private ObjectMapper objectMapper;
+    private IngestionProperties ingestionProperties;
+
+    public ResponseEntity<TrainingRecord.TrainingBatchResponse> saveTrainings(List<TrainingRecord.TrainingRequest> trainingRequests) {
+        if (trainingRequests == null || trainingRequests.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        BatchWriter batchWriter = new BatchWriter();
+        trainingRequests.forEach(batchWriter::add);
+        return ResponseEntity.ok(batchWriter.finish());
+    }
+
+    /**
+     * Reads one TrainingRequest per line and persists them chunk by chunk while the
+     * body is still being read, a malformed line only rejects its own item.
+     */
+    public ResponseEntity<TrainingRecord.TrainingBatchResponse> saveTrainings(InputStream ndjson) throws IOException {
+        BatchWriter batchWriter = new BatchWriter();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                addLine(batchWriter, line);
+            }
+        }
+        if (batchWriter.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(batchWriter.finish());
+    }
+
+    /**
+     * Reactive variant of the NDJSON ingestion, lines are pulled one at a time and a full
+     * chunk is persisted before the next line is requested, so a fast producer can't
+     * buffer more than one chunk in the service. The lines are handled on boundedElastic,
+     * a chunk's saves take too long to run on the event loop that reads the body.
+     */
+    public Mono<ResponseEntity<TrainingRecord.TrainingBatchResponse>> saveTrainings(Flux<String> ndjsonLines) {
+        return Mono.defer(() -> {
+            BatchWriter batchWriter = new BatchWriter();
+            return ndjsonLines
+                    .publishOn(Schedulers.boundedElastic(), 1)
+                    .doOnNext(line -> addLine(batchWriter, line))
+                    .then(Mono.fromCallable(() -> batchWriter.isEmpty()
+                            ? ResponseEntity.badRequest().<TrainingRecord.TrainingBatchResponse>build()
+                            : ResponseEntity.ok(batchWriter.finish())));
+        });
+    }
+
+    private void addLine(BatchWriter batchWriter, String line) {
+        if (line.isBlank()) {
+            return;
+        }
+        try {
+            batchWriter.add(objectMapper.readValue(line, TrainingRecord.TrainingRequest.class));
+        } catch (JsonProcessingException e) {
+            batchWriter.reject("Malformed training: " + e.getOriginalMessage());
+        }
+    }
+
+    private class BatchWriter {
+        private final List<TrainingRecord.TrainingBatchItemResult> results = new ArrayList<>();
+        private final List<Training> chunk = new ArrayList<>();
+        private final List<Integer> chunkIndexes = new ArrayList<>();
+        private int saved;
+        private int rejected;
+        private int failed;
+        private int duplicates;
+
+        void add(TrainingRecord.TrainingRequest trainingRequest) {
+            if (trainingRequest == null) {
+                reject("Training can't be null");
+                return;
+            }
+            Set<ConstraintViolation<TrainingRecord.TrainingRequest>> violations = validator.validate(trainingRequest);
+            if (!violations.isEmpty()) {
+                reject(violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+            chunkIndexes.add(results.size());
+            results.add(null);
+            Training training = trainingMapper.trainingRequestToTraining(trainingRequest);
+            // the natural key POST /training uses, so a replayed batch saves nothing twice
+            training.setIdempotencyKey(TrainingIdempotencyService.keyOf(trainingRequest, null));
+            chunk.add(training);
+            if (chunk.size() >= ingestionProperties.getBatch().getChunkSize()) {
+                flush();
+            }
+        }
+
+        void reject(String message) {
+            results.add(new TrainingRecord.TrainingBatchItemResult(results.size(), REJECTED, null, message));
+            rejected++;
+        }
+
+        boolean isEmpty() {
+            return results.isEmpty();
+        }
+
+        TrainingRecord.TrainingBatchResponse finish() {
+            flush();
+            return new TrainingRecord.TrainingBatchResponse(saved, rejected, duplicates, failed, results);
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                List<Training> savedTrainings = trainingService.saveTrainings(chunk);
+                for (int i = 0; i < savedTrainings.size(); i++) {
+                    saved(chunkIndexes.get(i), savedTrainings.get(i));
+                }
+            } catch (Exception e) {
+                // a duplicate or a bad item failed the chunk, retry one by one to keep the others
+                log.error("Error, saving Training chunk of {} items, retrying each", chunk.size(), e);
+                for (int i = 0; i < chunk.size(); i++) {
+                    retry(chunkIndexes.get(i), chunk.get(i));
+                }
+            }
+            chunk.clear();
+            chunkIndexes.clear();
+        }
+
+        private void retry(int index, Training training) {
+            // the in-memory store keeps what the chunk saved before failing, a transaction doesn't
+            if (trainingService.isSaved(training)) {
+                saved(index, training);
+                return;
+            }
+            training.setId(null);
+            try {
+                saved(index, trainingService.saveTrainings(List.of(training)).get(0));
+            } catch (DataIntegrityViolationException e) {
+                if (!TrainingIdempotencyService.isIdempotencyKeyViolation(e)) {
+                    failed(index, e);
+                    return;
+                }
+                results.set(index, new TrainingRecord.TrainingBatchItemResult(index, DUPLICATE, null, DUPLICATE_REASON));
+                duplicates++;
+            } catch (Exception itemException) {
+                failed(index, itemException);
+            }
+        }
+
+        private void saved(int index, Training savedTraining) {
+            results.set(index, new TrainingRecord.TrainingBatchItemResult(index, SAVED, savedTraining.getId(), null));
+            saved++;
+        }
+
+        private void failed(int index, Exception e) {
+            log.error("Error, saving Training batch item {}", index, e);
+            results.set(index, new TrainingRecord.TrainingBatchItemResult(index, FAILED, null, SAVE_FAILED_REASON));
+            failed++;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.training_microservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.training_microservice.config.IngestionProperties;
+import com.training_microservice.domain.entities.Training;
+import com.training_microservice.domain.records.TrainingRecord;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.function.BiFunction;
+
+/**
+ * Makes POST /training safe to retry. Every training saved through it carries an
+ * idempotency key, the Idempotency-Key header or else a hash of its natural key
+ * (trainer, trainee, date, name), stored in the unique idempotency_key column.
+ * <p>
+ * Keys of recent saves are kept in a bounded Caffeine cache, so a retry
+ * shortly after the original request is answered without a database round-trip. A
+ * duplicate the cache no longer remembers is caught by the unique index. Both are
+ * answered 200 with Idempotent-Replayed: true and save nothing. Any other integrity
+ * violation, a NOT NULL column or a summary row, is a failed save and is rethrown.
+ * <p>
+ * A key is remembered once its training is known to be saved: on a 200, or, for a
+ * request answered 202 by the write-behind queue, when the writer reports it saved. A
+ * queued write that later fails leaves the key free for the retry.
+ */
+@Slf4j
+@Service
+public class TrainingIdempotencyService {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final int MAX_KEY_LENGTH = 64;
+    private static final String NATURAL_KEY_PREFIX = "natural:";
+
+    private final Cache<String, Boolean> recentKeys;
+    private final MeterRegistry meterRegistry;
+
+    public TrainingIdempotencyService(IngestionProperties ingestionProperties, MeterRegistry meterRegistry) {
+        IngestionProperties.Idempotency properties = ingestionProperties.getIdempotency();
+        this.recentKeys = Caffeine.newBuilder()
+                .maximumSize(properties.getRecentKeys())
+                .expireAfterWrite(properties.getKeyRetention())
+                .build();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Saves the training through save unless its key was already used.
+     * @param idempotencyKey the header value, null to use the natural key
+     * @param save saves the request with the resolved key
+     * @throws IllegalArgumentException when the header value is blank or too long
+     */
+    public ResponseEntity saveTraining(TrainingRecord.TrainingRequest trainingRequest, String idempotencyKey,
+                                       BiFunction<TrainingRecord.TrainingRequest, String, ResponseEntity> save) {
+        String key = keyOf(trainingRequest, idempotencyKey);
+        if (recentKeys.getIfPresent(key) != null) {
+            return replayed(key, "filter");
+        }
+        try {
+            ResponseEntity response = save.apply(trainingRequest, key);
+            if (response.getStatusCode() == HttpStatus.OK) {
+                recentKeys.put(key, Boolean.TRUE);
+            }
+            return response;
+        } catch (DataIntegrityViolationException e) {
+            if (!isIdempotencyKeyViolation(e)) {
+                throw e;
+            }
+            recentKeys.put(key, Boolean.TRUE);
+            return replayed(key, "index");
+        }
+    }
+
+    /**
+     * Remembers the key of a training saved after its request was answered.
+     */
+    public void rememberSaved(String key) {
+        if (key != null) {
+            recentKeys.put(key, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Whether the violation is the unique idempotency key, named by the database message
+     * or the in-memory store, rather than any other constraint.
+     */
+    static boolean isIdempotencyKeyViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            String constraintName = cause instanceof ConstraintViolationException violation
+                    ? violation.getConstraintName() : cause.getMessage();
+            if (constraintName != null && constraintName.toLowerCase(Locale.ROOT).contains(Training.IDEMPOTENCY_KEY_CONSTRAINT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String keyOf(TrainingRecord.TrainingRequest trainingRequest, String idempotencyKey) {
+        if (idempotencyKey != null) {
+            String key = idempotencyKey.trim();
+            if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+                throw new IllegalArgumentException(IDEMPOTENCY_KEY_HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+            }
+            return key;
+        }
+        String naturalKey = trainingRequest.trainerUsername() + '\0' + trainingRequest.traineeUsername() + '\0'
+                + trainingRequest.trainingDate() + '\0' + trainingRequest.trainingName();
+        return NATURAL_KEY_PREFIX + UUID.nameUUIDFromBytes(naturalKey.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ResponseEntity replayed(String key, String detectedBy) {
+        log.info("Duplicate training request {} detected by the {}", key, detectedBy);
+        meterRegistry.counter("training.ingestion.duplicates", "detected_by", detectedBy).increment();
+        return ResponseEntity.ok().header(REPLAYED_HEADER, "true").build();
+    }
+}
@@ -0,0 +1,299 @@
+package com.training_microservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.training_microservice.dao.TrainingArchiveRepo;
+import com.training_microservice.dao.TrainingRepo;
+import com.training_microservice.domain.entities.Training;
+import com.training_microservice.domain.records.TrainingRecord;
+import com.training_microservice.mapper.TrainingMapper;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Filtered training listings. Pages are keyset based on (trainingDate, Id), so a page
+ * costs the same no matter how deep the client has scrolled, and the export variant
+ * writes rows as NDJSON while the database cursor is still open.
+ * <p>
+ * Archived trainings keep their ids and are listed with the hot ones: a page merges the
+ * hot and the archived page after the same cursor, an export merges both cursors.
+ */
+@Slf4j
+@Service
+@AllArgsConstructor
+public class TrainingListingService {
+
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+    private static final Comparator<Training> KEYSET_ORDER =
+            Comparator.comparing(Training::getTrainingDate).thenComparing(Training::getId);
+
+    private TrainingMapper trainingMapper;
+    private TrainingRepo trainingRepository;
+    private TrainingArchiveRepo trainingArchiveRepository;
+    private ObjectMapper objectMapper;
+    private TrainingTypeCache trainingTypeCache;
+
+    @Transactional(readOnly = true)
+    public ResponseEntity<TrainingRecord.TrainingPage<TrainingRecord.TraineeTrainingResponse>> getTrainingPageByTrainee(
+            String traineeUsername, TrainingRecord.TrainingFilterRequest filter, String cursor, Integer size) {
+        try {
+            Cursor after = Cursor.parse(cursor);
+            int pageSize = pageSize(size);
+            Long trainingTypeId = trainingTypeId(filter);
+            PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+            List<Training> trainings = merge(
+                    trainingRepository.findTrainingPageByTrainee(traineeUsername, filter.periodFrom(),
+                            filter.periodTo(), trainingTypeId, after.trainingDate(), after.id(), pageRequest),
+                    trainingArchiveRepository.findTrainingPageByTrainee(traineeUsername, filter.periodFrom(),
+                            filter.periodTo(), trainingTypeId, after.trainingDate(), after.id(), pageRequest),
+                    pageSize + 1);
+            return ResponseEntity.ok(page(trainings, pageSize, trainingMapper::trainingToTraineeTrainingResponse));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid Training listing request for trainee {}: {}", traineeUsername, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public ResponseEntity<TrainingRecord.TrainingPage<TrainingRecord.TrainerTrainingResponse>> getTrainingPageByTrainer(
+            String trainerUsername, TrainingRecord.TrainingFilterRequest filter, String cursor, Integer size) {
+        try {
+            Cursor after = Cursor.parse(cursor);
+            int pageSize = pageSize(size);
+            Long trainingTypeId = trainingTypeId(filter);
+            PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+            List<Training> trainings = merge(
+                    trainingRepository.findTrainingPageByTrainer(trainerUsername, filter.periodFrom(),
+                            filter.periodTo(), trainingTypeId, after.trainingDate(), after.id(), pageRequest),
+                    trainingArchiveRepository.findTrainingPageByTrainer(trainerUsername, filter.periodFrom(),
+                            filter.periodTo(), trainingTypeId, after.trainingDate(), after.id(), pageRequest),
+                    pageSize + 1);
+            return ResponseEntity.ok(page(trainings, pageSize, trainingMapper::trainingToTrainerTrainingResponse));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid Training listing request for trainer {}: {}", trainerUsername, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Writes every matching training as one JSON line. The transaction keeps the
+     * cursor open until the last row is written and closing the stream releases it.
+     */
+    @Transactional(readOnly = true)
+    public void exportTrainingsByTrainee(String traineeUsername, TrainingRecord.TrainingFilterRequest filter,
+                                         OutputStream outputStream) throws IOException {
+        try (Stream<TrainingRecord.TraineeTrainingResponse> trainings = streamTrainees(traineeUsername, filter)) {
+            log.info("Training export for trainee {}: {} trainings", traineeUsername, writeLines(trainings, outputStream));
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportTrainingsByTrainer(String trainerUsername, TrainingRecord.TrainingFilterRequest filter,
+                                         OutputStream outputStream) throws IOException {
+        try (Stream<TrainingRecord.TrainerTrainingResponse> trainings = streamTrainers(trainerUsername, filter)) {
+            log.info("Training export for trainer {}: {} trainings", trainerUsername, writeLines(trainings, outputStream));
+        }
+    }
+
+    /**
+     * Reactive export for the non-blocking in-memory store, rows are produced only as
+     * the subscriber requests them and the stream is closed on completion or cancel.
+     */
+    public Flux<TrainingRecord.TraineeTrainingResponse> streamTrainingsByTrainee(String traineeUsername,
+                                                                               TrainingRecord.TrainingFilterRequest filter) {
+        return Flux.fromStream(() -> streamTrainees(traineeUsername, filter));
+    }
+
+    public Flux<TrainingRecord.TrainerTrainingResponse> streamTrainingsByTrainer(String trainerUsername,
+                                                                               TrainingRecord.TrainingFilterRequest filter) {
+        return Flux.fromStream(() -> streamTrainers(trainerUsername, filter));
+    }
+
+    private Stream<TrainingRecord.TraineeTrainingResponse> streamTrainees(String traineeUsername,
+                                                                         TrainingRecord.TrainingFilterRequest filter) {
+        Long trainingTypeId = trainingTypeId(filter);
+        return mergeByDate(
+                trainingArchiveRepository.streamTrainingByTrainee(traineeUsername, filter.periodFrom(),
+                        filter.periodTo(), trainingTypeId),
+                () -> trainingRepository.streamTrainingByTrainee(traineeUsername, filter.periodFrom(),
+                        filter.periodTo(), trainingTypeId),
+                TrainingRecord.TraineeTrainingResponse::trainingDate);
+    }
+
+    private Stream<TrainingRecord.TrainerTrainingResponse> streamTrainers(String trainerUsername,
+                                                                         TrainingRecord.TrainingFilterRequest filter) {
+        Long trainingTypeId = trainingTypeId(filter);
+        return mergeByDate(
+                trainingArchiveRepository.streamTrainingByTrainer(trainerUsername, filter.periodFrom(),
+                        filter.periodTo(), trainingTypeId),
+                () -> trainingRepository.streamTrainingByTrainer(trainerUsername, filter.periodFrom(),
+                        filter.periodTo(), trainingTypeId),
+                TrainingRecord.TrainerTrainingResponse::trainingDate);
+    }
+
+    /**
+     * The first limit trainings of two pages, both in (trainingDate, Id) order.
+     */
+    private static List<Training> merge(List<Training> hot, List<Training> archived, int limit) {
+        List<Training> merged = new ArrayList<>(Math.min(limit, hot.size() + archived.size()));
+        int h = 0;
+        int a = 0;
+        while (merged.size() < limit && (h < hot.size() || a < archived.size())) {
+            if (a == archived.size() || h < hot.size() && KEYSET_ORDER.compare(hot.get(h), archived.get(a)) < 0) {
+                merged.add(hot.get(h++));
+            } else {
+                merged.add(archived.get(a++));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Merges two exports ordered by (trainingDate, Id), lazily and closing both. The rows
+     * carry no id, on the same day the archived ones go first: a hot training dated in an
+     * archived month was saved after the run that archived it.
+     */
+    private static <T> Stream<T> mergeByDate(Stream<T> archived, Supplier<Stream<T>> hotSupplier,
+                                             Function<T, LocalDate> trainingDate) {
+        Stream<T> hot;
+        try {
+            hot = hotSupplier.get();
+        } catch (RuntimeException e) {
+            archived.close();
+            throw e;
+        }
+        Iterator<T> archivedRows = archived.iterator();
+        Iterator<T> hotRows = hot.iterator();
+        Iterator<T> merged = new Iterator<>() {
+            private T nextArchived;
+            private T nextHot;
+
+            @Override
+            public boolean hasNext() {
+                return nextArchived != null || nextHot != null || archivedRows.hasNext() || hotRows.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (nextArchived == null && archivedRows.hasNext()) {
+                    nextArchived = archivedRows.next();
+                }
+                if (nextHot == null && hotRows.hasNext()) {
+                    nextHot = hotRows.next();
+                }
+                if (nextArchived == null && nextHot == null) {
+                    throw new NoSuchElementException();
+                }
+                T row;
+                if (nextHot == null || nextArchived != null
+                        && !trainingDate.apply(nextArchived).isAfter(trainingDate.apply(nextHot))) {
+                    row = nextArchived;
+                    nextArchived = null;
+                } else {
+                    row = nextHot;
+                    nextHot = null;
+                }
+                return row;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false)
+                .onClose(archived::close)
+                .onClose(hot::close);
+    }
+
+    private <T> long writeLines(Stream<T> trainings, OutputStream outputStream) throws IOException {
+        long written = 0;
+        try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(outputStream)) {
+            for (T training : (Iterable<T>) trainings::iterator) {
+                writer.write(training);
+                written++;
+            }
+        }
+        return written;
+    }
+
+    private static <T> TrainingRecord.TrainingPage<T> page(List<Training> trainings, int pageSize,
+                                                           Function<Training, T> mapper) {
+        // one extra row was fetched only to know whether another page exists
+        boolean hasNext = trainings.size() > pageSize;
+        List<Training> content = hasNext ? trainings.subList(0, pageSize) : trainings;
+        String nextCursor = hasNext ? Cursor.of(content.get(content.size() - 1)).toString() : null;
+        return new TrainingRecord.TrainingPage<>(content.stream().map(mapper).toList(), nextCursor);
+    }
+
+    private static int pageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return size;
+    }
+
+    /**
+     * The filter takes a training type id or name, names are resolved by TrainingTypeCache.
+     */
+    private Long trainingTypeId(TrainingRecord.TrainingFilterRequest filter) {
+        String trainingType = filter.training_type();
+        if (trainingType == null || trainingType.isBlank()) {
+            return null;
+        }
+        String value = trainingType.trim();
+        return Character.isDigit(value.charAt(0)) ? Long.valueOf(value) : trainingTypeCache.toTrainingTypeId(value);
+    }
+
+    /**
+     * Opaque to clients, rendered as "{trainingDate}_{Id}" of the last row of a page.
+     */
+    private record Cursor(LocalDate trainingDate, Long id) {
+
+        private static final Cursor FIRST = new Cursor(null, null);
+
+        static Cursor of(Training training) {
+            return new Cursor(training.getTrainingDate(), training.getId());
+        }
+
+        static Cursor parse(String value) {
+            if (value == null || value.isBlank()) {
+                return FIRST;
+            }
+            int separator = value.indexOf('_');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Malformed cursor " + value);
+            }
+            try {
+                return new Cursor(LocalDate.parse(value.substring(0, separator)),
+                        Long.valueOf(value.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Malformed cursor " + value, e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return trainingDate + "_" + id;
+        }
+    }
+}
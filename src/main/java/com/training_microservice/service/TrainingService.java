@@ -1,20 +1,38 @@
 package com.training_microservice.service;
 
+import com.training_microservice.config.SummaryProperties;
+import com.training_microservice.dao.TraineeSummaryRepo;
+import com.training_microservice.dao.TrainerSummaryRepo;
+import com.training_microservice.dao.TrainingArchiveRepo;
 import com.training_microservice.dao.TrainingRepo;
+import com.training_microservice.domain.entities.TraineeMonthlySummary;
+import com.training_microservice.domain.entities.TrainerMonthlySummary;
 import com.training_microservice.domain.entities.Training;
+import com.training_microservice.domain.records.MonthlyDurations;
 import com.training_microservice.domain.records.TrainingRecord;
 import com.training_microservice.mapper.TrainingMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Flux;
 
-import java.time.Month;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 
 @Slf4j
 @Service
@@ -23,77 +41,396 @@ public class TrainingService {
 
     private TrainingMapper trainingMapper;
     private TrainingRepo trainingRepository;
+    private TrainingArchiveRepo trainingArchiveRepository;
+    private TrainerSummaryRepo trainerSummaryRepository;
+    private TraineeSummaryRepo traineeSummaryRepository;
+    private Cache trainerSummaryCache;
+    private MeterRegistry meterRegistry;
+    private SummaryProperties summaryProperties;
+    private TrainingTypeCache trainingTypeCache;
+    private SummaryWriteGate summaryWriteGate;
 
+    /**
+     * @throws DataIntegrityViolationException when the idempotency key was already used,
+     * by an archived training, thrown here by the in-memory store or on commit by the
+     * database, or when the training breaks any other constraint
+     */
     @Transactional
-    public ResponseEntity saveTraining(TrainingRecord.TrainingRequest trainingRequest) {
-        try {
-            Training training = trainingMapper.trainingRequestToTraining(trainingRequest);
-            Training savedTraining =trainingRepository.save(training);
-            if (savedTraining != null) {
-                log.info("Training created: {}", savedTraining.getTrainingName());
-                return ResponseEntity.ok().build();
-            } else {
-                log.error("Failed to save training. Null response from repository.");
+    public ResponseEntity saveTraining(TrainingRecord.TrainingRequest trainingRequest, String idempotencyKey) {
+        return summaryWriteGate.write(() -> {
+            try {
+                Training training = trainingMapper.trainingRequestToTraining(trainingRequest);
+                training.setIdempotencyKey(idempotencyKey);
+                checkArchivedIdempotencyKeys(List.of(training));
+                Training savedTraining =trainingRepository.save(training);
+                if (savedTraining != null) {
+                    SummaryKey key = SummaryKey.of(savedTraining);
+                    trainerSummaryRepository.upsertTrainingDuration(key.username(), key.year(), key.month(),
+                            savedTraining.getTrainingDuration());
+                    traineeSummaryRepository.upsertTrainings(savedTraining.getTraineeUsername(), key.year(), key.month(),
+                            savedTraining.getTrainingDuration(), 1L);
+                    trainerSummaryRepository.bumpSummaryVersion(key.username());
+                    trainerSummaryCache.evict(savedTraining.getTrainerUsername());
+                    log.info("Training created: {}", savedTraining.getTrainingName());
+                    return ResponseEntity.ok().build();
+                } else {
+                    log.error("Failed to save training. Null response from repository.");
+                    countError("saveTraining", "NullResult");
+                }
+                return ResponseEntity.badRequest().build();
+            } catch (DataIntegrityViolationException e) {
+                if (!TrainingIdempotencyService.isIdempotencyKeyViolation(e)) {
+                    log.error("Error, saving Training", e);
+                    countError("saveTraining", e.getClass().getSimpleName());
+                }
+                // rethrown either way so the transaction rolls back, the caller answers a replay
+                throw e;
+            } catch (Exception e) {
+                log.error("Error, saving Training", e);
+                countError("saveTraining", e.getClass().getSimpleName());
+                return ResponseEntity.badRequest().build();
             }
-            return ResponseEntity.badRequest().build();
-        } catch (Exception e) {
-            log.error("Error, saving Training", e);
-            return ResponseEntity.badRequest().build();
+        });
+    }
+
+    /**
+     * Persists a chunk of already validated trainings in one transaction, folding the
+     * chunk into one summary update per trainer and month and one per trainee and month.
+     * Outside a transaction, the in-memory store, nothing undoes the trainings saved
+     * before a failing one, so their summaries are applied before the failure is rethrown.
+     */
+    @Transactional
+    public List<Training> saveTrainings(List<Training> trainings) {
+        return summaryWriteGate.write(() -> {
+            List<Training> savedTrainings = new ArrayList<>(trainings.size());
+            Map<SummaryKey, Long> durations = new HashMap<>();
+            // {total duration, training count} per trainee month
+            Map<SummaryKey, long[]> traineeTotals = new HashMap<>();
+            checkArchivedIdempotencyKeys(trainings);
+            for (Training training : trainings) {
+                Training savedTraining;
+                try {
+                    savedTraining = trainingRepository.save(training);
+                } catch (RuntimeException e) {
+                    if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+                        upsertChunkSummaries(durations, traineeTotals);
+                    }
+                    throw e;
+                }
+                savedTrainings.add(savedTraining);
+                durations.merge(SummaryKey.of(savedTraining), savedTraining.getTrainingDuration(), Long::sum);
+                long[] totals = traineeTotals.computeIfAbsent(SummaryKey.ofTrainee(savedTraining), key -> new long[2]);
+                totals[0] += savedTraining.getTrainingDuration();
+                totals[1]++;
+            }
+            upsertChunkSummaries(durations, traineeTotals);
+            log.info("Training chunk created: {} trainings", savedTrainings.size());
+            return savedTrainings;
+        });
+    }
+
+    /**
+     * Whether the training was stored, for a training left with an id by a chunk that
+     * failed: true when the store kept it, false when the transaction rolled it back.
+     */
+    @Transactional(readOnly = true)
+    public boolean isSaved(Training training) {
+        return training.getId() != null && trainingRepository.findById(training.getId()).isPresent();
+    }
+
+    /**
+     * The unique index only covers the hot trainings, an archived training keeps its key in
+     * use. Checked under the write gate, so no archive run moves a key out in between.
+     */
+    private void checkArchivedIdempotencyKeys(List<Training> trainings) {
+        List<String> idempotencyKeys = trainings.stream().map(Training::getIdempotencyKey)
+                .filter(Objects::nonNull).toList();
+        if (idempotencyKeys.isEmpty()) {
+            return;
         }
+        List<String> archivedKeys = trainingArchiveRepository.findIdempotencyKeys(idempotencyKeys);
+        if (!archivedKeys.isEmpty()) {
+            throw new DataIntegrityViolationException("Duplicate idempotency key " + archivedKeys.get(0)
+                    + " of an archived training, violates " + Training.IDEMPOTENCY_KEY_CONSTRAINT);
+        }
+    }
+
+    private void upsertChunkSummaries(Map<SummaryKey, Long> durations, Map<SummaryKey, long[]> traineeTotals) {
+        traineeTotals.forEach((key, totals) ->
+                traineeSummaryRepository.upsertTrainings(key.username(), key.year(), key.month(), totals[0], totals[1]));
+        Set<String> trainerUsernames = new HashSet<>();
+        durations.forEach((key, duration) -> {
+            trainerSummaryRepository.upsertTrainingDuration(key.username(), key.year(), key.month(), duration);
+            trainerUsernames.add(key.username());
+        });
+        trainerUsernames.forEach(trainerSummaryRepository::bumpSummaryVersion);
+        trainerUsernames.forEach(trainerSummaryCache::evict);
+    }
+
+    /**
+     * Strong ETag of the trainer's summary, derived from the version every write to the
+     * trainer's trainings bumps. Reading it only touches the version, so a matching
+     * If-None-Match is answered without reading trainings or aggregates.
+     * @param compact whether the tag is for the compact representation
+     * @return null when the trainer has no version, so no summary to match
+     */
+    @Transactional(readOnly = true)
+    public String getTrainerSummaryETag(String trainerUsername, boolean compact) {
+        Long version = trainerSummaryRepository.findSummaryVersion(trainerUsername);
+        return version != null ? summaryETag(version, compact) : null;
+    }
+
+    public static String summaryETag(Long version, boolean compact) {
+        return "\"" + version + (compact ? "-compact" : "") + "\"";
     }
 
     @Transactional(readOnly = true)
     public ResponseEntity<TrainingRecord.TrainerTrainingSummary> getTrainingSummaryByTrainer(String trainerUsername) {
-        try {
-            // Retrieve trainings for the given trainer username
-            List<Training> trainings = trainingRepository.findTrainingByTrainer(trainerUsername);
+        ResponseEntity<TrainingRecord.VersionedTrainerTrainingSummary> response =
+                getVersionedTrainingSummaryByTrainer(trainerUsername);
+        return response.getBody() == null ? ResponseEntity.status(response.getStatusCode()).build()
+                : ResponseEntity.ok().body(response.getBody().summary());
+    }
 
-            if (trainings == null || trainings.isEmpty()) {
-                return ResponseEntity.notFound().build(); // Return 404 if no trainings found
+    /**
+     * The trainer summary with the version it is tagged with. The version is read before
+     * the summary, so the summary is at least as new as the version and a later write's
+     * version never matches a summary cached before it.
+     */
+    @Transactional(readOnly = true)
+    public ResponseEntity<TrainingRecord.VersionedTrainerTrainingSummary> getVersionedTrainingSummaryByTrainer(
+            String trainerUsername) {
+        try {
+            Long version = trainerSummaryRepository.findSummaryVersion(trainerUsername);
+            TrainingRecord.VersionedTrainerTrainingSummary cachedSummary =
+                    trainerSummaryCache.get(trainerUsername, TrainingRecord.VersionedTrainerTrainingSummary.class);
+            if (cachedSummary != null && Objects.equals(cachedSummary.version(), version)) {
+                return ResponseEntity.ok().body(cachedSummary);
             }
 
-            // Create a map to store the summary for each year and month
-            Map<Integer, Map<String, Long>> trainerSummaryMap = new HashMap<>();
+            // Retrieve the pre-aggregated monthly rows for the given trainer username
+            List<TrainerMonthlySummary> monthlySummaries = trainerSummaryRepository.findSummaryByTrainer(trainerUsername);
 
-            // Iterate over each training
-            for (Training training : trainings) {
-                // Get year, month, and duration from the training
-                int year = training.getTrainingDate().getYear();
-                String month = Month.of(training.getTrainingDate().getMonthValue()).toString();
-                long duration = training.getTrainingDuration();
+            // Durations for each year and month
+            MonthlyDurations trainerSummaryDurations = new MonthlyDurations();
 
-                // If the year is not present in the trainer's map, create a new map for the year
-                trainerSummaryMap.putIfAbsent(year, new HashMap<>());
-
-                // Get the map for the year
-                Map<String, Long> monthDurationMap = trainerSummaryMap.get(year);
+            if (monthlySummaries != null && !monthlySummaries.isEmpty()) {
+                for (TrainerMonthlySummary monthlySummary : monthlySummaries) {
+                    trainerSummaryDurations.add(monthlySummary.getSummaryYear(),
+                            monthlySummary.getSummaryMonth(), monthlySummary.getTotalDuration());
+                }
+            } else {
+                // No aggregate rows yet (history older than the aggregates), group the raw and archived trainings
+                for (TrainingRecord.TrainerMonthlyDuration monthlyDuration : withArchived(
+                        trainingRepository.findMonthlyDurationByTrainer(trainerUsername),
+                        trainingArchiveRepository.findMonthlyDurationByTrainer(trainerUsername))) {
+                    trainerSummaryDurations.add(monthlyDuration.year(),
+                            monthlyDuration.month(), monthlyDuration.totalDuration());
+                }
+            }
 
-                // Update the total duration for the month
-                monthDurationMap.merge(month, duration, Long::sum);
+            if (trainerSummaryDurations.isEmpty()) {
+                return ResponseEntity.notFound().build(); // Return 404 if no trainings found
             }
 
             // Create a TrainerTrainingSummary object
-            TrainingRecord.TrainerTrainingSummary trainerTrainingSummary =
-                    new TrainingRecord.TrainerTrainingSummary(trainerSummaryMap);
+            TrainingRecord.VersionedTrainerTrainingSummary trainerTrainingSummary =
+                    new TrainingRecord.VersionedTrainerTrainingSummary(version,
+                            new TrainingRecord.TrainerTrainingSummary(trainerSummaryDurations));
+            trainerSummaryCache.put(trainerUsername, trainerTrainingSummary);
 
             return ResponseEntity.ok().body(trainerTrainingSummary); // Return response if trainings exist
         } catch (Exception e) {
             // Log and return 500 Internal Server Error if an exception occurs
             log.error("Error occurred while retrieving trainings for trainer: {}", trainerUsername, e);
+            countError("getTrainingSummaryByTrainer", e.getClass().getSimpleName());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
-    @Transactional
-    public ResponseEntity<String> deleteTrainingByTrainerUsername(String trainerUsername) {
+    /**
+     * Summaries of several trainers in one call. Cached summaries are reused and the rest
+     * come from one grouped repository query; trainers without trainings are left out.
+     */
+    @Transactional(readOnly = true)
+    public ResponseEntity<Map<String, TrainingRecord.TrainerTrainingSummary>> getTrainingSummariesByTrainers(
+            List<String> trainerUsernames) {
+        Set<String> requested = new LinkedHashSet<>(trainerUsernames);
+        requested.remove(null);
+        if (requested.size() > summaryProperties.getBulk().getMaxTrainers()) {
+            log.warn("Rejected summary request for {} trainers, the limit is {}",
+                    requested.size(), summaryProperties.getBulk().getMaxTrainers());
+            countError("getTrainingSummariesByTrainers", "TooManyTrainers");
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            Map<String, Long> versions = new HashMap<>();
+            trainerSummaryRepository.findSummaryVersions(requested)
+                    .forEach(version -> versions.put(version.getTrainerUsername(), version.getVersion()));
+            Map<String, TrainingRecord.TrainerTrainingSummary> summaries = new LinkedHashMap<>();
+            List<String> uncached = new ArrayList<>();
+            for (String trainerUsername : requested) {
+                TrainingRecord.VersionedTrainerTrainingSummary cachedSummary =
+                        trainerSummaryCache.get(trainerUsername, TrainingRecord.VersionedTrainerTrainingSummary.class);
+                if (cachedSummary != null && Objects.equals(cachedSummary.version(), versions.get(trainerUsername))) {
+                    summaries.put(trainerUsername, cachedSummary.summary());
+                } else {
+                    uncached.add(trainerUsername);
+                }
+            }
+
+            if (!uncached.isEmpty()) {
+                Map<String, MonthlyDurations> trainerSummaryDurations = new LinkedHashMap<>();
+                for (TrainingRecord.TrainerMonthlyDuration monthlyDuration : withArchived(
+                        trainingRepository.findMonthlyDurationByTrainers(uncached),
+                        trainingArchiveRepository.findMonthlyDurationByTrainers(uncached))) {
+                    trainerSummaryDurations.computeIfAbsent(monthlyDuration.trainerUsername(), key -> new MonthlyDurations())
+                            .add(monthlyDuration.year(), monthlyDuration.month(), monthlyDuration.totalDuration());
+                }
+                trainerSummaryDurations.forEach((trainerUsername, durations) -> {
+                    TrainingRecord.TrainerTrainingSummary summary = new TrainingRecord.TrainerTrainingSummary(durations);
+                    trainerSummaryCache.put(trainerUsername,
+                            new TrainingRecord.VersionedTrainerTrainingSummary(versions.get(trainerUsername), summary));
+                    summaries.put(trainerUsername, summary);
+                });
+            }
+            return ResponseEntity.ok().body(summaries);
+        } catch (Exception e) {
+            log.error("Error occurred while retrieving summaries for {} trainers", requested.size(), e);
+            countError("getTrainingSummariesByTrainers", e.getClass().getSimpleName());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * The trainer summary with its per-type breakdown and per-type totals, folded in one
+     * pass over one grouped query. Type names come from TrainingTypeCache, so the query
+     * does not join the training_type table.
+     */
+    @Transactional(readOnly = true)
+    public ResponseEntity<TrainingRecord.TrainerTrainingTypeSummary> getTrainingTypeSummaryByTrainer(String trainerUsername) {
         try {
-            trainingRepository.deleteTrainingByTrainerUsername(trainerUsername);
-            return ResponseEntity.ok().body("Training Deleted");
-        }catch (Exception e){
-            log.error("Error occurred while deleting training: {}", trainerUsername, e);
+            MonthlyDurations summary = new MonthlyDurations();
+            Map<String, MonthlyDurations> byType = new TreeMap<>();
+            Map<String, Long> typeTotals = new TreeMap<>();
+            for (TrainingRecord.TrainerMonthlyTypeDuration monthlyDuration : withArchived(
+                    trainingRepository.findMonthlyTypeDurationByTrainer(trainerUsername),
+                    trainingArchiveRepository.findMonthlyTypeDurationByTrainer(trainerUsername))) {
+                String typeName = typeName(monthlyDuration.trainingTypeId());
+                summary.add(monthlyDuration.year(), monthlyDuration.month(), monthlyDuration.totalDuration());
+                byType.computeIfAbsent(typeName, key -> new MonthlyDurations())
+                        .add(monthlyDuration.year(), monthlyDuration.month(), monthlyDuration.totalDuration());
+                typeTotals.merge(typeName, monthlyDuration.totalDuration(), Long::sum);
+            }
+            if (summary.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok().body(new TrainingRecord.TrainerTrainingTypeSummary(summary, byType, typeTotals));
+        } catch (Exception e) {
+            log.error("Error occurred while retrieving training types for trainer: {}", trainerUsername, e);
+            countError("getTrainingTypeSummaryByTrainer", e.getClass().getSimpleName());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * The trainee's monthly workload, read from the pre-aggregated trainee rows that
+     * saves and deletes keep current, so the cost does not grow with the trainee's history.
+     */
+    @Transactional(readOnly = true)
+    public ResponseEntity<TrainingRecord.TraineeTrainingSummary> getTrainingSummaryByTrainee(String traineeUsername) {
+        try {
+            MonthlyDurations traineeSummaryDurations = new MonthlyDurations();
+            for (TraineeMonthlySummary monthlySummary : traineeSummaryRepository.findSummaryByTrainee(traineeUsername)) {
+                traineeSummaryDurations.add(monthlySummary.getSummaryYear(),
+                        monthlySummary.getSummaryMonth(), monthlySummary.getTotalDuration());
+            }
+            if (traineeSummaryDurations.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok().body(new TrainingRecord.TraineeTrainingSummary(traineeSummaryDurations));
+        } catch (Exception e) {
+            log.error("Error occurred while retrieving trainings for trainee: {}", traineeUsername, e);
+            countError("getTrainingSummaryByTrainee", e.getClass().getSimpleName());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /**
+     * Every stored trainer month, read from the store only as the subscriber requests it.
+     */
+    public Flux<TrainingRecord.TrainerMonthlyDuration> streamTrainerSummaries() {
+        return Flux.fromStream(trainerSummaryRepository::streamMonthlyDurations);
+    }
+
+    @Transactional
+    public ResponseEntity<TrainingRecord.TrainingDeleteResponse> deleteTrainingByTrainerUsername(String trainerUsername) {
+        return summaryWriteGate.write(() -> {
+            try {
+                // what the deleted trainings contributed to their trainees' months
+                List<TrainingRecord.TraineeMonthlyDuration> traineeDurations = withArchived(
+                        trainingRepository.findTraineeMonthlyDurationByTrainer(trainerUsername),
+                        trainingArchiveRepository.findTraineeMonthlyDurationByTrainer(trainerUsername));
+                int deletedTrainings = trainingRepository.deleteTrainingByTrainerUsername(trainerUsername)
+                        + trainingArchiveRepository.deleteArchivedTrainingByTrainerUsername(trainerUsername);
+                trainingArchiveRepository.deleteArchivedMonthByTrainerUsername(trainerUsername);
+                for (TrainingRecord.TraineeMonthlyDuration traineeDuration : traineeDurations) {
+                    long duration = traineeDuration.totalDuration() != null ? traineeDuration.totalDuration() : 0;
+                    traineeSummaryRepository.addTrainings(traineeDuration.traineeUsername(), traineeDuration.year(),
+                            traineeDuration.month(), -duration, -traineeDuration.trainingCount());
+                    traineeSummaryRepository.deleteEmptySummary(traineeDuration.traineeUsername(),
+                            traineeDuration.year(), traineeDuration.month());
+                }
+                trainerSummaryRepository.deleteSummaryByTrainerUsername(trainerUsername);
+                trainerSummaryRepository.bumpSummaryVersion(trainerUsername);
+                trainerSummaryCache.evict(trainerUsername);
+                log.info("Trainings deleted for trainer {}: {}", trainerUsername, deletedTrainings);
+                return ResponseEntity.ok().body(new TrainingRecord.TrainingDeleteResponse(trainerUsername, deletedTrainings));
+            }catch (Exception e){
+                log.error("Error occurred while deleting training: {}", trainerUsername, e);
+                countError("deleteTrainingByTrainerUsername", e.getClass().getSimpleName());
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            }
+        });
+    }
+
+    private String typeName(Long trainingTypeId) {
+        if (trainingTypeId == null) {
+            return TrainingRecord.TrainerTrainingTypeSummary.UNTYPED;
+        }
+        // a type added since the last cache refresh is reported by id until the next one
+        String name = trainingTypeCache.findName(trainingTypeId);
+        return name != null ? name : trainingTypeId.toString();
+    }
 
+    /**
+     * Grouped rows of the hot trainings followed by those of the archived ones. A month can
+     * be in both when a training was saved after its month was archived, the callers sum
+     * the rows they fold.
+     */
+    private static <T> List<T> withArchived(List<T> hot, List<T> archived) {
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        List<T> all = new ArrayList<>(hot.size() + archived.size());
+        all.addAll(hot);
+        all.addAll(archived);
+        return all;
+    }
+
+    private void countError(String operation, String reason) {
+        meterRegistry.counter("training.service.errors", "operation", operation, "reason", reason).increment();
+    }
+
+    private record SummaryKey(String username, int year, int month) {
+        static SummaryKey of(Training training) {
+            return new SummaryKey(training.getTrainerUsername(),
+                    training.getTrainingDate().getYear(), training.getTrainingDate().getMonthValue());
+        }
+
+        static SummaryKey ofTrainee(Training training) {
+            return new SummaryKey(training.getTraineeUsername(),
+                    training.getTrainingDate().getYear(), training.getTrainingDate().getMonthValue());
+        }
+    }
 }
@@ -0,0 +1,85 @@
+package com.training_microservice.service;
+
+import com.training_microservice.dao.TrainingTypeRepo;
+import com.training_microservice.domain.entities.TrainingType;
+import lombok.extern.slf4j.Slf4j;
+import org.mapstruct.Named;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Training types kept in process, so ingestion, filters and summaries resolve a type
+ * without a query or a join. The table is loaded when the bean is created and reloaded
+ * every app.training-types.refresh-interval; a failed reload keeps the previous types.
+ * Names are matched case-insensitively.
+ */
+@Slf4j
+@Service
+public class TrainingTypeCache {
+
+    private final TrainingTypeRepo trainingTypeRepository;
+    private volatile Snapshot snapshot;
+
+    public TrainingTypeCache(TrainingTypeRepo trainingTypeRepository) {
+        this.trainingTypeRepository = trainingTypeRepository;
+        this.snapshot = load();
+    }
+
+    @Scheduled(fixedDelayString = "${app.training-types.refresh-interval:PT5M}",
+            initialDelayString = "${app.training-types.refresh-interval:PT5M}")
+    public void refresh() {
+        try {
+            snapshot = load();
+        } catch (Exception e) {
+            log.error("Error, refreshing training types, keeping the {} loaded ones", snapshot.idsByName().size(), e);
+        }
+    }
+
+    /**
+     * @return the id of the type, null when the name is null or unknown
+     */
+    public Long findId(String name) {
+        return name == null ? null : snapshot.idsByName().get(name.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * @return the name of the type, null when the id is null or unknown
+     */
+    public String findName(Long id) {
+        return id == null ? null : snapshot.namesById().get(id);
+    }
+
+    /**
+     * Resolves an ingested type name, a missing name leaves the training untyped.
+     * @throws IllegalArgumentException when the name is not a known type
+     */
+    @Named("trainingTypeId")
+    public Long toTrainingTypeId(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        Long id = findId(name);
+        if (id == null) {
+            throw new IllegalArgumentException("Unknown training type " + name);
+        }
+        return id;
+    }
+
+    private Snapshot load() {
+        Map<Long, String> namesById = new HashMap<>();
+        Map<String, Long> idsByName = new HashMap<>();
+        for (TrainingType trainingType : trainingTypeRepository.findAll()) {
+            namesById.put(trainingType.getId(), trainingType.getName());
+            idsByName.put(trainingType.getName().toUpperCase(Locale.ROOT), trainingType.getId());
+        }
+        log.debug("Loaded {} training types", namesById.size());
+        return new Snapshot(Map.copyOf(namesById), Map.copyOf(idsByName));
+    }
+
+    private record Snapshot(Map<Long, String> namesById, Map<String, Long> idsByName) {
+    }
+}
@@ -0,0 +1,232 @@
+package com.training_microservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.training_microservice.config.IngestionProperties;
+import com.training_microservice.config.Tracing;
+import com.training_microservice.domain.entities.Training;
+import com.training_microservice.domain.records.TrainingRecord;
+import com.training_microservice.mapper.TrainingMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind mode of POST /training (app.ingestion.write-behind.enabled). Requests are
+ * queued and answered with 202 and a tracking id, a single writer thread drains the
+ * queue into TrainingService.saveTrainings so a burst commits as a few batch
+ * transactions with one summary update per trainer and month. A full queue answers 429,
+ * and on shutdown the writer keeps draining, after the web server stopped taking
+ * requests, until the queue is empty or the shutdown timeout runs out.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.ingestion.write-behind.enabled", havingValue = "true")
+public class TrainingWriteBehindService implements SmartLifecycle {
+
+    static final String QUEUED = "QUEUED";
+    static final String SAVED = "SAVED";
+    static final String FAILED = "FAILED";
+    static final String DUPLICATE = "DUPLICATE";
+
+    private final TrainingService trainingService;
+    private final TrainingMapper trainingMapper;
+    private final TrainingIdempotencyService trainingIdempotencyService;
+    private final IngestionProperties.WriteBehind properties;
+    private final BlockingQueue<PendingTraining> queue;
+    private final Cache<String, TrainingRecord.TrainingIngestionStatus> statuses;
+    private final Counter rejectedCounter;
+    private final Counter failedCounter;
+    private final Timer lagTimer;
+    private final DistributionSummary batchSizeSummary;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public TrainingWriteBehindService(TrainingService trainingService, TrainingMapper trainingMapper,
+                                      TrainingIdempotencyService trainingIdempotencyService,
+                                      IngestionProperties ingestionProperties, MeterRegistry meterRegistry) {
+        this.trainingService = trainingService;
+        this.trainingMapper = trainingMapper;
+        this.trainingIdempotencyService = trainingIdempotencyService;
+        this.properties = ingestionProperties.getWriteBehind();
+        this.queue = new ArrayBlockingQueue<>(properties.getCapacity());
+        this.statuses = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getStatusRetention())
+                .maximumSize(properties.getCapacity() * 10L)
+                .build();
+        Gauge.builder("training.ingestion.queue.depth", queue, BlockingQueue::size)
+                .description("Trainings waiting for the write-behind writer")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("training.ingestion.rejected")
+                .description("Trainings refused with 429 because the write-behind queue was full")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("training.ingestion.failed")
+                .description("Queued trainings that could not be saved")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("training.ingestion.lag")
+                .description("Time from accepting a training to committing it")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("training.ingestion.batch.size")
+                .description("Trainings committed per write-behind transaction")
+                .maximumExpectedValue((double) properties.getMaxBatchSize())
+                .register(meterRegistry);
+    }
+
+    public ResponseEntity<TrainingRecord.TrainingAcceptedResponse> saveTraining(TrainingRecord.TrainingRequest trainingRequest,
+                                                                               String idempotencyKey) {
+        if (!running) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        String trackingId = UUID.randomUUID().toString();
+        Training training = trainingMapper.trainingRequestToTraining(trainingRequest);
+        training.setIdempotencyKey(idempotencyKey);
+        // registered first, the writer may save the training before offer returns
+        statuses.put(trackingId, new TrainingRecord.TrainingIngestionStatus(trackingId, QUEUED, null));
+        if (!queue.offer(new PendingTraining(trackingId, training, System.nanoTime(), Tracing.currentTraceId()))) {
+            statuses.invalidate(trackingId);
+            rejectedCounter.increment();
+            log.warn("Write-behind queue full ({} trainings), rejecting training", properties.getCapacity());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/training/ingestion/" + trackingId))
+                .body(new TrainingRecord.TrainingAcceptedResponse(trackingId));
+    }
+
+    public ResponseEntity<TrainingRecord.TrainingIngestionStatus> getIngestionStatus(String trackingId) {
+        TrainingRecord.TrainingIngestionStatus status = statuses.getIfPresent(trackingId);
+        return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer = new Thread(this::drain, "training-write-behind");
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            writer.join(properties.getShutdownTimeout().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            writer.interrupt();
+            log.error("Write-behind queue not drained on shutdown, {} trainings lost", queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops after the web server (lower phase), so no request can enqueue once draining starts.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 2048;
+    }
+
+    private void drain() {
+        List<PendingTraining> batch = new ArrayList<>(properties.getMaxBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingTraining first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, properties.getMaxBatchSize() - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+        log.info("Write-behind queue drained");
+    }
+
+    private void write(List<PendingTraining> batch) {
+        try {
+            List<Training> savedTrainings = trainingService.saveTrainings(
+                    batch.stream().map(PendingTraining::training).toList());
+            for (int i = 0; i < batch.size(); i++) {
+                saved(batch.get(i), savedTrainings.get(i));
+            }
+            batchSizeSummary.record(batch.size());
+        } catch (Exception e) {
+            // one bad training rolled the batch back, retry one by one to keep the others
+            log.error("Error, saving write-behind batch of {} trainings, retrying each", batch.size(), e);
+            // each retry logs under the trace id of the request that queued the training
+            batch.forEach(pending -> Tracing.runWithTraceId(pending.traceId(), () -> retry(pending)));
+        }
+    }
+
+    private void retry(PendingTraining pending) {
+        // the in-memory store keeps what the batch saved before failing, a transaction doesn't
+        if (trainingService.isSaved(pending.training())) {
+            saved(pending, pending.training());
+            return;
+        }
+        pending.training().setId(null);
+        try {
+            saved(pending, trainingService.saveTrainings(List.of(pending.training())).get(0));
+            batchSizeSummary.record(1);
+        } catch (DataIntegrityViolationException e) {
+            if (!TrainingIdempotencyService.isIdempotencyKeyViolation(e)) {
+                failed(pending, e);
+                return;
+            }
+            // queued twice before the first copy was committed, the first one is kept
+            log.info("Queued training {} duplicates idempotency key {}",
+                    pending.trackingId(), pending.training().getIdempotencyKey());
+            statuses.put(pending.trackingId(),
+                    new TrainingRecord.TrainingIngestionStatus(pending.trackingId(), DUPLICATE, null));
+        } catch (Exception itemException) {
+            failed(pending, itemException);
+        }
+    }
+
+    private void failed(PendingTraining pending, Exception e) {
+        log.error("Error, saving queued training {}", pending.trackingId(), e);
+        failedCounter.increment();
+        statuses.put(pending.trackingId(),
+                new TrainingRecord.TrainingIngestionStatus(pending.trackingId(), FAILED, null));
+    }
+
+    private void saved(PendingTraining pending, Training savedTraining) {
+        lagTimer.record(System.nanoTime() - pending.enqueuedNanos(), TimeUnit.NANOSECONDS);
+        statuses.put(pending.trackingId(),
+                new TrainingRecord.TrainingIngestionStatus(pending.trackingId(), SAVED, savedTraining.getId()));
+        trainingIdempotencyService.rememberSaved(savedTraining.getIdempotencyKey());
+    }
+
+    private record PendingTraining(String trackingId, Training training, long enqueuedNanos, String traceId) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.training_microservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Opt-in mode (app.execution.virtual-threads=true) where Tomcat hands every request to
+ * a new virtual thread instead of its bounded worker pool, so a request blocked on JDBC
+ * no longer holds a platform thread and concurrency is capped by the connection pool.
+ * Only compiled by the java21 Maven profile, builds on older JDKs get
+ * VirtualThreadUnavailableConfig instead.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "app.execution.virtual-threads", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        // kept out of the context on purpose, an Executor bean would replace Boot's applicationTaskExecutor
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        log.info("Serving requests on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+}
@@ -0,0 +1,8 @@
+-- Trainers whose history predates trainer_summary_version get a first version, the summary
+-- endpoints answer 404 for a trainer without one.
+INSERT INTO trainer_summary_version (trainer_username, version)
+SELECT DISTINCT trainer_username, 1
+FROM (SELECT trainer_username FROM training
+      UNION
+      SELECT trainer_username FROM training_archive_month) trainers
+WHERE trainer_username NOT IN (SELECT trainer_username FROM trainer_summary_version);
@@ -0,0 +1,6 @@
+-- Listings and exports read the raw archive by user and date like the hot trainings.
+CREATE INDEX idx_training_archive_trainer_date ON training_archive (trainer_username, training_date);
+CREATE INDEX idx_training_archive_trainee_date ON training_archive (trainee_username, training_date);
+
+-- Saves look up archived idempotency keys, a key stays used once its training is archived.
+CREATE UNIQUE INDEX uk_training_archive_idempotency_key ON training_archive (idempotency_key);
@@ -0,0 +1,12 @@
+-- Training table as created by the original schema generation.
+-- Databases that predate the migrations are baselined at this version.
+CREATE TABLE IF NOT EXISTS training (
+    id                BIGINT       NOT NULL,
+    trainee_username  VARCHAR(255) NOT NULL,
+    trainer_username  VARCHAR(255) NOT NULL,
+    training_name     VARCHAR(255) NOT NULL,
+    training_type_id  BIGINT,
+    training_date     DATE         NOT NULL,
+    training_duration BIGINT       NOT NULL,
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,16 @@
+CREATE TABLE IF NOT EXISTS trainer_monthly_summary (
+    id               BIGINT       NOT NULL AUTO_INCREMENT,
+    trainer_username VARCHAR(255) NOT NULL,
+    summary_year     INTEGER      NOT NULL,
+    summary_month    INTEGER      NOT NULL,
+    total_duration   BIGINT       NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_trainer_summary_month UNIQUE (trainer_username, summary_year, summary_month)
+);
+
+-- Backfill from existing trainings unless the application already maintains the table
+INSERT INTO trainer_monthly_summary (trainer_username, summary_year, summary_month, total_duration)
+SELECT trainer_username, YEAR(training_date), MONTH(training_date), SUM(training_duration)
+FROM training
+WHERE NOT EXISTS (SELECT 1 FROM trainer_monthly_summary)
+GROUP BY trainer_username, YEAR(training_date), MONTH(training_date);
@@ -0,0 +1,4 @@
+-- Every TrainingRepository query filters on one of the usernames and orders or
+-- groups by date, so both access paths get a (username, trainingDate) index.
+CREATE INDEX idx_training_trainer_date ON training (trainer_username, training_date);
+CREATE INDEX idx_training_trainee_date ON training (trainee_username, training_date);
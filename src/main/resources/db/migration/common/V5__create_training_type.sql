@@ -0,0 +1,18 @@
+-- Reference data for Training.training_type_id, loaded into TrainingTypeCache at startup.
+CREATE TABLE IF NOT EXISTS training_type (
+    id   BIGINT       NOT NULL AUTO_INCREMENT,
+    name VARCHAR(100) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_training_type_name UNIQUE (name)
+);
+
+INSERT INTO training_type (name) VALUES
+    ('FITNESS'),
+    ('YOGA'),
+    ('ZUMBA'),
+    ('STRETCHING'),
+    ('RESISTANCE');
+
+-- Type-filtered trainer listings and the per-type summary breakdown both filter on the
+-- trainer, then group or filter on the type and order by date.
+CREATE INDEX idx_training_trainer_type_date ON training (trainer_username, training_type_id, training_date);
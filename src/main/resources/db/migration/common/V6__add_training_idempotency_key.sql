@@ -0,0 +1,4 @@
+-- Set by POST /training from the Idempotency-Key header or the natural key of the
+-- training, the unique index turns a retried request into a constraint violation.
+ALTER TABLE training ADD COLUMN idempotency_key VARCHAR(64);
+CREATE UNIQUE INDEX uk_training_idempotency_key ON training (idempotency_key);
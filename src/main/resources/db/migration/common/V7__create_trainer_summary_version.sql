@@ -0,0 +1,7 @@
+-- Bumped with every write to a trainer's trainings, GET /training/summary/trainer/{trainerUsername}
+-- derives its ETag from it. A trainer gets a row on its first change.
+CREATE TABLE IF NOT EXISTS trainer_summary_version (
+    trainer_username VARCHAR(255) NOT NULL,
+    version          BIGINT       NOT NULL,
+    PRIMARY KEY (trainer_username)
+);
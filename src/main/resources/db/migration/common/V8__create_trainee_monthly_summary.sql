@@ -0,0 +1,17 @@
+CREATE TABLE IF NOT EXISTS trainee_monthly_summary (
+    id               BIGINT       NOT NULL AUTO_INCREMENT,
+    trainee_username VARCHAR(255) NOT NULL,
+    summary_year     INTEGER      NOT NULL,
+    summary_month    INTEGER      NOT NULL,
+    total_duration   BIGINT       NOT NULL,
+    training_count   BIGINT       NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_trainee_summary_month UNIQUE (trainee_username, summary_year, summary_month)
+);
+
+-- Backfill from existing trainings unless the application already maintains the table
+INSERT INTO trainee_monthly_summary (trainee_username, summary_year, summary_month, total_duration, training_count)
+SELECT trainee_username, YEAR(training_date), MONTH(training_date), SUM(training_duration), COUNT(*)
+FROM training
+WHERE NOT EXISTS (SELECT 1 FROM trainee_monthly_summary)
+GROUP BY trainee_username, YEAR(training_date), MONTH(training_date);
@@ -0,0 +1,28 @@
+-- Raw trainings older than the hot window, moved out of training by the archive job.
+CREATE TABLE IF NOT EXISTS training_archive (
+    id                BIGINT       NOT NULL,
+    trainee_username  VARCHAR(255) NOT NULL,
+    trainer_username  VARCHAR(255) NOT NULL,
+    training_name     VARCHAR(255) NOT NULL,
+    training_type_id  BIGINT,
+    training_date     DATE         NOT NULL,
+    training_duration BIGINT       NOT NULL,
+    idempotency_key   VARCHAR(64),
+    PRIMARY KEY (id)
+);
+CREATE INDEX idx_training_archive_trainer ON training_archive (trainer_username);
+
+-- Monthly aggregates of the archived trainings, what the summaries read instead of the raw rows.
+-- A month archived in two runs (a late training) has two rows, the queries sum them.
+CREATE TABLE IF NOT EXISTS training_archive_month (
+    id               BIGINT       NOT NULL AUTO_INCREMENT,
+    trainer_username VARCHAR(255) NOT NULL,
+    trainee_username VARCHAR(255) NOT NULL,
+    training_type_id BIGINT,
+    summary_year     INTEGER      NOT NULL,
+    summary_month    INTEGER      NOT NULL,
+    total_duration   BIGINT       NOT NULL,
+    training_count   BIGINT       NOT NULL,
+    PRIMARY KEY (id)
+);
+CREATE INDEX idx_training_archive_month_trainer ON training_archive_month (trainer_username);
@@ -0,0 +1,11 @@
+-- MySQL has no sequences, Hibernate emulates training_seq with a single-row table.
+-- With the pooled-lo optimizer next_val is the next id handed out, so it starts
+-- right after the ids already assigned by the former AUTO_INCREMENT column.
+CREATE TABLE IF NOT EXISTS training_seq (
+    next_val BIGINT
+) ENGINE = InnoDB;
+
+DELETE FROM training_seq;
+
+INSERT INTO training_seq (next_val)
+SELECT COALESCE(MAX(id), 0) + 1 FROM training;
@@ -0,0 +1,2 @@
+-- Run by Hibernate on schemas it creates (ddl-auto create / create-drop), which skip the V5 seed.
+INSERT INTO training_type (name) VALUES ('FITNESS'), ('YOGA'), ('ZUMBA'), ('STRETCHING'), ('RESISTANCE');
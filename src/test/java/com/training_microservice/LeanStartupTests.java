@@ -0,0 +1,36 @@
+package com.training_microservice;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The lean profile: schema from the migrations and validated, beans created on first use
+ * except the scheduled ones and the training repository.
+ */
+@SpringBootTest(properties = {
+        "spring.profiles.active=prod,lean",
+        // the cached prod context keeps its own schema in jdbc:h2:mem:prodDb
+        "spring.datasource.url=jdbc:h2:mem:leanDb"
+})
+class LeanStartupTests {
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Autowired
+    private ScheduledTaskHolder scheduledTaskHolder;
+
+    @Test
+    void scheduledBeansAndTheRepositoryStartEagerly() {
+        assertTrue(scheduledTaskHolder.getScheduledTasks().stream()
+                .anyMatch(task -> task.toString().contains("TrainerSummaryRebuildService.rebuildTrainerSummaries")));
+        assertTrue(context.getBeanFactory().containsSingleton("jpaTrainingRepoBean"));
+        assertFalse(context.getBeanFactory().containsSingleton("trainingRestController"));
+        assertFalse(context.containsBean("swaggerConfiguration"));
+    }
+}
@@ -0,0 +1,68 @@
+package com.training_microservice.benchmark;
+
+import com.training_microservice.config.InMemoryDurabilityProperties;
+import com.training_microservice.dao.TrainingRepo;
+import com.training_microservice.dao.inmemory.DurableTrainingStorage;
+import com.training_microservice.dao.inmemory.TrainingStorageInMemory;
+import com.training_microservice.domain.entities.Training;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Save throughput of the in-memory store with and without the write-ahead log, per
+ * fsync policy. Several threads write at once so group commit has writes to share a force.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class DurableTrainingStorageBenchmark {
+
+    @Param({"NONE", "PER_WRITE", "GROUP_COMMIT", "INTERVAL"})
+    private String fsync;
+
+    private TrainingRepo storage;
+    private TrainingDataset dataset;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataset = new TrainingDataset(TrainingDataset.Skew.UNIFORM, 500, 20_000, 42);
+        directory = Files.createTempDirectory("training-log-benchmark");
+        if (fsync.equals("NONE")) {
+            storage = new TrainingStorageInMemory();
+            return;
+        }
+        InMemoryDurabilityProperties properties = new InMemoryDurabilityProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        properties.setFsync(InMemoryDurabilityProperties.FsyncPolicy.valueOf(fsync));
+        storage = new DurableTrainingStorage(new TrainingStorageInMemory(), properties);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (storage instanceof Closeable closeable) {
+            closeable.close();
+        }
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Training save() {
+        Training training;
+        synchronized (dataset) {
+            training = dataset.nextTraining();
+        }
+        return storage.save(training);
+    }
+}
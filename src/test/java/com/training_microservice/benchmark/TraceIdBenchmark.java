@@ -0,0 +1,31 @@
+package com.training_microservice.benchmark;
+
+import com.training_microservice.config.Tracing;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trace id generation of AppMvcInterceptor on several request threads at once, against
+ * the UUID.randomUUID ids it used before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class TraceIdBenchmark {
+
+    @Benchmark
+    public String randomUuid() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public String traceId() {
+        return Tracing.newTraceId();
+    }
+}
@@ -0,0 +1,109 @@
+package com.training_microservice.benchmark;
+
+import com.training_microservice.domain.entities.Training;
+import com.training_microservice.domain.records.TrainingRecord;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic trainings for the benchmarks. Trainer popularity is either uniform or
+ * Zipf-distributed (s = 1), where a handful of trainers own most of the history.
+ */
+public final class TrainingDataset {
+
+    public enum Skew { UNIFORM, ZIPF }
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2019, 1, 1);
+    private static final int DAYS = 5 * 365;
+
+    private final Random random;
+    private final int trainers;
+    private final int trainees;
+    private final double[] trainerCdf;
+
+    public TrainingDataset(Skew skew, int trainers, int trainees, long seed) {
+        this.random = new Random(seed);
+        this.trainers = trainers;
+        this.trainees = trainees;
+        this.trainerCdf = skew == Skew.ZIPF ? zipfCdf(trainers) : null;
+    }
+
+    public String nextTrainer() {
+        return trainerUsername(nextTrainerIndex());
+    }
+
+    public String nextTrainee() {
+        return "trainee" + random.nextInt(trainees);
+    }
+
+    public static String trainerUsername(int index) {
+        return "trainer" + index;
+    }
+
+    public Training nextTraining() {
+        Training training = new Training();
+        training.setTrainerUsername(nextTrainer());
+        training.setTraineeUsername(nextTrainee());
+        training.setTrainingName("Session");
+        training.setTrainingDate(FIRST_DAY.plusDays(random.nextInt(DAYS)));
+        training.setTrainingDuration(30L + random.nextInt(90));
+        return training;
+    }
+
+    public TrainingRecord.TrainingRequest nextRequest() {
+        Training training = nextTraining();
+        return new TrainingRecord.TrainingRequest(training.getTraineeUsername(), training.getTrainerUsername(),
+                training.getTrainingName(), training.getTrainingDate(), training.getTrainingDuration(), null);
+    }
+
+    public List<Training> trainings(int size) {
+        List<Training> trainings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            trainings.add(nextTraining());
+        }
+        return trainings;
+    }
+
+    public String[] trainerLookups(int size) {
+        String[] lookups = new String[size];
+        for (int i = 0; i < size; i++) {
+            lookups[i] = nextTrainer();
+        }
+        return lookups;
+    }
+
+    public String[] traineeLookups(int size) {
+        String[] lookups = new String[size];
+        for (int i = 0; i < size; i++) {
+            lookups[i] = nextTrainee();
+        }
+        return lookups;
+    }
+
+    private int nextTrainerIndex() {
+        if (trainerCdf == null) {
+            return random.nextInt(trainers);
+        }
+        int index = java.util.Arrays.binarySearch(trainerCdf, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, trainers - 1);
+    }
+
+    /**
+     * @return the cumulative Zipf (s = 1) probabilities of ranks 0..size-1, ending at 1
+     */
+    public static double[] zipfCdf(int size) {
+        double[] cdf = new double[size];
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += 1.0 / (i + 1);
+            cdf[i] = total;
+        }
+        for (int i = 0; i < size; i++) {
+            cdf[i] /= total;
+        }
+        return cdf;
+    }
+}
@@ -0,0 +1,131 @@
+package com.training_microservice.benchmark;
+
+import com.training_microservice.domain.entities.Training;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trainer lookups against H2 in MySQL mode, on the schema built by the Flyway
+ * scripts with and without V4 (username indexes). The query plan of each variant
+ * is printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrainingIndexBenchmark {
+
+    private static final int LOOKUPS = 1024;
+    private static final String BY_TRAINER =
+            "SELECT * FROM training WHERE trainer_username = ?";
+    private static final String MONTHLY_BY_TRAINER =
+            "SELECT YEAR(training_date), MONTH(training_date), SUM(training_duration) FROM training " +
+                    "WHERE trainer_username = ? GROUP BY YEAR(training_date), MONTH(training_date)";
+
+    @Param({"200000"})
+    private int datasetSize;
+
+    @Param({"UNIFORM", "ZIPF"})
+    private TrainingDataset.Skew skew;
+
+    @Param({"false", "true"})
+    private boolean indexed;
+
+    private Connection connection;
+    private PreparedStatement byTrainer;
+    private PreparedStatement monthlyByTrainer;
+    private String[] trainerLookups;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:indexBenchmark" + skew + indexed + ";MODE=MySQL", "sa", "sa");
+        execute("db/migration/common/V1__create_training.sql");
+        if (indexed) {
+            execute("db/migration/common/V4__add_training_indexes.sql");
+        }
+
+        TrainingDataset dataset = new TrainingDataset(skew, 500, 20_000, 42);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO training (id, trainee_username, trainer_username, training_name, training_date, training_duration) " +
+                        "VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < datasetSize; i++) {
+                Training training = dataset.nextTraining();
+                insert.setLong(1, i + 1);
+                insert.setString(2, training.getTraineeUsername());
+                insert.setString(3, training.getTrainerUsername());
+                insert.setString(4, training.getTrainingName());
+                insert.setObject(5, training.getTrainingDate());
+                insert.setLong(6, training.getTrainingDuration());
+                insert.addBatch();
+                if (i % 1000 == 999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+        }
+
+        byTrainer = connection.prepareStatement(BY_TRAINER);
+        monthlyByTrainer = connection.prepareStatement(MONTHLY_BY_TRAINER);
+        trainerLookups = dataset.trainerLookups(LOOKUPS);
+        printPlan(BY_TRAINER);
+        printPlan(MONTHLY_BY_TRAINER);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void findTrainingByTrainer(Blackhole blackhole) throws SQLException {
+        consume(byTrainer, blackhole);
+    }
+
+    @Benchmark
+    public void findMonthlyDurationByTrainer(Blackhole blackhole) throws SQLException {
+        consume(monthlyByTrainer, blackhole);
+    }
+
+    private void consume(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+        statement.setString(1, trainerLookups[cursor++ & (LOOKUPS - 1)]);
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(resultSet.getObject(1));
+            }
+        }
+    }
+
+    private void execute(String script) throws IOException, SQLException {
+        String sql = StreamUtils.copyToString(new ClassPathResource(script).getInputStream(), StandardCharsets.UTF_8);
+        try (Statement statement = connection.createStatement()) {
+            for (String command : sql.replaceAll("(?m)^--.*$", "").split(";")) {
+                if (!command.isBlank()) {
+                    statement.execute(command);
+                }
+            }
+        }
+    }
+
+    private void printPlan(String query) throws SQLException {
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + query)) {
+            explain.setString(1, TrainingDataset.trainerUsername(0));
+            try (ResultSet plan = explain.executeQuery()) {
+                plan.next();
+                System.out.println("indexed=" + indexed + " plan: " + plan.getString(1).replaceAll("\\s+", " "));
+            }
+        }
+    }
+}
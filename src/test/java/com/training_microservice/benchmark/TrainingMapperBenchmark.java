@@ -0,0 +1,47 @@
+package com.training_microservice.benchmark;
+
+import com.training_microservice.dao.inmemory.TrainingTypeStorageInMemory;
+import com.training_microservice.domain.entities.Training;
+import com.training_microservice.domain.records.TrainingRecord;
+import com.training_microservice.mapper.TrainingMapper;
+import com.training_microservice.mapper.TrainingMapperImpl;
+import com.training_microservice.service.TrainingTypeCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrainingMapperBenchmark {
+
+    private final TrainingMapper trainingMapper = new TrainingMapperImpl(
+            new TrainingTypeCache(new TrainingTypeStorageInMemory()));
+    private TrainingRecord.TrainingRequest trainingRequest;
+    private Training training;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TrainingDataset dataset = new TrainingDataset(TrainingDataset.Skew.UNIFORM, 500, 20_000, 42);
+        trainingRequest = dataset.nextRequest();
+        training = dataset.nextTraining();
+    }
+
+    @Benchmark
+    public Training trainingRequestToTraining() {
+        return trainingMapper.trainingRequestToTraining(trainingRequest);
+    }
+
+    @Benchmark
+    public TrainingRecord.TraineeTrainingResponse trainingToTraineeTrainingResponse() {
+        return trainingMapper.trainingToTraineeTrainingResponse(training);
+    }
+
+    @Benchmark
+    public TrainingRecord.TrainerTrainingResponse trainingToTrainerTrainingResponse() {
+        return trainingMapper.trainingToTrainerTrainingResponse(training);
+    }
+}
@@ -0,0 +1,66 @@
+package com.training_microservice.benchmark;
+
+import com.training_microservice.dao.inmemory.TrainingStorageInMemory;
+import com.training_microservice.domain.entities.Training;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Saves from 8 threads into one in-memory store. STORE_LOCK wraps every save in one shared
+ * lock like the single store-wide write lock the store had before its trainer stripes,
+ * STRIPED saves straight into the store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class TrainingStorageContentionBenchmark {
+
+    public enum Locking { STORE_LOCK, STRIPED }
+
+    @Param({"STORE_LOCK", "STRIPED"})
+    private Locking locking;
+
+    @Param({"UNIFORM", "ZIPF"})
+    private TrainingDataset.Skew skew;
+
+    private final ReentrantLock storeLock = new ReentrantLock();
+    private final AtomicLong seeds = new AtomicLong(42);
+    private TrainingStorageInMemory storage;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        storage = new TrainingStorageInMemory();
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+
+        private TrainingDataset dataset;
+
+        @Setup(Level.Trial)
+        public void setUp(TrainingStorageContentionBenchmark benchmark) {
+            dataset = new TrainingDataset(benchmark.skew, 500, 20_000, benchmark.seeds.getAndIncrement());
+        }
+    }
+
+    @Benchmark
+    public Training save(Writer writer) {
+        Training training = writer.dataset.nextTraining();
+        if (locking == Locking.STRIPED) {
+            return storage.save(training);
+        }
+        storeLock.lock();
+        try {
+            return storage.save(training);
+        } finally {
+            storeLock.unlock();
+        }
+    }
+}
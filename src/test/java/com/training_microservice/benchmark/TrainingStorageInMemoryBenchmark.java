@@ -0,0 +1,55 @@
+package com.training_microservice.benchmark;
+
+import com.training_microservice.dao.inmemory.TrainingStorageInMemory;
+import com.training_microservice.domain.entities.Training;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrainingStorageInMemoryBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    @Param({"10000", "200000"})
+    private int datasetSize;
+
+    @Param({"UNIFORM", "ZIPF"})
+    private TrainingDataset.Skew skew;
+
+    private TrainingStorageInMemory storage;
+    private TrainingDataset dataset;
+    private String[] trainerLookups;
+    private String[] traineeLookups;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = new TrainingDataset(skew, 500, 20_000, 42);
+        storage = new TrainingStorageInMemory();
+        dataset.trainings(datasetSize).forEach(storage::save);
+        trainerLookups = dataset.trainerLookups(LOOKUPS);
+        traineeLookups = dataset.traineeLookups(LOOKUPS);
+    }
+
+    @Benchmark
+    public Training save() {
+        return storage.save(dataset.nextTraining());
+    }
+
+    @Benchmark
+    public List<Training> findTrainingByTrainer() {
+        return storage.findTrainingByTrainer(trainerLookups[cursor++ & (LOOKUPS - 1)]);
+    }
+
+    @Benchmark
+    public List<Training> findTrainingByTrainee() {
+        return storage.findTrainingByTrainee(traineeLookups[cursor++ & (LOOKUPS - 1)]);
+    }
+}
@@ -0,0 +1,79 @@
+package com.training_microservice.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.training_microservice.config.SummaryProperties;
+import com.training_microservice.dao.inmemory.TraineeSummaryStorageInMemory;
+import com.training_microservice.dao.inmemory.TrainerSummaryStorageInMemory;
+import com.training_microservice.dao.inmemory.TrainingArchiveStorageInMemory;
+import com.training_microservice.dao.inmemory.TrainingStorageInMemory;
+import com.training_microservice.dao.inmemory.TrainingTypeStorageInMemory;
+import com.training_microservice.domain.records.TrainingRecord;
+import com.training_microservice.mapper.TrainingMapperImpl;
+import com.training_microservice.service.SummaryWriteGate;
+import com.training_microservice.service.TrainingService;
+import com.training_microservice.service.TrainingTypeCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrainingSummaryBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    @Param({"10000", "200000"})
+    private int datasetSize;
+
+    @Param({"UNIFORM", "ZIPF"})
+    private TrainingDataset.Skew skew;
+
+    /** "none" measures the aggregation itself, "caffeine" the cached read path. */
+    @Param({"none", "caffeine"})
+    private String cache;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private TrainingService trainingService;
+    private String[] trainerLookups;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TrainingDataset dataset = new TrainingDataset(skew, 500, 20_000, 42);
+        Cache trainerSummaryCache = "caffeine".equals(cache)
+                ? new CaffeineCache("trainerSummaries", Caffeine.newBuilder().maximumSize(10_000).build())
+                : new NoOpCache("trainerSummaries");
+        TrainingTypeCache trainingTypeCache = new TrainingTypeCache(new TrainingTypeStorageInMemory());
+        TrainingStorageInMemory trainingStorage = new TrainingStorageInMemory();
+        trainingService = new TrainingService(new TrainingMapperImpl(trainingTypeCache), trainingStorage,
+                new TrainingArchiveStorageInMemory(trainingStorage), new TrainerSummaryStorageInMemory(),
+                new TraineeSummaryStorageInMemory(), trainerSummaryCache, new SimpleMeterRegistry(),
+                new SummaryProperties(), trainingTypeCache, new SummaryWriteGate());
+        trainingService.saveTrainings(dataset.trainings(datasetSize));
+        trainerLookups = dataset.trainerLookups(LOOKUPS);
+    }
+
+    @Benchmark
+    public ResponseEntity<TrainingRecord.TrainerTrainingSummary> getTrainingSummaryByTrainer() {
+        return trainingService.getTrainingSummaryByTrainer(trainerLookups[cursor++ & (LOOKUPS - 1)]);
+    }
+
+    /**
+     * The summary request as the controller serves it, aggregation plus the JSON body.
+     */
+    @Benchmark
+    public byte[] getTrainingSummaryJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(getTrainingSummaryByTrainer().getBody());
+    }
+}
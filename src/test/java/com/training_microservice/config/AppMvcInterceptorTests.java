@@ -0,0 +1,84 @@
+package com.training_microservice.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AppMvcInterceptorTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AppMvcInterceptor interceptor = new AppMvcInterceptor(meterRegistry);
+
+    @AfterEach
+    void clearMdc() {
+        MDC.clear();
+    }
+
+    @Test
+    void traceIdIsGeneratedEchoedAndClearedAfterCompletion() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/training/trainer/john");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        interceptor.preHandle(request, response, null);
+        String traceId = MDC.get(Tracing.TRACE_ID_KEY);
+        assertTrue(traceId.matches("[0-9a-f]{16}"));
+        assertEquals(traceId, response.getHeader(Tracing.TRACE_HEADER));
+
+        interceptor.afterCompletion(request, response, null, null);
+        assertNull(MDC.get(Tracing.TRACE_ID_KEY));
+
+        // the async redispatch of the same request keeps its id
+        interceptor.preHandle(request, response, null);
+        assertEquals(traceId, MDC.get(Tracing.TRACE_ID_KEY));
+    }
+
+    @Test
+    void onlyWellFormedTraceHeadersAreKept() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/training/trainer/john");
+        request.addHeader(Tracing.TRACE_HEADER, "client-trace.1");
+        interceptor.preHandle(request, new MockHttpServletResponse(), null);
+        assertEquals("client-trace.1", MDC.get(Tracing.TRACE_ID_KEY));
+
+        MockHttpServletRequest forged = new MockHttpServletRequest("GET", "/training/trainer/john");
+        forged.addHeader(Tracing.TRACE_HEADER, "abc\nFAKE LOG LINE");
+        interceptor.preHandle(forged, new MockHttpServletResponse(), null);
+        assertNotEquals("abc\nFAKE LOG LINE", MDC.get(Tracing.TRACE_ID_KEY));
+    }
+
+    @Test
+    void servicePhasesAreRecordedPerHandlerPattern() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/training/trainer/john");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/training/trainer/{trainerUsername}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        interceptor.preHandle(request, response, null);
+        RequestTrace.current().serviceNanos = 5_000_000;
+        RequestTrace.current().repositoryNanos = 3_000_000;
+        interceptor.afterCompletion(request, response, null, null);
+
+        assertNull(RequestTrace.current());
+        assertEquals(3.0, meterRegistry.get("training.request.phase")
+                .tag("uri", "/training/trainer/{trainerUsername}").tag("phase", "repository")
+                .timer().totalTime(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void decoratedTasksRunWithTheCallersContext() throws InterruptedException {
+        MDC.put(Tracing.TRACE_ID_KEY, "request-1");
+        AtomicReference<String> seen = new AtomicReference<>();
+        Thread worker = new Thread(Tracing.withCurrentContext(() -> seen.set(MDC.get(Tracing.TRACE_ID_KEY))));
+        worker.start();
+        worker.join();
+
+        assertEquals("request-1", seen.get());
+    }
+}
@@ -0,0 +1,47 @@
+package com.training_microservice.dao;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the Flyway migrations on H2 and lets Hibernate validate the entities against them.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+class SchemaMigrationTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void migrationsMatchEntitiesAndCreateUsernameIndexes() {
+        Integer indexes = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME IN " +
+                        "('IDX_TRAINING_TRAINER_DATE', 'IDX_TRAINING_TRAINEE_DATE')", Integer.class);
+        assertThat(indexes).isEqualTo(2);
+    }
+
+    @Test
+    void trainingTypesAreSeededAndIndexedWithTheTrainer() {
+        Integer indexes = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = 'IDX_TRAINING_TRAINER_TYPE_DATE'",
+                Integer.class);
+        assertThat(indexes).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM training_type ORDER BY id", String.class))
+                .containsExactly("FITNESS", "YOGA", "ZUMBA", "STRETCHING", "RESISTANCE");
+    }
+
+    @Test
+    void traineeSummaryMonthIsUnique() {
+        Integer constraints = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS WHERE CONSTRAINT_NAME = 'UK_TRAINEE_SUMMARY_MONTH'",
+                Integer.class);
+        assertThat(constraints).isEqualTo(1);
+    }
+}
@@ -0,0 +1,57 @@
+package com.training_microservice.dao;
+
+import com.training_microservice.domain.entities.TrainerMonthlySummary;
+import com.training_microservice.domain.records.TrainingRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest
+class TrainerSummaryRepositoryTests {
+
+    @Autowired
+    private TrainerSummaryRepository trainerSummaryRepository;
+
+    @Test
+    void summaryVersionStartsAtTheCurrentTimeAndIncrements() {
+        long before = System.currentTimeMillis();
+        assertThat(trainerSummaryRepository.findSummaryVersion("john")).isNull();
+
+        trainerSummaryRepository.bumpSummaryVersion("john");
+        Long first = trainerSummaryRepository.findSummaryVersion("john");
+        trainerSummaryRepository.bumpSummaryVersion("john");
+
+        assertThat(first).isGreaterThanOrEqualTo(before);
+        assertThat(trainerSummaryRepository.findSummaryVersion("john")).isEqualTo(first + 1);
+        assertThat(trainerSummaryRepository.findSummaryVersion("kate")).isNull();
+    }
+
+    @Test
+    void upsertOpensTheMonthAndThenAddsToIt() {
+        trainerSummaryRepository.upsertTrainingDuration("john", 2024, 1, 60L);
+        trainerSummaryRepository.upsertTrainingDuration("john", 2024, 1, 30L);
+        trainerSummaryRepository.upsertTrainingDuration("john", 2024, 2, 45L);
+
+        assertThat(trainerSummaryRepository.findSummaryByTrainer("john"))
+                .extracting(TrainerMonthlySummary::getSummaryMonth, TrainerMonthlySummary::getTotalDuration)
+                .containsExactlyInAnyOrder(tuple(1, 90L), tuple(2, 45L));
+    }
+
+    @Test
+    void streamReadsEveryMonthAcrossPages() {
+        for (int i = 0; i < 1200; i++) {
+            trainerSummaryRepository.upsertTrainingDuration("trainer" + i % 2, 1900 + i / 24, i / 2 % 12 + 1, 10L);
+        }
+
+        try (Stream<TrainingRecord.TrainerMonthlyDuration> months = trainerSummaryRepository.streamMonthlyDurations()) {
+            assertThat(months.map(month -> month.trainerUsername() + "-" + month.year() + "-" + month.month()))
+                    .hasSize(1200)
+                    .doesNotHaveDuplicates();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.training_microservice.dao;
+
+import com.training_microservice.domain.entities.Training;
+import com.training_microservice.domain.entities.TrainingArchiveMonth;
+import com.training_microservice.domain.records.TrainingRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.training_microservice.dao.TrainingRepositoryTests.training;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class TrainingArchiveRepositoryTests {
+
+    @Autowired
+    private TrainingRepository trainingRepository;
+
+    @Autowired
+    private TrainingArchiveRepository trainingArchiveRepository;
+
+    @Test
+    void trainingsBeforeTheDayMoveToTheArchive() {
+        trainingRepository.saveAll(List.of(
+                training("john", LocalDate.of(2023, 6, 3), 60L),
+                training("john", LocalDate.of(2023, 6, 20), 30L),
+                training("john", LocalDate.of(2024, 1, 1), 15L)));
+        LocalDate before = LocalDate.of(2024, 1, 1);
+
+        assertThat(trainingRepository.findMonthlyAggregatesBefore(before)).containsExactly(
+                new TrainingRecord.TrainingMonthlyAggregate("john", "anna", null, 2023, 6, 90L, 2L));
+        assertThat(trainingArchiveRepository.archiveTrainingsBefore(before)).isEqualTo(2);
+        assertThat(trainingRepository.deleteTrainingsBefore(before)).isEqualTo(2);
+
+        assertThat(trainingRepository.findAll()).hasSize(1);
+        assertThat(trainingArchiveRepository.deleteArchivedTrainingByTrainerUsername("john")).isEqualTo(2);
+    }
+
+    @Test
+    void archivedTrainingsArePagedAndKeepTheirIdempotencyKeys() {
+        Training keyed = training("john", LocalDate.of(2023, 6, 20), 30L);
+        keyed.setIdempotencyKey("request-1");
+        trainingRepository.saveAll(List.of(training("john", LocalDate.of(2023, 6, 3), 60L), keyed));
+        trainingArchiveRepository.archiveTrainingsBefore(LocalDate.of(2024, 1, 1));
+        Training first = trainingRepository.findAll().get(0);
+
+        assertThat(trainingArchiveRepository.findTrainingPageByTrainer("john", null, null, null,
+                first.getTrainingDate(), first.getId(), PageRequest.of(0, 10))).containsExactly(keyed);
+        try (Stream<TrainingRecord.TraineeTrainingResponse> export =
+                     trainingArchiveRepository.streamTrainingByTrainee("anna", LocalDate.of(2023, 6, 10), null, null)) {
+            assertThat(export).containsExactly(
+                    new TrainingRecord.TraineeTrainingResponse("Session", LocalDate.of(2023, 6, 20), "john", 30L));
+        }
+        assertThat(trainingArchiveRepository.findIdempotencyKeys(List.of("request-1", "request-2")))
+                .containsExactly("request-1");
+    }
+
+    @Test
+    void archivedMonthsAreSummedAcrossRuns() {
+        trainingArchiveRepository.saveAll(List.of(
+                new TrainingArchiveMonth(null, "john", "anna", 2L, 2023, 6, 90L, 2L),
+                new TrainingArchiveMonth(null, "john", "anna", 2L, 2023, 6, 10L, 1L),
+                new TrainingArchiveMonth(null, "john", "mark", null, 2023, 6, 15L, 1L),
+                new TrainingArchiveMonth(null, "kate", "anna", null, 2023, 7, 45L, 1L)));
+
+        assertThat(trainingArchiveRepository.findMonthlyDurationByTrainer("john")).containsExactly(
+                new TrainingRecord.TrainerMonthlyDuration("john", 2023, 6, 115L));
+        assertThat(trainingArchiveRepository.findMonthlyDurationByTrainers(List.of("john", "kate"))).hasSize(2);
+        assertThat(trainingArchiveRepository.findMonthlyTypeDurationByTrainer("john")).containsExactlyInAnyOrder(
+                new TrainingRecord.TrainerMonthlyTypeDuration("john", 2023, 6, 2L, 100L),
+                new TrainingRecord.TrainerMonthlyTypeDuration("john", 2023, 6, null, 15L));
+        assertThat(trainingArchiveRepository.findTraineeMonthlyDurations()).containsExactlyInAnyOrder(
+                new TrainingRecord.TraineeMonthlyDuration("anna", 2023, 6, 100L, 3L),
+                new TrainingRecord.TraineeMonthlyDuration("mark", 2023, 6, 15L, 1L),
+                new TrainingRecord.TraineeMonthlyDuration("anna", 2023, 7, 45L, 1L));
+
+        trainingArchiveRepository.deleteArchivedMonthByTrainerUsername("john");
+        assertThat(trainingArchiveRepository.findMonthlyDurations()).containsExactly(
+                new TrainingRecord.TrainerMonthlyDuration("kate", 2023, 7, 45L));
+    }
+}
@@ -0,0 +1,141 @@
+package com.training_microservice.dao;
+
+import com.training_microservice.domain.entities.Training;
+import com.training_microservice.domain.records.TrainingRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+class TrainingRepositoryTests {
+
+    @Autowired
+    private TrainingRepository trainingRepository;
+
+    @Test
+    void findMonthlyDurationByTrainerGroupsByYearAndMonth() {
+        trainingRepository.saveAll(List.of(
+                training("john", LocalDate.of(2024, 1, 3), 60L),
+                training("john", LocalDate.of(2024, 1, 20), 30L),
+                training("john", LocalDate.of(2023, 1, 20), 15L),
+                training("kate", LocalDate.of(2024, 1, 20), 45L)));
+
+        List<TrainingRecord.TrainerMonthlyDuration> durations = trainingRepository.findMonthlyDurationByTrainer("john");
+
+        assertThat(durations).containsExactlyInAnyOrder(
+                new TrainingRecord.TrainerMonthlyDuration("john", 2024, 1, 90L),
+                new TrainingRecord.TrainerMonthlyDuration("john", 2023, 1, 15L));
+        assertThat(trainingRepository.findMonthlyDurations()).hasSize(3);
+    }
+
+    @Test
+    void findMonthlyDurationByTrainersGroupsOnlyTheRequestedTrainers() {
+        trainingRepository.saveAll(List.of(
+                training("john", LocalDate.of(2024, 1, 3), 60L),
+                training("john", LocalDate.of(2024, 1, 20), 30L),
+                training("kate", LocalDate.of(2024, 2, 20), 45L),
+                training("mark", LocalDate.of(2024, 1, 20), 15L)));
+
+        assertThat(trainingRepository.findMonthlyDurationByTrainers(List.of("john", "kate", "nobody")))
+                .containsExactlyInAnyOrder(
+                        new TrainingRecord.TrainerMonthlyDuration("john", 2024, 1, 90L),
+                        new TrainingRecord.TrainerMonthlyDuration("kate", 2024, 2, 45L));
+    }
+
+    @Test
+    void findMonthlyTypeDurationByTrainerGroupsByTypeAndMonth() {
+        Training yoga = training("john", LocalDate.of(2024, 1, 3), 60L);
+        yoga.setTrainingTypeId(2L);
+        Training moreYoga = training("john", LocalDate.of(2024, 1, 20), 30L);
+        moreYoga.setTrainingTypeId(2L);
+        Training zumba = training("john", LocalDate.of(2024, 1, 21), 45L);
+        zumba.setTrainingTypeId(3L);
+        trainingRepository.saveAll(List.of(yoga, moreYoga, zumba,
+                training("john", LocalDate.of(2024, 1, 22), 15L),
+                training("kate", LocalDate.of(2024, 1, 22), 15L)));
+
+        assertThat(trainingRepository.findMonthlyTypeDurationByTrainer("john")).containsExactlyInAnyOrder(
+                new TrainingRecord.TrainerMonthlyTypeDuration("john", 2024, 1, 2L, 90L),
+                new TrainingRecord.TrainerMonthlyTypeDuration("john", 2024, 1, 3L, 45L),
+                new TrainingRecord.TrainerMonthlyTypeDuration("john", 2024, 1, null, 15L));
+    }
+
+    @Test
+    void findTraineeMonthlyDurationsGroupByTraineeAndMonthWithCounts() {
+        Training mark = training("john", LocalDate.of(2024, 1, 20), 30L);
+        mark.setTraineeUsername("mark");
+        trainingRepository.saveAll(List.of(
+                training("john", LocalDate.of(2024, 1, 3), 60L),
+                training("john", LocalDate.of(2024, 1, 20), 30L),
+                mark,
+                training("kate", LocalDate.of(2024, 1, 20), 45L)));
+
+        assertThat(trainingRepository.findTraineeMonthlyDurationByTrainer("john")).containsExactlyInAnyOrder(
+                new TrainingRecord.TraineeMonthlyDuration("anna", 2024, 1, 90L, 2L),
+                new TrainingRecord.TraineeMonthlyDuration("mark", 2024, 1, 30L, 1L));
+        assertThat(trainingRepository.findTraineeMonthlyDurations()).containsExactlyInAnyOrder(
+                new TrainingRecord.TraineeMonthlyDuration("anna", 2024, 1, 135L, 3L),
+                new TrainingRecord.TraineeMonthlyDuration("mark", 2024, 1, 30L, 1L));
+    }
+
+    @Test
+    void idempotencyKeyIsUnique() {
+        Training first = training("john", LocalDate.of(2024, 1, 3), 60L);
+        first.setIdempotencyKey("request-1");
+        trainingRepository.saveAndFlush(first);
+
+        Training retried = training("john", LocalDate.of(2024, 1, 3), 60L);
+        retried.setIdempotencyKey("request-1");
+        assertThatThrownBy(() -> trainingRepository.saveAndFlush(retried))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void deleteTrainingByTrainerUsernameReturnsRemovedRows() {
+        trainingRepository.saveAll(List.of(
+                training("john", LocalDate.of(2024, 1, 3), 60L),
+                training("john", LocalDate.of(2024, 2, 3), 60L),
+                training("kate", LocalDate.of(2024, 1, 20), 45L)));
+
+        assertThat(trainingRepository.deleteTrainingByTrainerUsername("john")).isEqualTo(2);
+        assertThat(trainingRepository.findTrainingByTrainer("john")).isEmpty();
+        assertThat(trainingRepository.findTrainingByTrainer("kate")).hasSize(1);
+    }
+
+    @Test
+    void findTrainingPageByTrainerContinuesAfterKeyset() {
+        List<Training> saved = trainingRepository.saveAll(List.of(
+                training("john", LocalDate.of(2024, 3, 1), 60L),
+                training("john", LocalDate.of(2024, 1, 1), 30L),
+                training("john", LocalDate.of(2024, 1, 1), 15L),
+                training("john", LocalDate.of(2023, 6, 1), 45L),
+                training("kate", LocalDate.of(2024, 1, 1), 45L)));
+
+        List<Training> first = trainingRepository.findTrainingPageByTrainer("john",
+                LocalDate.of(2024, 1, 1), null, null, null, null, PageRequest.of(0, 2));
+        assertThat(first).containsExactly(saved.get(1), saved.get(2));
+
+        Training last = first.get(1);
+        List<Training> next = trainingRepository.findTrainingPageByTrainer("john",
+                LocalDate.of(2024, 1, 1), null, null, last.getTrainingDate(), last.getId(), PageRequest.of(0, 2));
+        assertThat(next).containsExactly(saved.get(0));
+    }
+
+    static Training training(String trainerUsername, LocalDate trainingDate, Long trainingDuration) {
+        Training training = new Training();
+        training.setTrainerUsername(trainerUsername);
+        training.setTraineeUsername("anna");
+        training.setTrainingName("Session");
+        training.setTrainingDate(trainingDate);
+        training.setTrainingDuration(trainingDuration);
+        return training;
+    }
+}
@@ -0,0 +1,210 @@
+package com.training_microservice.dao.inmemory;
+
+import com.training_microservice.config.InMemoryDurabilityProperties;
+import com.training_microservice.domain.entities.Training;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurableTrainingStorageTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopenReplaysSavesAndDeletes() throws IOException {
+        InMemoryDurabilityProperties properties = properties(InMemoryDurabilityProperties.FsyncPolicy.GROUP_COMMIT);
+        Training kept;
+        try (DurableTrainingStorage storage = open(properties)) {
+            Training keyed = training("john", "anna", 60L);
+            keyed.setIdempotencyKey("request-1");
+            kept = storage.save(keyed);
+            storage.save(training("kate", "anna", null));
+            storage.deleteTrainingByTrainerUsername("kate");
+            Training archived = training("john", "mark", 30L);
+            archived.setTrainingDate(LocalDate.of(2023, 6, 1));
+            storage.save(archived);
+            assertEquals(1, storage.deleteTrainingsBefore(LocalDate.of(2024, 1, 1)));
+            kept.setTrainingName("Renamed");
+            storage.save(kept);
+        }
+
+        try (DurableTrainingStorage storage = open(properties)) {
+            assertEquals(List.of(kept), storage.findAll());
+            assertTrue(storage.findTrainingByTrainer("kate").isEmpty());
+            assertTrue(storage.findTrainingByTrainee("mark").isEmpty());
+            Training retried = training("john", "anna", 60L);
+            retried.setIdempotencyKey("request-1");
+            assertThrows(DataIntegrityViolationException.class, () -> storage.save(retried));
+            // the id sequence continues after the recovered ids
+            assertTrue(storage.save(training("john", "mark", 30L)).getId() > kept.getId());
+        }
+    }
+
+    @Test
+    void recordsCrossRegionsAndSurviveCompaction() throws IOException {
+        InMemoryDurabilityProperties properties = properties(InMemoryDurabilityProperties.FsyncPolicy.INTERVAL);
+        try (DurableTrainingStorage storage = open(properties)) {
+            for (int i = 0; i < 300; i++) {
+                storage.save(training("trainer" + i % 7, "trainee" + i, (long) i));
+            }
+            storage.compact();
+            for (int i = 300; i < 500; i++) {
+                storage.save(training("trainer" + i % 7, "trainee" + i, (long) i));
+            }
+            storage.deleteTrainingByTrainerUsername("trainer0");
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of("snapshot-0000000000000002.bin", "wal-0000000000000002.log"),
+                    files.map(path -> path.getFileName().toString()).sorted().toList());
+        }
+        try (DurableTrainingStorage storage = open(properties)) {
+            assertEquals(500 - 72, storage.findAll().size());
+            assertTrue(storage.findTrainingByTrainer("trainer0").isEmpty());
+            assertEquals(71, storage.findTrainingByTrainer("trainer3").size());
+        }
+    }
+
+    @Test
+    void snapshotTakenDuringWritesReplaysAReusedIdempotencyKey() throws IOException {
+        InMemoryDurabilityProperties properties = properties(InMemoryDurabilityProperties.FsyncPolicy.PER_WRITE);
+        Training second;
+        try (DurableTrainingStorage storage = open(properties)) {
+            storage.save(training("kate", "anna", 30L));
+            long generation = storage.rotateLog();
+            Training first = training("john", "anna", 60L);
+            first.setIdempotencyKey("request-1");
+            storage.save(first);
+            storage.deleteTrainingByTrainerUsername("john");
+            second = training("john", "anna", 60L);
+            second.setIdempotencyKey("request-1");
+            storage.save(second);
+            // the snapshot already holds the second save, the log replays all three writes over it
+            storage.writeSnapshot(generation);
+        }
+
+        try (DurableTrainingStorage storage = open(properties)) {
+            assertEquals(List.of(second), storage.findTrainingByTrainer("john"));
+            assertEquals(1, storage.findTrainingByTrainer("kate").size());
+            Training retried = training("john", "anna", 60L);
+            retried.setIdempotencyKey("request-1");
+            assertThrows(DataIntegrityViolationException.class, () -> storage.save(retried));
+        }
+    }
+
+    @Test
+    void tornTailIsDroppedAndAppendingResumes() throws IOException {
+        InMemoryDurabilityProperties properties = properties(InMemoryDurabilityProperties.FsyncPolicy.PER_WRITE);
+        try (DurableTrainingStorage storage = open(properties)) {
+            storage.save(training("john", "anna", 60L));
+            storage.save(training("john", "mark", 60L));
+        }
+        Path logFile = directory.resolve("wal-0000000000000001.log");
+        try (RandomAccessFile file = new RandomAccessFile(logFile.toFile(), "rw")) {
+            // corrupt the last payload byte of the second record, as a crash mid-write would
+            long tailOffset = lastRecordEnd(file) - 1;
+            file.seek(tailOffset);
+            int lastByte = file.read();
+            file.seek(tailOffset);
+            file.write(lastByte ^ 0xFF);
+        }
+
+        try (DurableTrainingStorage storage = open(properties)) {
+            assertEquals(1, storage.findAll().size());
+            storage.save(training("john", "kate", 60L));
+        }
+        try (DurableTrainingStorage storage = open(properties)) {
+            assertEquals(2, storage.findTrainingByTrainer("john").size());
+            assertEquals(1, storage.findTrainingByTrainee("kate").size());
+        }
+    }
+
+    @Test
+    void logReplaysConcurrentWritesInTheOrderTheyWereApplied() throws Exception {
+        InMemoryDurabilityProperties properties = properties(InMemoryDurabilityProperties.FsyncPolicy.GROUP_COMMIT);
+        DurableTrainingStorage storage = open(properties);
+        Training shared = storage.save(training("john", "anna", 60L));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < 4; writer++) {
+                int name = writer;
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        Training update = training("john", "anna", 60L);
+                        update.setId(shared.getId());
+                        update.setTrainingName("Writer " + name + " update " + i);
+                        storage.save(update);
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        List<Training> beforeClose = storage.findAll();
+        storage.close();
+        // a closed log refuses the write before the store changes
+        assertThrows(IllegalStateException.class, () -> storage.save(training("kate", "anna", 30L)));
+        assertEquals(beforeClose, storage.findAll());
+
+        try (DurableTrainingStorage reopened = open(properties)) {
+            assertEquals(beforeClose, reopened.findAll());
+        }
+    }
+
+    private DurableTrainingStorage open(InMemoryDurabilityProperties properties) throws IOException {
+        return new DurableTrainingStorage(new TrainingStorageInMemory(), properties);
+    }
+
+    private InMemoryDurabilityProperties properties(InMemoryDurabilityProperties.FsyncPolicy fsyncPolicy) {
+        InMemoryDurabilityProperties properties = new InMemoryDurabilityProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        properties.setFsync(fsyncPolicy);
+        properties.setRegionSize(DataSize.ofKilobytes(4));
+        return properties;
+    }
+
+    private static long lastRecordEnd(RandomAccessFile file) throws IOException {
+        long position = 12;
+        long end = position;
+        while (true) {
+            file.seek(position);
+            int length = file.readInt();
+            if (length <= 0) {
+                return end;
+            }
+            position += 8 + length;
+            end = position;
+        }
+    }
+
+    private static Training training(String trainer, String trainee, Long duration) {
+        Training training = new Training();
+        training.setTrainerUsername(trainer);
+        training.setTraineeUsername(trainee);
+        training.setTrainingName("Session");
+        training.setTrainingDate(LocalDate.of(2024, 1, 15));
+        training.setTrainingDuration(duration);
+        return training;
+    }
+}
@@ -0,0 +1,46 @@
+package com.training_microservice.dao.inmemory;
+
+import com.training_microservice.domain.entities.TrainerMonthlySummary;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrainerSummaryStorageInMemoryTests {
+
+    private final TrainerSummaryStorageInMemory storage = new TrainerSummaryStorageInMemory();
+
+    @Test
+    void concurrentFirstTrainingsOfAMonthAllCount() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 4000; i++) {
+            int month = 1 + i % 4;
+            executor.execute(() -> storage.upsertTrainingDuration("trainer" + month % 2, 2024, month, 10L));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        List<TrainerMonthlySummary> summaries = storage.findAll();
+        assertEquals(4, summaries.size());
+        summaries.forEach(summary -> assertEquals(10_000L, summary.getTotalDuration()));
+    }
+
+    @Test
+    void aSecondNewRowForTheMonthIsRejected() {
+        TrainerMonthlySummary saved = storage.save(new TrainerMonthlySummary(null, "john", 2024, 1, 60L));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> storage.save(new TrainerMonthlySummary(null, "john", 2024, 1, 30L)));
+        saved.setTotalDuration(90L);
+        storage.save(saved);
+        assertEquals(1, storage.addTrainingDuration("john", 2024, 1, 10L));
+        assertEquals(0, storage.addTrainingDuration("john", 2024, 2, 10L));
+        assertEquals(List.of(saved), storage.findSummaryByTrainer("john"));
+        assertEquals(100L, saved.getTotalDuration());
+    }
+}
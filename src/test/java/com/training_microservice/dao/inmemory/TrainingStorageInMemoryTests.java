@@ -0,0 +1,352 @@
+package com.training_microservice.dao.inmemory;
+
+import com.training_microservice.domain.entities.Training;
+import com.training_microservice.domain.records.TrainingRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrainingStorageInMemoryTests {
+
+    private final TrainingStorageInMemory storage = new TrainingStorageInMemory();
+
+    @Test
+    void saveAssignsIdsAndIndexesByUsername() {
+        Training first = storage.save(training("john", "anna"));
+        Training second = storage.save(training("john", "mark"));
+        storage.save(training("kate", "anna"));
+
+        assertNotNull(first.getId());
+        assertNotEquals(first.getId(), second.getId());
+        assertEquals(3, storage.findAll().size());
+        assertEquals(2, storage.findTrainingByTrainer("john").size());
+        assertEquals(2, storage.findTrainingByTrainee("anna").size());
+        assertTrue(storage.findTrainingByTrainer("nobody").isEmpty());
+    }
+
+    @Test
+    void updateMovesTrainingBetweenIndexes() {
+        Training saved = storage.save(training("john", "anna"));
+
+        Training moved = training("kate", "mark");
+        moved.setId(saved.getId());
+        storage.save(moved);
+
+        assertTrue(storage.findTrainingByTrainer("john").isEmpty());
+        assertTrue(storage.findTrainingByTrainee("anna").isEmpty());
+        assertEquals(List.of(moved), storage.findTrainingByTrainer("kate"));
+        assertEquals(List.of(moved), storage.findTrainingByTrainee("mark"));
+        assertEquals(1, storage.findAll().size());
+    }
+
+    @Test
+    void deleteByTrainerCleansTraineeIndex() {
+        storage.save(training("john", "anna"));
+        storage.save(training("john", "mark"));
+        Training kept = storage.save(training("kate", "anna"));
+
+        assertEquals(2, storage.deleteTrainingByTrainerUsername("john"));
+        assertEquals(0, storage.deleteTrainingByTrainerUsername("john"));
+
+        assertTrue(storage.findTrainingByTrainer("john").isEmpty());
+        assertTrue(storage.findTrainingByTrainee("mark").isEmpty());
+        assertEquals(List.of(kept), storage.findTrainingByTrainee("anna"));
+        assertEquals(1, storage.findAll().size());
+    }
+
+    @Test
+    void concurrentSavesKeepEveryTraining() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 4000; i++) {
+            String trainer = "trainer" + (i % 10);
+            String trainee = "trainee" + (i % 37);
+            executor.execute(() -> storage.save(training(trainer, trainee)));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(4000, storage.findAll().size());
+        assertEquals(400, storage.findTrainingByTrainer("trainer3").size());
+    }
+
+    @Test
+    void traineePagesMergeTheStripesOfTheirTrainers() {
+        List<Training> saved = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Training training = training("trainer" + i % 40, "anna");
+            training.setTrainingDate(LocalDate.of(2024, 1, 1).plusDays(i % 7));
+            saved.add(storage.save(training));
+        }
+        saved.sort(Comparator.comparing(Training::getTrainingDate).thenComparing(Training::getId));
+
+        List<Training> walked = new ArrayList<>();
+        List<Training> page = storage.findTrainingPageByTrainee("anna", null, null, null, null, null,
+                PageRequest.of(0, 9));
+        while (!page.isEmpty()) {
+            walked.addAll(page);
+            Training last = page.get(page.size() - 1);
+            page = storage.findTrainingPageByTrainee("anna", null, null, null, last.getTrainingDate(), last.getId(),
+                    PageRequest.of(0, 9));
+        }
+        assertEquals(saved, walked);
+        assertEquals(saved.stream().map(Training::getId).toList(), storage.findTrainingByTrainee("anna").stream()
+                .map(Training::getId).toList());
+        assertEquals(100, storage.streamTrainingByTrainee("anna", null, null, null).count());
+        assertEquals(List.of(new TrainingRecord.TraineeMonthlyDuration("anna", 2024, 1, 6000L, 100L)),
+                storage.findTraineeMonthlyDurations());
+    }
+
+    @Test
+    void concurrentUpdatesMoveTrainingsAcrossStripesWithoutDuplicates() throws InterruptedException {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add(storage.save(training("trainer" + i, "anna")).getId());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 4000; i++) {
+            Training moved = training("trainer" + i % 37, "trainee" + i % 11);
+            moved.setId(ids.get(i % ids.size()));
+            executor.execute(() -> storage.save(moved));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(ids.stream().sorted().toList(),
+                storage.findAll().stream().map(Training::getId).sorted().toList());
+        for (Long id : ids) {
+            Training training = storage.findById(id).orElseThrow();
+            assertTrue(storage.findTrainingByTrainer(training.getTrainerUsername()).contains(training));
+        }
+    }
+
+    @Test
+    void trainingPageFollowsDateAndIdKeyset() {
+        Training late = training("john", "anna");
+        late.setTrainingDate(LocalDate.of(2024, 3, 1));
+        storage.save(late);
+        Training first = storage.save(training("john", "anna"));
+        Training second = storage.save(training("john", "anna"));
+
+        List<Training> page = storage.findTrainingPageByTrainee("anna", null, null, null,
+                null, null, PageRequest.of(0, 2));
+        assertEquals(List.of(first, second), page);
+
+        List<Training> next = storage.findTrainingPageByTrainee("anna", null, null, null,
+                second.getTrainingDate(), second.getId(), PageRequest.of(0, 2));
+        assertEquals(List.of(late), next);
+        assertEquals(1, storage.streamTrainingByTrainer("john", LocalDate.of(2024, 2, 1), null, null).count());
+    }
+
+    @Test
+    void pagesWalkTheRowsInDateAndIdOrderAfterUpdatesAndDeletes() {
+        Random random = new Random(7);
+        List<Training> saved = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Training training = training(i % 3 == 0 ? "kate" : "john", "anna");
+            training.setTrainingDate(LocalDate.of(2024, 1, 1).plusDays(random.nextInt(60)));
+            saved.add(storage.save(training));
+        }
+        for (int i = 0; i < 100; i++) {
+            Training moved = saved.get(random.nextInt(saved.size()));
+            moved.setTrainingDate(LocalDate.of(2024, 1, 1).plusDays(random.nextInt(60)));
+            storage.save(moved);
+        }
+        storage.deleteTrainingByTrainerUsername("kate");
+        LocalDate from = LocalDate.of(2024, 1, 10);
+        LocalDate to = LocalDate.of(2024, 2, 10);
+        List<Training> expected = saved.stream()
+                .filter(training -> training.getTrainerUsername().equals("john"))
+                .filter(training -> !training.getTrainingDate().isBefore(from) && !training.getTrainingDate().isAfter(to))
+                .sorted(Comparator.comparing(Training::getTrainingDate).thenComparing(Training::getId))
+                .toList();
+
+        List<Training> walked = new ArrayList<>();
+        List<Training> page = storage.findTrainingPageByTrainee("anna", from, to, null, null, null, PageRequest.of(0, 7));
+        while (!page.isEmpty()) {
+            walked.addAll(page);
+            Training last = page.get(page.size() - 1);
+            page = storage.findTrainingPageByTrainee("anna", from, to, null,
+                    last.getTrainingDate(), last.getId(), PageRequest.of(0, 7));
+        }
+
+        assertEquals(expected, walked);
+        assertEquals(expected.size(), storage.streamTrainingByTrainer("john", from, to, null).count());
+    }
+
+    @Test
+    void streamReadsChunksWithoutHoldingTheLock() {
+        for (int i = 0; i < 600; i++) {
+            Training training = training("john", "anna");
+            training.setTrainingDate(LocalDate.of(2024, 1, 1).plusDays(i % 300));
+            storage.save(training);
+        }
+        Iterator<TrainingRecord.TrainerTrainingResponse> rows =
+                storage.streamTrainingByTrainer("john", null, null, null).iterator();
+        List<LocalDate> dates = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            dates.add(rows.next().trainingDate());
+        }
+
+        // the write would deadlock if the stream still held the read lock
+        Training late = training("john", "anna");
+        late.setTrainingDate(LocalDate.of(2030, 1, 1));
+        storage.save(late);
+        rows.forEachRemaining(row -> dates.add(row.trainingDate()));
+
+        assertEquals(601, dates.size());
+        assertEquals(dates.stream().sorted().toList(), dates);
+    }
+
+    @Test
+    void deletedRowsAreReusedAndMonthlyDurationsReadTheColumns() {
+        List<Training> kept = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            Training saved = storage.save(training(i % 2 == 0 ? "john" : "kate", "trainee" + i % 37));
+            if (i % 2 == 1) {
+                kept.add(saved);
+            }
+        }
+        assertEquals(1500, storage.deleteTrainingByTrainerUsername("john"));
+        for (int i = 0; i < 1000; i++) {
+            Training training = training("mark", "anna");
+            training.setTrainingDate(LocalDate.of(2024, 2, 1));
+            training.setTrainingDuration(null);
+            storage.save(training);
+        }
+
+        assertEquals(2500, storage.findAll().size());
+        for (Training training : kept) {
+            assertEquals(training, storage.findById(training.getId()).orElseThrow());
+        }
+        assertEquals(List.of(new TrainingRecord.TrainerMonthlyDuration("kate", 2024, 1, 1500 * 60L)),
+                storage.findMonthlyDurationByTrainer("kate"));
+        assertTrue(storage.findMonthlyDurationByTrainer("john").isEmpty());
+        // trainings without a duration are left out of the sums
+        assertEquals(1, storage.findMonthlyDurations().size());
+    }
+
+    @Test
+    void monthlyDurationsOfSeveralTrainersAreGroupedInParallel() {
+        TrainingStorageInMemory parallelStorage = new TrainingStorageInMemory(new ForkJoinPool(4));
+        for (int i = 0; i < 2000; i++) {
+            Training training = training("trainer" + i % 20, "anna");
+            training.setTrainingDate(LocalDate.of(2024, 1 + i % 2, 15));
+            parallelStorage.save(training);
+        }
+
+        List<TrainingRecord.TrainerMonthlyDuration> durations = parallelStorage.findMonthlyDurationByTrainers(
+                List.of("trainer1", "trainer2", "trainer2", "nobody"));
+
+        assertEquals(2, durations.size());
+        assertTrue(durations.contains(new TrainingRecord.TrainerMonthlyDuration("trainer1", 2024, 2, 100 * 60L)));
+        assertTrue(durations.contains(new TrainingRecord.TrainerMonthlyDuration("trainer2", 2024, 1, 100 * 60L)));
+    }
+
+    @Test
+    void monthlyTypeDurationsKeepUntypedTrainingsApart() {
+        for (int i = 0; i < 30; i++) {
+            Training training = training("john", "anna");
+            training.setTrainingTypeId(i % 3 == 0 ? null : (long) (i % 3));
+            storage.save(training);
+        }
+        storage.save(training("kate", "anna"));
+
+        List<TrainingRecord.TrainerMonthlyTypeDuration> durations = storage.findMonthlyTypeDurationByTrainer("john");
+
+        assertEquals(3, durations.size());
+        assertTrue(durations.contains(new TrainingRecord.TrainerMonthlyTypeDuration("john", 2024, 1, 1L, 600L)));
+        assertTrue(durations.contains(new TrainingRecord.TrainerMonthlyTypeDuration("john", 2024, 1, null, 600L)));
+        assertTrue(storage.findMonthlyTypeDurationByTrainer("nobody").isEmpty());
+    }
+
+    @Test
+    void traineeMonthlyDurationsCountTrainingsWithoutDuration() {
+        storage.save(training("john", "anna"));
+        storage.save(training("john", "anna"));
+        Training untimed = training("john", "mark");
+        untimed.setTrainingDuration(null);
+        storage.save(untimed);
+        Training february = training("kate", "anna");
+        february.setTrainingDate(LocalDate.of(2024, 2, 1));
+        storage.save(february);
+
+        List<TrainingRecord.TraineeMonthlyDuration> byJohn = storage.findTraineeMonthlyDurationByTrainer("john");
+        assertEquals(2, byJohn.size());
+        assertTrue(byJohn.contains(new TrainingRecord.TraineeMonthlyDuration("anna", 2024, 1, 120L, 2L)));
+        assertTrue(byJohn.contains(new TrainingRecord.TraineeMonthlyDuration("mark", 2024, 1, 0L, 1L)));
+        assertTrue(storage.findTraineeMonthlyDurationByTrainer("nobody").isEmpty());
+
+        storage.deleteTrainingByTrainerUsername("john");
+        assertEquals(List.of(new TrainingRecord.TraineeMonthlyDuration("anna", 2024, 2, 60L, 1L)),
+                storage.findTraineeMonthlyDurations());
+    }
+
+    @Test
+    void trainingsBeforeTheDayAreAggregatedAndDeleted() {
+        Training old = training("john", "anna");
+        old.setTrainingDate(LocalDate.of(2023, 6, 1));
+        old.setIdempotencyKey("request-1");
+        storage.save(old);
+        Training oldYoga = training("john", "anna");
+        oldYoga.setTrainingDate(LocalDate.of(2023, 6, 2));
+        oldYoga.setTrainingTypeId(2L);
+        storage.save(oldYoga);
+        Training kept = storage.save(training("john", "anna"));
+        LocalDate before = LocalDate.of(2024, 1, 1);
+
+        List<TrainingRecord.TrainingMonthlyAggregate> aggregates = storage.findMonthlyAggregatesBefore(before);
+        assertEquals(2, aggregates.size());
+        assertTrue(aggregates.contains(new TrainingRecord.TrainingMonthlyAggregate("john", "anna", 2L, 2023, 6, 60L, 1L)));
+
+        assertEquals(2, storage.deleteTrainingsBefore(before));
+        assertEquals(List.of(kept), storage.findTrainingByTrainer("john"));
+        assertEquals(List.of(kept), storage.findTrainingByTrainee("anna"));
+        assertTrue(storage.findById(old.getId()).isEmpty());
+        // the archived training's key can be used again
+        Training retried = training("kate", "anna");
+        retried.setIdempotencyKey("request-1");
+        assertNotNull(storage.save(retried).getId());
+    }
+
+    @Test
+    void idempotencyKeysAreUniqueUntilTheirTrainingIsDeleted() {
+        Training first = training("john", "anna");
+        first.setIdempotencyKey("request-1");
+        storage.save(first);
+
+        Training retried = training("john", "anna");
+        retried.setIdempotencyKey("request-1");
+        assertThrows(DataIntegrityViolationException.class, () -> storage.save(retried));
+        // an update of the training keeping its key is not a duplicate
+        first.setTrainingDuration(90L);
+        storage.save(first);
+        assertEquals(first, storage.findById(first.getId()).orElseThrow());
+        assertEquals(1, storage.findAll().size());
+
+        storage.deleteTrainingByTrainerUsername("john");
+        assertNotNull(storage.save(retried).getId());
+    }
+
+    private static Training training(String trainerUsername, String traineeUsername) {
+        Training training = new Training();
+        training.setTrainerUsername(trainerUsername);
+        training.setTraineeUsername(traineeUsername);
+        training.setTrainingName("Session");
+        training.setTrainingDate(LocalDate.of(2024, 1, 15));
+        training.setTrainingDuration(60L);
+        return training;
+    }
+}
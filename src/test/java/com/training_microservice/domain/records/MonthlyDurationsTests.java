@@ -0,0 +1,37 @@
+package com.training_microservice.domain.records;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MonthlyDurationsTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void summaryKeepsTheYearAndMonthObjectShape() throws Exception {
+        MonthlyDurations durations = durations();
+
+        assertEquals("{\"summary\":{\"2023\":{\"DECEMBER\":0},\"2024\":{\"JANUARY\":90,\"MARCH\":15}}}",
+                objectMapper.writeValueAsString(new TrainingRecord.TrainerTrainingSummary(durations)));
+        assertEquals(90L, durations.get(2024, 1));
+        assertNull(durations.get(2024, 2));
+        assertNull(durations.get(2022, 1));
+    }
+
+    @Test
+    void compactSummaryWritesTwelveMonthsPerYear() throws Exception {
+        assertEquals("{\"summary\":{\"2023\":[0,0,0,0,0,0,0,0,0,0,0,0],\"2024\":[90,0,15,0,0,0,0,0,0,0,0,0]}}",
+                objectMapper.writeValueAsString(new TrainingRecord.CompactTrainerTrainingSummary(durations())));
+    }
+
+    private static MonthlyDurations durations() {
+        MonthlyDurations durations = new MonthlyDurations();
+        durations.add(2024, 3, 15);
+        durations.add(2024, 1, 60);
+        durations.add(2023, 12, 0);
+        durations.add(2024, 1, 30);
+        return durations;
+    }
+}
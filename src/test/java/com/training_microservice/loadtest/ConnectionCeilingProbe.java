@@ -0,0 +1,114 @@
+package com.training_microservice.loadtest;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures how many slow clients one node can hold before other requests stall. It
+ * seeds a trainer with a large history, opens the given number of export streams that
+ * read a single chunk and then stop reading, and times fresh summary requests while
+ * those streams are parked. A thread-per-request server runs out of workers once the
+ * slow streams exceed its pool, an event-loop server keeps answering.
+ *
+ * <pre>
+ * java -cp target/test-classes com.training_microservice.loadtest.ConnectionCeilingProbe \
+ *     http://localhost:8080 300 50000
+ * </pre>
+ * Arguments are the base url, the slow connections and the trainings to seed.
+ */
+public class ConnectionCeilingProbe {
+
+    private static final String TRAINER = "ceiling-trainer";
+    private static final int PROBES = 20;
+    private static final Duration PROBE_TIMEOUT = Duration.ofSeconds(5);
+
+    public static void main(String[] args) throws Exception {
+        URI baseUrl = URI.create(args.length > 0 ? args[0] : "http://localhost:8080");
+        int slowConnections = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        int trainings = args.length > 2 ? Integer.parseInt(args[2]) : 50_000;
+
+        HttpClient httpClient = HttpClient.newBuilder().connectTimeout(PROBE_TIMEOUT).build();
+        seed(httpClient, baseUrl, trainings);
+
+        List<Socket> parked = new ArrayList<>(slowConnections);
+        for (int i = 0; i < slowConnections; i++) {
+            parked.add(openSlowExport(baseUrl));
+        }
+        Thread.sleep(2_000);
+
+        long[] latencies = new long[PROBES];
+        int timeouts = 0;
+        for (int i = 0; i < PROBES; i++) {
+            HttpRequest request = HttpRequest.newBuilder(baseUrl.resolve("/training/summary/trainer/" + TRAINER))
+                    .timeout(PROBE_TIMEOUT).GET().build();
+            long start = System.nanoTime();
+            try {
+                httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                latencies[i] = System.nanoTime() - start;
+            } catch (HttpTimeoutException e) {
+                latencies[i] = PROBE_TIMEOUT.toNanos();
+                timeouts++;
+            }
+        }
+        Arrays.sort(latencies);
+        System.out.printf("slowConnections=%d probes=%d timeouts=%d p50=%.1fms max=%.1fms%n",
+                slowConnections, PROBES, timeouts, latencies[PROBES / 2] / 1e6, latencies[PROBES - 1] / 1e6);
+        for (Socket socket : parked) {
+            socket.close();
+        }
+        System.exit(0);
+    }
+
+    private static void seed(HttpClient httpClient, URI baseUrl, int trainings) throws Exception {
+        StringBuilder ndjson = new StringBuilder();
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < trainings; i++) {
+            ndjson.append("{\"traineeUsername\":\"trainee").append(i % 500)
+                    .append("\",\"trainerUsername\":\"").append(TRAINER)
+                    .append("\",\"trainingName\":\"Ceiling probe training\",\"trainingDate\":\"")
+                    .append(start.plusDays(i % 1500)).append("\",\"trainingDuration\":60}\n");
+        }
+        HttpRequest request = HttpRequest.newBuilder(baseUrl.resolve("/training/batch"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(ndjson.toString()))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Seeding failed with " + response.statusCode());
+        }
+    }
+
+    private static Socket openSlowExport(URI baseUrl) throws Exception {
+        Socket socket = new Socket();
+        // a small window makes the server feel the slow reader almost immediately
+        socket.setReceiveBufferSize(4096);
+        socket.connect(new InetSocketAddress(baseUrl.getHost(), baseUrl.getPort()));
+        OutputStream out = socket.getOutputStream();
+        out.write(("GET /training/trainer/" + TRAINER + "/export HTTP/1.1\r\nHost: " + baseUrl.getHost()
+                + "\r\nAccept: application/x-ndjson\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        // once the server is out of workers the export is queued and sends nothing
+        socket.setSoTimeout(200);
+        InputStream in = socket.getInputStream();
+        try {
+            in.read(new byte[1024]);
+        } catch (SocketTimeoutException e) {
+            // parked before the first byte, which holds the connection all the same
+        }
+        return socket;
+    }
+}
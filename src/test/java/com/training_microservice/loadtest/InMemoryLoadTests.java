@@ -0,0 +1,12 @@
+package com.training_microservice.loadtest;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "spring.profiles.active=inmemory")
+class InMemoryLoadTests extends LoadTestSupport {
+
+    @Override
+    protected String scenario() {
+        return "in-memory";
+    }
+}
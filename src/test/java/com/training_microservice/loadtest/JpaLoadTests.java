@@ -0,0 +1,21 @@
+package com.training_microservice.loadtest;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * The JPA backend on H2 in MySQL mode as a local stand-in for the production database,
+ * with the schema built by the Flyway migrations rather than by Hibernate.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.profiles.active=prod",
+        "spring.datasource.url=jdbc:h2:mem:loadDb;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+class JpaLoadTests extends LoadTestSupport {
+
+    @Override
+    protected String scenario() {
+        return "jpa-h2-mysql";
+    }
+}
@@ -0,0 +1,63 @@
+package com.training_microservice.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.training_microservice.loadtest.TrainingLoadGenerator.LoadReport;
+import com.training_microservice.loadtest.TrainingLoadGenerator.LoadResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Load reports by scenario, kept as JSON. A measured report regresses against its
+ * baseline when the total throughput drops by more than the tolerance, or when an
+ * operation's p99 grows by more than the tolerance and by more than LATENCY_SLACK_MILLIS,
+ * which keeps sub-millisecond percentiles from failing on scheduling noise.
+ */
+final class LoadBaseline {
+
+    static final double LATENCY_SLACK_MILLIS = 5;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private LoadBaseline() {
+    }
+
+    static Map<String, LoadReport> read(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return new TreeMap<>();
+        }
+        return MAPPER.readValue(file.toFile(), new TypeReference<TreeMap<String, LoadReport>>() { });
+    }
+
+    static void write(Path file, Map<String, LoadReport> reports) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        MAPPER.writeValue(file.toFile(), reports);
+    }
+
+    static List<String> regressions(LoadReport baseline, LoadReport measured, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        if (measured.total().throughput() < baseline.total().throughput() * (1 - tolerance)) {
+            regressions.add(String.format("throughput %.0f/s, baseline %.0f/s",
+                    measured.total().throughput(), baseline.total().throughput()));
+        }
+        baseline.operations().forEach((operation, expected) -> {
+            LoadResult actual = measured.operations().get(operation);
+            if (actual == null) {
+                return;
+            }
+            double allowed = Math.max(expected.p99Millis() * (1 + tolerance), expected.p99Millis() + LATENCY_SLACK_MILLIS);
+            if (actual.p99Millis() > allowed) {
+                regressions.add(String.format("%s p99 %.1fms, baseline %.1fms", operation,
+                        actual.p99Millis(), expected.p99Millis()));
+            }
+        });
+        return regressions;
+    }
+}
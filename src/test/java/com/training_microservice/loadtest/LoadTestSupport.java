@@ -0,0 +1,62 @@
+package com.training_microservice.loadtest;
+
+import com.training_microservice.loadtest.TrainingLoadGenerator.LoadReport;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the MIXED workload against the application booted on a random port and compares
+ * the report with the scenario's entry in the recorded baseline. Tagged "load", so only
+ * the load profile runs it:
+ *
+ * <pre>
+ * mvn -B test -Pload                          # compare with the baseline
+ * mvn -B test -Pload -Dload.record=true       # measure and record a new baseline
+ * </pre>
+ * load.clients, load.seconds and load.tolerance (0.5 by default) tune the run; the last
+ * report of each scenario is written to target/load/.
+ */
+@Tag("load")
+abstract class LoadTestSupport {
+
+    private static final Path BASELINE = Path.of(System.getProperty("load.baseline",
+            "src/test/resources/loadtest/baseline.json"));
+
+    @LocalServerPort
+    private int port;
+
+    protected abstract String scenario();
+
+    @Test
+    void mixedWorkloadHoldsTheBaseline() throws Exception {
+        int clients = Integer.getInteger("load.clients", 32);
+        Duration duration = Duration.ofSeconds(Long.getLong("load.seconds", 20));
+        double tolerance = Double.parseDouble(System.getProperty("load.tolerance", "0.5"));
+
+        TrainingLoadGenerator generator = new TrainingLoadGenerator("http://localhost:" + port, clients,
+                TrainingLoadGenerator.Workload.MIXED);
+        generator.seed(20);
+        LoadReport report = generator.run(clients, duration);
+        System.out.println(scenario() + "\n" + report);
+        LoadBaseline.write(Path.of("target", "load", scenario() + ".json"), Map.of(scenario(), report));
+        assertEquals(0, report.total().errors(), "failed requests");
+
+        Map<String, LoadReport> baselines = LoadBaseline.read(BASELINE);
+        if (Boolean.getBoolean("load.record")) {
+            baselines.put(scenario(), report);
+            LoadBaseline.write(BASELINE, baselines);
+            return;
+        }
+        LoadReport baseline = baselines.get(scenario());
+        assertNotNull(baseline, "No baseline for " + scenario() + " in " + BASELINE + ", record one with -Dload.record=true");
+        assertEquals(List.of(), LoadBaseline.regressions(baseline, report, tolerance));
+    }
+}
@@ -0,0 +1,281 @@
+package com.training_microservice.loadtest;
+
+import com.training_microservice.benchmark.TrainingDataset;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load against a running instance: every client sends its next request
+ * as soon as the previous one completes, picking the operation by the Workload weights
+ * over a fixed set of trainers. Prints throughput and latency percentiles, overall and
+ * per operation. Compare runs by starting the service with and without
+ * app.execution.virtual-threads.
+ *
+ * <pre>
+ * java -cp target/test-classes com.training_microservice.loadtest.TrainingLoadGenerator \
+ *     http://localhost:8082 200 30 MIXED
+ * </pre>
+ * Arguments are the base url, the concurrent clients, the measured seconds and the
+ * workload (PAGES by default).
+ */
+public class TrainingLoadGenerator {
+
+    public enum Operation { CREATE, TRAINER_PAGE, TRAINER_SUMMARY, DELETE_TRAINER }
+
+    /**
+     * Relative weights of the operations. With zipf the trainer of a write or a read
+     * follows a Zipf distribution, so a few trainers get most of the traffic; deleted
+     * trainers are always picked uniformly.
+     */
+    public record Workload(int create, int trainerPage, int trainerSummary, int deleteTrainer, boolean zipf) {
+
+        /** 1 write to 4 trainer pages, uniform trainers. */
+        public static final Workload PAGES = new Workload(1, 4, 0, 0, false);
+        /** Writes, summary reads and the odd trainer delete, skewed trainers. */
+        public static final Workload MIXED = new Workload(250, 0, 745, 5, true);
+
+        public static Workload named(String name) {
+            return switch (name) {
+                case "PAGES" -> PAGES;
+                case "MIXED" -> MIXED;
+                default -> throw new IllegalArgumentException("Unknown workload: " + name);
+            };
+        }
+
+        private int total() {
+            return create + trainerPage + trainerSummary + deleteTrainer;
+        }
+
+        private Operation pick(int roll) {
+            if (roll < create) {
+                return Operation.CREATE;
+            }
+            if (roll < create + trainerPage) {
+                return Operation.TRAINER_PAGE;
+            }
+            return roll < create + trainerPage + trainerSummary ? Operation.TRAINER_SUMMARY : Operation.DELETE_TRAINER;
+        }
+    }
+
+    private static final int TRAINERS = 200;
+    private static final int MAX_SAMPLES = 2_000_000;
+    private static final int SEED_BATCH = 200;
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final Workload workload;
+    private final double[] trainerCdf;
+    private final Map<Operation, Samples> samples = new EnumMap<>(Operation.class);
+
+    public TrainingLoadGenerator(String baseUrl, int clients) {
+        this(baseUrl, clients, Workload.PAGES);
+    }
+
+    public TrainingLoadGenerator(String baseUrl, int clients, Workload workload) {
+        this.baseUrl = baseUrl;
+        this.workload = workload;
+        this.trainerCdf = workload.zipf() ? TrainingDataset.zipfCdf(TRAINERS) : null;
+        this.httpClient = HttpClient.newBuilder()
+                .executor(Executors.newFixedThreadPool(Math.max(4, clients / 8)))
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        for (Operation operation : Operation.values()) {
+            samples.put(operation, new Samples());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8082";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        Workload workload = args.length > 3 ? Workload.named(args[3]) : Workload.PAGES;
+        TrainingLoadGenerator generator = new TrainingLoadGenerator(baseUrl, clients, workload);
+        if (workload.trainerSummary() > 0) {
+            generator.seed(20);
+        }
+        System.out.println(generator.run(clients, Duration.ofSeconds(seconds)));
+        System.exit(0);
+    }
+
+    /**
+     * Gives every trainer a history through POST /training/batch, so summary reads find
+     * trainings from the first request.
+     */
+    public void seed(int trainingsPerTrainer) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringJoiner batch = new StringJoiner(",", "[", "]");
+        int size = 0;
+        for (int i = 0; i < TRAINERS * trainingsPerTrainer; i++) {
+            batch.add(trainingJson("trainer" + i % TRAINERS, random));
+            if (++size == SEED_BATCH || i == TRAINERS * trainingsPerTrainer - 1) {
+                HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/training/batch"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(batch.toString()))
+                        .build(), HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() >= 400) {
+                    throw new IOException("Seeding failed with status " + response.statusCode());
+                }
+                batch = new StringJoiner(",", "[", "]");
+                size = 0;
+            }
+        }
+    }
+
+    public LoadReport run(int clients, Duration duration) throws InterruptedException {
+        // warm up the JIT and the connection pool before measuring
+        drive(clients, Duration.ofSeconds(Math.min(10, Math.max(2, duration.toSeconds() / 3))));
+        samples.values().forEach(Samples::reset);
+        long start = System.nanoTime();
+        drive(clients, duration);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Map<Operation, LoadResult> operations = new EnumMap<>(Operation.class);
+        long[] all = new long[0];
+        long errors = 0;
+        for (Map.Entry<Operation, Samples> entry : samples.entrySet()) {
+            long[] sorted = entry.getValue().sorted();
+            if (sorted.length > 0) {
+                operations.put(entry.getKey(), result(clients, sorted, entry.getValue().errors.get(), seconds));
+            }
+            all = concat(all, sorted);
+            errors += entry.getValue().errors.get();
+        }
+        Arrays.sort(all);
+        return new LoadReport(result(clients, all, errors, seconds), operations);
+    }
+
+    private void drive(int clients, Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        for (int i = 0; i < clients; i++) {
+            executor.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    send();
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+    }
+
+    private void send() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Operation operation = workload.pick(random.nextInt(workload.total()));
+        HttpRequest request = switch (operation) {
+            case CREATE -> HttpRequest.newBuilder(URI.create(baseUrl + "/training"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(trainingJson(nextTrainer(random), random)))
+                    .build();
+            case TRAINER_PAGE -> HttpRequest.newBuilder(URI.create(baseUrl + "/training/trainer/" + nextTrainer(random) + "?size=20"))
+                    .GET().build();
+            case TRAINER_SUMMARY -> HttpRequest.newBuilder(URI.create(baseUrl + "/training/summary/trainer/" + nextTrainer(random)))
+                    .GET().build();
+            case DELETE_TRAINER -> HttpRequest.newBuilder(URI.create(baseUrl + "/training/trainer" + random.nextInt(TRAINERS)))
+                    .DELETE().build();
+        };
+        Samples operationSamples = samples.get(operation);
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            // a trainer deleted a moment ago has no summary until its next training
+            if (response.statusCode() >= 400 && response.statusCode() != 404) {
+                operationSamples.errors.incrementAndGet();
+            }
+        } catch (Exception e) {
+            operationSamples.errors.incrementAndGet();
+        }
+        operationSamples.add(System.nanoTime() - start);
+    }
+
+    private String nextTrainer(ThreadLocalRandom random) {
+        if (trainerCdf == null) {
+            return "trainer" + random.nextInt(TRAINERS);
+        }
+        int index = Arrays.binarySearch(trainerCdf, random.nextDouble());
+        return "trainer" + Math.min(index >= 0 ? index : -index - 1, TRAINERS - 1);
+    }
+
+    private static String trainingJson(String trainer, ThreadLocalRandom random) {
+        LocalDate date = LocalDate.of(2024, 1, 1).plusDays(random.nextInt(365));
+        return "{\"traineeUsername\":\"trainee" + random.nextInt(1000) + "\",\"trainerUsername\":\"" + trainer
+                + "\",\"trainingName\":\"Load\",\"trainingDate\":\"" + date + "\",\"trainingDuration\":"
+                + (30 + random.nextInt(90)) + "}";
+    }
+
+    private static LoadResult result(int clients, long[] sorted, long errors, double seconds) {
+        return new LoadResult(clients, sorted.length, errors, sorted.length / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, quantile * sorted.length)] / 1e6;
+    }
+
+    private static long[] concat(long[] first, long[] second) {
+        long[] joined = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return joined;
+    }
+
+    /**
+     * Latencies of one operation, samples past the capacity are counted but not kept.
+     */
+    private static final class Samples {
+
+        private final long[] latencies = new long[MAX_SAMPLES / Operation.values().length];
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+
+        void add(long latency) {
+            long sample = count.getAndIncrement();
+            if (sample < latencies.length) {
+                latencies[(int) sample] = latency;
+            }
+        }
+
+        void reset() {
+            count.set(0);
+            errors.set(0);
+        }
+
+        long[] sorted() {
+            long[] sorted = Arrays.copyOf(latencies, (int) Math.min(count.get(), latencies.length));
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    public record LoadResult(int clients, long requests, long errors, double throughput,
+                             double p50Millis, double p99Millis, double p999Millis, double maxMillis) {
+        @Override
+        public String toString() {
+            return String.format("clients=%d requests=%d errors=%d throughput=%.0f/s p50=%.1fms p99=%.1fms p99.9=%.1fms max=%.1fms",
+                    clients, requests, errors, throughput, p50Millis, p99Millis, p999Millis, maxMillis);
+        }
+    }
+
+    public record LoadReport(LoadResult total, Map<Operation, LoadResult> operations) {
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder("total ").append(total);
+            operations.forEach((operation, result) -> report.append('\n').append(operation).append(' ').append(result));
+            return report.toString();
+        }
+    }
+}
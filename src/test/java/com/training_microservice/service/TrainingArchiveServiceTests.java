@@ -0,0 +1,181 @@
+package com.training_microservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.training_microservice.config.ArchiveProperties;
+import com.training_microservice.config.SummaryProperties;
+import com.training_microservice.dao.inmemory.TraineeSummaryStorageInMemory;
+import com.training_microservice.dao.inmemory.TrainerSummaryStorageInMemory;
+import com.training_microservice.dao.inmemory.TrainingArchiveStorageInMemory;
+import com.training_microservice.dao.inmemory.TrainingStorageInMemory;
+import com.training_microservice.dao.inmemory.TrainingTypeStorageInMemory;
+import com.training_microservice.domain.entities.Training;
+import com.training_microservice.domain.records.MonthlyDurations;
+import com.training_microservice.domain.records.TrainingRecord;
+import com.training_microservice.mapper.TrainingMapperImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrainingArchiveServiceTests {
+
+    private static final LocalDate HOT_FROM = LocalDate.of(2024, 1, 1);
+
+    private final TrainingTypeCache trainingTypeCache = new TrainingTypeCache(new TrainingTypeStorageInMemory());
+    private final TrainingStorageInMemory trainingStorage = new TrainingStorageInMemory();
+    private final TrainingArchiveStorageInMemory trainingArchiveStorage = new TrainingArchiveStorageInMemory(trainingStorage);
+    private final TrainerSummaryStorageInMemory trainerSummaryStorage = new TrainerSummaryStorageInMemory();
+    private final TraineeSummaryStorageInMemory traineeSummaryStorage = new TraineeSummaryStorageInMemory();
+    private final SummaryWriteGate summaryWriteGate = new SummaryWriteGate();
+    private final TrainingService trainingService = new TrainingService(new TrainingMapperImpl(trainingTypeCache),
+            trainingStorage, trainingArchiveStorage, trainerSummaryStorage, traineeSummaryStorage,
+            new NoOpCache("trainerSummaries"), new SimpleMeterRegistry(), new SummaryProperties(), trainingTypeCache,
+            summaryWriteGate);
+    private final TrainingArchiveService archiveService =
+            new TrainingArchiveService(trainingStorage, trainingArchiveStorage, new ArchiveProperties(), summaryWriteGate);
+    private final TrainerSummaryRebuildService rebuildService = new TrainerSummaryRebuildService(
+            trainingStorage, trainingArchiveStorage, trainerSummaryStorage, traineeSummaryStorage,
+            new NoOpCache("trainerSummaries"), summaryWriteGate);
+
+    @Test
+    void archivedMonthsStillCountInSummariesAndRebuilds() {
+        trainingService.saveTrainings(List.of(
+                training("john", "anna", LocalDate.of(2023, 6, 10), 60L, 2L),
+                training("john", "anna", LocalDate.of(2023, 6, 20), 30L, null),
+                training("john", "mark", LocalDate.of(2024, 2, 1), 45L, 2L),
+                training("kate", "anna", LocalDate.of(2023, 6, 1), 15L, null)));
+
+        assertEquals(3, archiveService.archiveTrainingsBefore(HOT_FROM));
+        assertEquals(0, archiveService.archiveTrainingsBefore(HOT_FROM));
+        assertEquals(1, trainingStorage.findAll().size());
+
+        MonthlyDurations john = new MonthlyDurations();
+        john.add(2023, 6, 90);
+        john.add(2024, 2, 45);
+        Map<String, TrainingRecord.TrainerTrainingSummary> summaries =
+                trainingService.getTrainingSummariesByTrainers(List.of("john")).getBody();
+        assertEquals(john, summaries.get("john").summary());
+        TrainingRecord.TrainerTrainingTypeSummary types = trainingService.getTrainingTypeSummaryByTrainer("john").getBody();
+        assertEquals(Map.of("YOGA", 105L, TrainingRecord.TrainerTrainingTypeSummary.UNTYPED, 30L), types.typeTotals());
+
+        // the archived months are part of the expected aggregates, nothing drifted
+        assertEquals(0, rebuildService.rebuildTrainerSummaries());
+        assertEquals(0, rebuildService.rebuildTraineeSummaries());
+
+        // a late training lands in the hot store next to its archived month
+        trainingService.saveTrainings(List.of(training("john", "anna", LocalDate.of(2023, 6, 25), 10L, null)));
+        assertEquals(0, rebuildService.rebuildTraineeSummaries());
+        assertEquals(1, archiveService.archiveTrainingsBefore(HOT_FROM));
+        assertEquals(0, rebuildService.rebuildTrainerSummaries());
+
+        assertEquals(4, trainingService.deleteTrainingByTrainerUsername("john").getBody().deletedTrainings());
+        assertTrue(trainingArchiveStorage.findMonthlyDurationByTrainer("john").isEmpty());
+        MonthlyDurations anna = new MonthlyDurations();
+        anna.add(2023, 6, 15);
+        assertEquals(anna, trainingService.getTrainingSummaryByTrainee("anna").getBody().summary());
+    }
+
+    @Test
+    void archiveRunningAlongsideWritesArchivesEveryTrainingOnce() throws Exception {
+        ExecutorService writers = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int writer = 0; writer < 2; writer++) {
+                writes.add(writers.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        trainingService.saveTrainings(List.of(training("john", "anna", LocalDate.of(2023, 6, 10), 30L, null)));
+                    }
+                }));
+            }
+            while (writes.stream().anyMatch(write -> !write.isDone())) {
+                archiveService.archiveTrainingsBefore(HOT_FROM);
+            }
+            for (Future<?> write : writes) {
+                write.get();
+            }
+        } finally {
+            writers.shutdown();
+        }
+        archiveService.archiveTrainingsBefore(HOT_FROM);
+
+        assertTrue(trainingStorage.findAll().isEmpty());
+        assertEquals(List.of(new TrainingRecord.TrainerMonthlyDuration("john", 2023, 6, 400 * 30L)),
+                trainingArchiveStorage.findMonthlyDurationByTrainer("john"));
+        assertEquals(400, trainingArchiveStorage.deleteArchivedTrainingByTrainerUsername("john"));
+    }
+
+    @Test
+    void archivedTrainingsAreListedAndKeepTheirIdempotencyKeys() throws IOException {
+        Training keyed = training("john", "anna", LocalDate.of(2023, 6, 20), 30L, null);
+        keyed.setIdempotencyKey("request-1");
+        trainingService.saveTrainings(List.of(
+                training("john", "anna", LocalDate.of(2023, 6, 10), 60L, null), keyed,
+                training("john", "anna", LocalDate.of(2024, 2, 1), 45L, null)));
+        archiveService.archiveTrainingsBefore(HOT_FROM);
+        // a late training, hot but dated between the archived ones
+        trainingService.saveTrainings(List.of(training("john", "anna", LocalDate.of(2023, 6, 15), 10L, null)));
+        TrainingMapperImpl trainingMapper = new TrainingMapperImpl(trainingTypeCache);
+        TrainingListingService listingService = new TrainingListingService(trainingMapper, trainingStorage,
+                trainingArchiveStorage, new ObjectMapper().findAndRegisterModules(), trainingTypeCache);
+        TrainingRecord.TrainingFilterRequest filter = new TrainingRecord.TrainingFilterRequest(null, null, null, null);
+
+        TrainingRecord.TrainingPage<TrainingRecord.TrainerTrainingResponse> first =
+                listingService.getTrainingPageByTrainer("john", filter, null, 3).getBody();
+        TrainingRecord.TrainingPage<TrainingRecord.TrainerTrainingResponse> second =
+                listingService.getTrainingPageByTrainer("john", filter, first.nextCursor(), 3).getBody();
+        assertEquals(List.of(60L, 10L, 30L), first.trainings().stream()
+                .map(TrainingRecord.TrainerTrainingResponse::trainingDuration).toList());
+        assertEquals(List.of(45L), second.trainings().stream()
+                .map(TrainingRecord.TrainerTrainingResponse::trainingDuration).toList());
+        assertNull(second.nextCursor());
+        ByteArrayOutputStream export = new ByteArrayOutputStream();
+        listingService.exportTrainingsByTrainee("anna", filter, export);
+        assertEquals(4, export.toString(StandardCharsets.UTF_8).lines().count());
+        assertEquals(List.of(60L, 10L, 30L, 45L), listingService.streamTrainingsByTrainer("john", filter)
+                .map(TrainingRecord.TrainerTrainingResponse::trainingDuration).collectList().block());
+
+        // a late retry of the archived request is still a duplicate
+        Training retried = training("john", "anna", LocalDate.of(2023, 6, 20), 30L, null);
+        retried.setIdempotencyKey("request-1");
+        DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class,
+                () -> trainingService.saveTrainings(List.of(retried)));
+        assertTrue(TrainingIdempotencyService.isIdempotencyKeyViolation(e));
+        assertEquals(100L, trainingService.getTrainingSummaryByTrainee("anna").getBody().summary().get(2023, 6));
+    }
+
+    @Test
+    void currentMonthIsNeverArchived() {
+        ArchiveProperties properties = new ArchiveProperties();
+        properties.setHotMonths(0);
+        trainingStorage.save(training("john", "anna", LocalDate.now().withDayOfMonth(1), 60L, null));
+        trainingStorage.save(training("john", "anna", LocalDate.now().withDayOfMonth(1).minusDays(1), 60L, null));
+
+        assertEquals(1, new TrainingArchiveService(trainingStorage, trainingArchiveStorage, properties, summaryWriteGate).archiveClosedMonths());
+        assertEquals(1, trainingStorage.findAll().size());
+    }
+
+    private static Training training(String trainerUsername, String traineeUsername, LocalDate trainingDate,
+                                     Long trainingDuration, Long trainingTypeId) {
+        Training training = new Training();
+        training.setTrainerUsername(trainerUsername);
+        training.setTraineeUsername(traineeUsername);
+        training.setTrainingName("Session");
+        training.setTrainingDate(trainingDate);
+        training.setTrainingDuration(trainingDuration);
+        training.setTrainingTypeId(trainingTypeId);
+        return training;
+    }
+}
@@ -0,0 +1,117 @@
+package com.training_microservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.training_microservice.config.IngestionProperties;
+import com.training_microservice.config.SummaryProperties;
+import com.training_microservice.dao.inmemory.TraineeSummaryStorageInMemory;
+import com.training_microservice.dao.inmemory.TrainerSummaryStorageInMemory;
+import com.training_microservice.dao.inmemory.TrainingArchiveStorageInMemory;
+import com.training_microservice.dao.inmemory.TrainingStorageInMemory;
+import com.training_microservice.dao.inmemory.TrainingTypeStorageInMemory;
+import com.training_microservice.domain.entities.Training;
+import com.training_microservice.domain.records.TrainingRecord;
+import com.training_microservice.domain.validation.KnownTrainingTypeValidator;
+import com.training_microservice.mapper.TrainingMapperImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NoOpCache;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorFactory;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrainingBatchServiceTests {
+
+    private final TrainingTypeCache trainingTypeCache = new TrainingTypeCache(new TrainingTypeStorageInMemory());
+    private final TrainingMapperImpl trainingMapper = new TrainingMapperImpl(trainingTypeCache);
+    private final TrainingStorageInMemory trainingStorage = new TrainingStorageInMemory();
+    private final TrainerSummaryStorageInMemory trainerSummaryStorage = new TrainerSummaryStorageInMemory();
+    // fails every chunk holding a training of the "broken" trainer
+    private final TrainingService trainingService = new TrainingService(trainingMapper, trainingStorage,
+            new TrainingArchiveStorageInMemory(trainingStorage), trainerSummaryStorage,
+            new TraineeSummaryStorageInMemory(), new NoOpCache("trainerSummaries"), new SimpleMeterRegistry(),
+            new SummaryProperties(), trainingTypeCache, new SummaryWriteGate()) {
+        @Override
+        public List<Training> saveTrainings(List<Training> trainings) {
+            if (trainings.stream().anyMatch(training -> training.getTrainerUsername().equals("broken"))) {
+                throw new IllegalStateException("Store unavailable");
+            }
+            return super.saveTrainings(trainings);
+        }
+    };
+
+    @Test
+    void failedItemsAreCountedApartFromRejectedItems() {
+        TrainingBatchService batchService = batchService(2);
+
+        TrainingRecord.TrainingBatchResponse response = batchService.saveTrainings(List.of(
+                request("john"), request("broken"), request(""), request("kate"))).getBody();
+
+        assertEquals(2, response.saved());
+        assertEquals(1, response.rejected());
+        assertEquals(1, response.failed());
+        assertEquals(List.of(TrainingBatchService.SAVED, TrainingBatchService.FAILED, TrainingBatchService.REJECTED,
+                        TrainingBatchService.SAVED),
+                response.items().stream().map(TrainingRecord.TrainingBatchItemResult::status).toList());
+        assertEquals(TrainingBatchService.SAVE_FAILED_REASON, response.items().get(1).message());
+        assertEquals(2, trainingStorage.findAll().size());
+    }
+
+    @Test
+    void replayedItemsAreReportedAsDuplicatesAndCountedOnce() {
+        TrainingBatchService batchService = batchService(2);
+        batchService.saveTrainings(List.of(request("john")));
+
+        // the store keeps the first kate before the second one fails the chunk
+        TrainingRecord.TrainingBatchResponse response = batchService.saveTrainings(List.of(
+                request("kate"), request("kate"), request("john"))).getBody();
+
+        assertEquals(1, response.saved());
+        assertEquals(2, response.duplicates());
+        assertEquals(0, response.failed());
+        assertEquals(List.of(TrainingBatchService.SAVED, TrainingBatchService.DUPLICATE, TrainingBatchService.DUPLICATE),
+                response.items().stream().map(TrainingRecord.TrainingBatchItemResult::status).toList());
+        assertEquals(2, trainingStorage.findAll().size());
+        assertEquals(60L, trainerSummaryStorage.findSummaryByTrainer("kate").get(0).getTotalDuration());
+        assertEquals(60L, trainerSummaryStorage.findSummaryByTrainer("john").get(0).getTotalDuration());
+    }
+
+    private TrainingBatchService batchService(int chunkSize) {
+        IngestionProperties ingestionProperties = new IngestionProperties();
+        ingestionProperties.getBatch().setChunkSize(chunkSize);
+        return new TrainingBatchService(trainingService, trainingMapper, validator(), new ObjectMapper(),
+                ingestionProperties);
+    }
+
+    private Validator validator() {
+        return Validation.byDefaultProvider().configure()
+                .constraintValidatorFactory(new ConstraintValidatorFactory() {
+                    @Override
+                    public <T extends ConstraintValidator<?, ?>> T getInstance(Class<T> key) {
+                        if (key == KnownTrainingTypeValidator.class) {
+                            return key.cast(new KnownTrainingTypeValidator(trainingTypeCache));
+                        }
+                        try {
+                            return key.getDeclaredConstructor().newInstance();
+                        } catch (ReflectiveOperationException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+
+                    @Override
+                    public void releaseInstance(ConstraintValidator<?, ?> instance) {
+                    }
+                })
+                .buildValidatorFactory()
+                .getValidator();
+    }
+
+    private static TrainingRecord.TrainingRequest request(String trainerUsername) {
+        return new TrainingRecord.TrainingRequest("anna", trainerUsername, "Session", LocalDate.of(2024, 1, 15), 60L, null);
+    }
+}
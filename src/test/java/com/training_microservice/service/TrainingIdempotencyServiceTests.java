@@ -0,0 +1,98 @@
+package com.training_microservice.service;
+
+import com.training_microservice.config.IngestionProperties;
+import com.training_microservice.domain.records.TrainingRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrainingIdempotencyServiceTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TrainingIdempotencyService idempotencyService =
+            new TrainingIdempotencyService(new IngestionProperties(), meterRegistry);
+    private final List<String> savedKeys = new ArrayList<>();
+
+    @Test
+    void retryOfARecentRequestIsAnsweredFromTheFilter() {
+        assertEquals(HttpStatus.OK, idempotencyService.saveTraining(request("Session"), null, this::save).getStatusCode());
+        ResponseEntity retried = idempotencyService.saveTraining(request("Session"), null, this::save);
+
+        assertEquals(HttpStatus.OK, retried.getStatusCode());
+        assertEquals("true", retried.getHeaders().getFirst(TrainingIdempotencyService.REPLAYED_HEADER));
+        assertEquals(1, savedKeys.size());
+        assertTrue(savedKeys.get(0).startsWith("natural:"));
+
+        idempotencyService.saveTraining(request("Other session"), null, this::save);
+        idempotencyService.saveTraining(request("Session"), "request-1", this::save);
+        assertEquals(List.of(savedKeys.get(0), savedKeys.get(1), "request-1"), savedKeys);
+        assertEquals(1.0, meterRegistry.counter("training.ingestion.duplicates", "detected_by", "filter").count());
+    }
+
+    @Test
+    void duplicateMissedByTheFilterIsCaughtByTheIndex() {
+        ResponseEntity response = idempotencyService.saveTraining(request("Session"), "request-1", (request, key) -> {
+            throw new DataIntegrityViolationException("could not execute statement",
+                    new RuntimeException("Unique index or primary key violation: \"PUBLIC.UK_TRAINING_IDEMPOTENCY_KEY_INDEX_4\""));
+        });
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("true", response.getHeaders().getFirst(TrainingIdempotencyService.REPLAYED_HEADER));
+        // remembered, the next retry does not reach the store
+        idempotencyService.saveTraining(request("Session"), "request-1", this::save);
+        assertTrue(savedKeys.isEmpty());
+    }
+
+    @Test
+    void otherIntegrityViolationsAreFailuresNotReplays() {
+        assertThrows(DataIntegrityViolationException.class, () -> idempotencyService.saveTraining(request("Session"),
+                "request-1", (request, key) -> {
+                    throw new DataIntegrityViolationException("Duplicate summary month of trainer john");
+                }));
+        idempotencyService.saveTraining(request("Session"), "request-1", this::save);
+
+        assertEquals(List.of("request-1"), savedKeys);
+        assertEquals(0.0, meterRegistry.counter("training.ingestion.duplicates", "detected_by", "index").count());
+    }
+
+    @Test
+    void queuedSaveIsOnlyRememberedOnceTheWriterSavedIt() {
+        idempotencyService.saveTraining(request("Session"), "request-1", (request, key) -> ResponseEntity.accepted().build());
+        // the queued write may still fail, its retry has to reach the store
+        idempotencyService.saveTraining(request("Session"), "request-1", this::save);
+        assertEquals(List.of("request-1"), savedKeys);
+
+        idempotencyService.saveTraining(request("Session"), "request-2", (request, key) -> ResponseEntity.accepted().build());
+        idempotencyService.rememberSaved("request-2");
+        ResponseEntity retried = idempotencyService.saveTraining(request("Session"), "request-2", this::save);
+        assertEquals("true", retried.getHeaders().getFirst(TrainingIdempotencyService.REPLAYED_HEADER));
+        assertEquals(List.of("request-1"), savedKeys);
+    }
+
+    @Test
+    void failedSaveIsNotRememberedAndOversizedKeysAreRejected() {
+        idempotencyService.saveTraining(request("Session"), "request-1", (request, key) -> ResponseEntity.badRequest().build());
+        idempotencyService.saveTraining(request("Session"), "request-1", this::save);
+
+        assertEquals(List.of("request-1"), savedKeys);
+        assertThrows(IllegalArgumentException.class, () -> idempotencyService.saveTraining(request("Session"),
+                "k".repeat(TrainingIdempotencyService.MAX_KEY_LENGTH + 1), this::save));
+    }
+
+    private ResponseEntity save(TrainingRecord.TrainingRequest trainingRequest, String key) {
+        savedKeys.add(key);
+        return ResponseEntity.ok().build();
+    }
+
+    private static TrainingRecord.TrainingRequest request(String trainingName) {
+        return new TrainingRecord.TrainingRequest("anna", "john", trainingName, LocalDate.of(2024, 1, 15), 60L, null);
+    }
+}
@@ -0,0 +1,178 @@
+package com.training_microservice.service;
+
+import com.training_microservice.config.SummaryProperties;
+import com.training_microservice.dao.inmemory.TraineeSummaryStorageInMemory;
+import com.training_microservice.dao.inmemory.TrainerSummaryStorageInMemory;
+import com.training_microservice.dao.inmemory.TrainingArchiveStorageInMemory;
+import com.training_microservice.dao.inmemory.TrainingStorageInMemory;
+import com.training_microservice.dao.inmemory.TrainingTypeStorageInMemory;
+import com.training_microservice.domain.entities.Training;
+import com.training_microservice.domain.records.MonthlyDurations;
+import com.training_microservice.domain.records.TrainingRecord;
+import com.training_microservice.mapper.TrainingMapperImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.http.HttpStatus;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrainingServiceTests {
+
+    private final TrainingTypeCache trainingTypeCache = new TrainingTypeCache(new TrainingTypeStorageInMemory());
+    private final TrainingStorageInMemory trainingStorage = new TrainingStorageInMemory();
+    private final TrainerSummaryStorageInMemory trainerSummaryStorage = new TrainerSummaryStorageInMemory();
+    private final TraineeSummaryStorageInMemory traineeSummaryStorage = new TraineeSummaryStorageInMemory();
+    private final TrainingArchiveStorageInMemory trainingArchiveStorage = new TrainingArchiveStorageInMemory(trainingStorage);
+    private final SummaryWriteGate summaryWriteGate = new SummaryWriteGate();
+    private final TrainingService trainingService = new TrainingService(new TrainingMapperImpl(trainingTypeCache),
+            trainingStorage, trainingArchiveStorage, trainerSummaryStorage, traineeSummaryStorage,
+            new NoOpCache("trainerSummaries"), new SimpleMeterRegistry(), new SummaryProperties(), trainingTypeCache,
+            summaryWriteGate);
+    private final TrainerSummaryRebuildService rebuildService = new TrainerSummaryRebuildService(trainingStorage,
+            trainingArchiveStorage, trainerSummaryStorage, traineeSummaryStorage, new NoOpCache("trainerSummaries"),
+            summaryWriteGate);
+
+    @Test
+    void summaryETagChangesWithEveryWriteToTheTrainer() {
+        // no version yet, the controllers answer 404 before matching If-None-Match
+        assertNull(trainingService.getTrainerSummaryETag("john", false));
+
+        trainingService.saveTraining(request("john", "Session"), null);
+        String saved = trainingService.getTrainerSummaryETag("john", false);
+        assertNotNull(saved);
+        assertEquals(saved, trainingService.getTrainerSummaryETag("john", false));
+        assertNotEquals(saved, trainingService.getTrainerSummaryETag("john", true));
+
+        trainingService.saveTraining(request("kate", "Session"), null);
+        assertEquals(saved, trainingService.getTrainerSummaryETag("john", false));
+
+        trainingService.saveTrainings(List.of(training("john")));
+        String batchSaved = trainingService.getTrainerSummaryETag("john", false);
+        assertNotEquals(saved, batchSaved);
+
+        trainingService.deleteTrainingByTrainerUsername("john");
+        assertNotEquals(batchSaved, trainingService.getTrainerSummaryETag("john", false));
+    }
+
+    @Test
+    void summaryCachedBeforeAWriteIsNotServedAfterIt() {
+        ConcurrentMapCache cache = new ConcurrentMapCache("trainerSummaries");
+        TrainingService cachingService = new TrainingService(new TrainingMapperImpl(trainingTypeCache),
+                trainingStorage, trainingArchiveStorage, trainerSummaryStorage, traineeSummaryStorage,
+                cache, new SimpleMeterRegistry(), new SummaryProperties(), trainingTypeCache, new SummaryWriteGate());
+        cachingService.saveTraining(request("john", "Session"), null);
+        cachingService.getTrainingSummaryByTrainer("john");
+        Object staleEntry = cache.get("john").get();
+
+        cachingService.saveTraining(request("john", "Second session"), null);
+        // a reader that loaded the summary before the write puts it after the writer's eviction
+        cache.put("john", staleEntry);
+
+        MonthlyDurations expected = new MonthlyDurations();
+        expected.add(2024, 1, 120);
+        assertEquals(expected, cachingService.getTrainingSummaryByTrainer("john").getBody().summary());
+        cache.put("john", staleEntry);
+        assertEquals(expected, cachingService.getTrainingSummariesByTrainers(List.of("john")).getBody().get("john").summary());
+    }
+
+    @Test
+    void traineeSummaryFollowsSavesAndTrainerDeletes() {
+        trainingService.saveTraining(request("john", "Session"), null);
+        trainingService.saveTraining(request("kate", "Session"), null);
+        Training mark = training("john");
+        mark.setTraineeUsername("anna");
+        trainingService.saveTrainings(List.of(mark, training("john")));
+
+        MonthlyDurations anna = new MonthlyDurations();
+        anna.add(2024, 1, 120);
+        anna.add(2024, 2, 30);
+        assertEquals(anna, trainingService.getTrainingSummaryByTrainee("anna").getBody().summary());
+
+        trainingService.deleteTrainingByTrainerUsername("john");
+        MonthlyDurations afterDelete = new MonthlyDurations();
+        afterDelete.add(2024, 1, 60);
+        assertEquals(afterDelete, trainingService.getTrainingSummaryByTrainee("anna").getBody().summary());
+        // the emptied months are dropped rather than kept at zero
+        assertEquals(1, traineeSummaryStorage.findAll().size());
+        assertEquals(HttpStatus.NOT_FOUND, trainingService.getTrainingSummaryByTrainee("mark").getStatusCode());
+
+        assertEquals(0, rebuildService.rebuildTraineeSummaries());
+        traineeSummaryStorage.addTrainings("anna", 2024, 1, 5L, 0L);
+        assertEquals(1, rebuildService.rebuildTraineeSummaries());
+        assertEquals(afterDelete, trainingService.getTrainingSummaryByTrainee("anna").getBody().summary());
+    }
+
+    @Test
+    void rebuildCorrectsDriftedRowsInPlace() {
+        trainingService.saveTraining(request("john", "Session"), null);
+        trainingService.saveTrainings(List.of(training("john")));
+        long januaryId = trainerSummaryStorage.findSummaryByTrainer("john").stream()
+                .filter(summary -> summary.getSummaryMonth() == 1).findFirst().orElseThrow().getId();
+        trainerSummaryStorage.addTrainingDuration("john", 2024, 2, 5L);
+        trainerSummaryStorage.upsertTrainingDuration("john", 2024, 3, 10L);
+        trainerSummaryStorage.upsertTrainingDuration("kate", 2024, 1, 10L);
+
+        assertEquals(3, rebuildService.rebuildTrainerSummaries());
+        MonthlyDurations expected = new MonthlyDurations();
+        expected.add(2024, 1, 60);
+        expected.add(2024, 2, 30);
+        assertEquals(expected, trainingService.getTrainingSummaryByTrainer("john").getBody().summary());
+        assertTrue(trainerSummaryStorage.findSummaryByTrainer("kate").isEmpty());
+        // the rows in sync are kept rather than deleted and reinserted
+        assertTrue(trainerSummaryStorage.findSummaryByTrainer("john").stream()
+                .anyMatch(summary -> summary.getId() == januaryId));
+    }
+
+    @Test
+    void rebuildRunningAlongsideWritesNeitherLosesNorRepeatsThem() throws Exception {
+        ExecutorService writers = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int writer = 0; writer < 2; writer++) {
+                writes.add(writers.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        trainingService.saveTrainings(List.of(training("john")));
+                    }
+                }));
+            }
+            while (writes.stream().anyMatch(write -> !write.isDone())) {
+                rebuildService.rebuildTrainerSummaries();
+                rebuildService.rebuildTraineeSummaries();
+            }
+            for (Future<?> write : writes) {
+                write.get();
+            }
+        } finally {
+            writers.shutdown();
+        }
+
+        assertEquals(0, rebuildService.rebuildTrainerSummaries());
+        assertEquals(0, rebuildService.rebuildTraineeSummaries());
+        MonthlyDurations expected = new MonthlyDurations();
+        expected.add(2024, 2, 400 * 30);
+        assertEquals(expected, trainingService.getTrainingSummaryByTrainer("john").getBody().summary());
+    }
+
+    private static TrainingRecord.TrainingRequest request(String trainerUsername, String trainingName) {
+        return new TrainingRecord.TrainingRequest("anna", trainerUsername, trainingName, LocalDate.of(2024, 1, 15), 60L, null);
+    }
+
+    private static Training training(String trainerUsername) {
+        Training training = new Training();
+        training.setTrainerUsername(trainerUsername);
+        training.setTraineeUsername("mark");
+        training.setTrainingName("Session");
+        training.setTrainingDate(LocalDate.of(2024, 2, 15));
+        training.setTrainingDuration(30L);
+        return training;
+    }
+}
@@ -0,0 +1,55 @@
+package com.training_microservice.service;
+
+import com.training_microservice.dao.TrainingTypeRepo;
+import com.training_microservice.dao.inmemory.TrainingTypeStorageInMemory;
+import com.training_microservice.domain.entities.TrainingType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrainingTypeCacheTests {
+
+    @Test
+    void namesResolveCaseInsensitivelyAndRefreshPicksUpNewTypes() {
+        TrainingTypeStorageInMemory trainingTypeStorage = new TrainingTypeStorageInMemory();
+        TrainingTypeCache trainingTypeCache = new TrainingTypeCache(trainingTypeStorage);
+
+        assertEquals(2L, trainingTypeCache.findId(" yoga "));
+        assertEquals("YOGA", trainingTypeCache.findName(2L));
+        assertNull(trainingTypeCache.toTrainingTypeId(""));
+        assertThrows(IllegalArgumentException.class, () -> trainingTypeCache.toTrainingTypeId("Pilates"));
+
+        TrainingType pilates = trainingTypeStorage.save(new TrainingType(null, "PILATES"));
+        assertNull(trainingTypeCache.findId("Pilates"));
+        trainingTypeCache.refresh();
+        assertEquals(pilates.getId(), trainingTypeCache.toTrainingTypeId("Pilates"));
+    }
+
+    @Test
+    void failedRefreshKeepsTheLoadedTypes() {
+        TrainingTypeRepo failingRepo = new TrainingTypeRepo() {
+            private boolean loaded;
+
+            @Override
+            public TrainingType save(TrainingType value) {
+                return value;
+            }
+
+            @Override
+            public List<TrainingType> findAll() {
+                if (loaded) {
+                    throw new IllegalStateException("database down");
+                }
+                loaded = true;
+                return List.of(new TrainingType(1L, "FITNESS"));
+            }
+        };
+        TrainingTypeCache trainingTypeCache = new TrainingTypeCache(failingRepo);
+
+        trainingTypeCache.refresh();
+
+        assertEquals(1L, trainingTypeCache.findId("fitness"));
+    }
+}
@@ -0,0 +1,113 @@
+package com.training_microservice.service;
+
+import com.training_microservice.config.IngestionProperties;
+import com.training_microservice.config.SummaryProperties;
+import com.training_microservice.dao.inmemory.TraineeSummaryStorageInMemory;
+import com.training_microservice.dao.inmemory.TrainerSummaryStorageInMemory;
+import com.training_microservice.dao.inmemory.TrainingArchiveStorageInMemory;
+import com.training_microservice.dao.inmemory.TrainingStorageInMemory;
+import com.training_microservice.dao.inmemory.TrainingTypeStorageInMemory;
+import com.training_microservice.domain.entities.Training;
+import com.training_microservice.domain.records.TrainingRecord;
+import com.training_microservice.mapper.TrainingMapperImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrainingWriteBehindServiceTests {
+
+    private final TrainingTypeCache trainingTypeCache = new TrainingTypeCache(new TrainingTypeStorageInMemory());
+    private final TrainingMapperImpl trainingMapper = new TrainingMapperImpl(trainingTypeCache);
+    private final TrainingStorageInMemory trainingStorage = new TrainingStorageInMemory();
+    private final TrainingService trainingService = new TrainingService(trainingMapper, trainingStorage,
+            new TrainingArchiveStorageInMemory(trainingStorage), new TrainerSummaryStorageInMemory(),
+            new TraineeSummaryStorageInMemory(), new NoOpCache("trainerSummaries"), new SimpleMeterRegistry(),
+            new SummaryProperties(), trainingTypeCache, new SummaryWriteGate());
+    private final TrainingIdempotencyService idempotencyService =
+            new TrainingIdempotencyService(new IngestionProperties(), new SimpleMeterRegistry());
+
+    @Test
+    void queuedTrainingsAreSavedAndDrainedOnStop() {
+        TrainingWriteBehindService writeBehindService = writeBehindService(100);
+        writeBehindService.start();
+
+        ResponseEntity<TrainingRecord.TrainingAcceptedResponse> accepted = null;
+        for (int i = 0; i < 50; i++) {
+            accepted = writeBehindService.saveTraining(request(), i == 0 ? "request-1" : null);
+            assertEquals(HttpStatus.ACCEPTED, accepted.getStatusCode());
+        }
+        writeBehindService.stop();
+
+        assertEquals(50, trainingStorage.findTrainingByTrainer("john").size());
+        assertEquals(trainingTypeCache.findId("YOGA"), trainingStorage.findTrainingByTrainer("john").get(0).getTrainingTypeId());
+        TrainingRecord.TrainingIngestionStatus status =
+                writeBehindService.getIngestionStatus(accepted.getBody().trackingId()).getBody();
+        assertEquals(TrainingWriteBehindService.SAVED, status.status());
+        assertNotNull(status.trainingId());
+        // saved, so a retry of the request is now a replay
+        ResponseEntity retried = idempotencyService.saveTraining(request(), "request-1", (request, key) -> {
+            throw new AssertionError("replayed request saved again");
+        });
+        assertEquals("true", retried.getHeaders().getFirst(TrainingIdempotencyService.REPLAYED_HEADER));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, writeBehindService.saveTraining(request(), null).getStatusCode());
+    }
+
+    @Test
+    void fullQueueAnswersTooManyRequests() {
+        CountDownLatch release = new CountDownLatch(1);
+        TrainingService blockedService = new TrainingService(trainingMapper, trainingStorage,
+                new TrainingArchiveStorageInMemory(trainingStorage), new TrainerSummaryStorageInMemory(),
+                new TraineeSummaryStorageInMemory(), new NoOpCache("trainerSummaries"), new SimpleMeterRegistry(),
+                new SummaryProperties(), trainingTypeCache, new SummaryWriteGate()) {
+            @Override
+            public List<Training> saveTrainings(List<Training> trainings) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.saveTrainings(trainings);
+            }
+        };
+        TrainingWriteBehindService writeBehindService = new TrainingWriteBehindService(blockedService,
+                trainingMapper, idempotencyService, properties(2), new SimpleMeterRegistry());
+        writeBehindService.start();
+
+        int accepted = 0;
+        HttpStatus status;
+        while ((status = writeBehindService.saveTraining(request(), null).getStatusCode()) == HttpStatus.ACCEPTED) {
+            accepted++;
+        }
+        release.countDown();
+        writeBehindService.stop();
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, status);
+        // the queue holds 2, plus at most the batch the writer is blocked on
+        assertTrue(accepted >= 2 && accepted <= 4, "accepted " + accepted);
+        assertEquals(accepted, trainingStorage.findTrainingByTrainer("john").size());
+    }
+
+    private TrainingWriteBehindService writeBehindService(int capacity) {
+        return new TrainingWriteBehindService(trainingService, trainingMapper, idempotencyService, properties(capacity),
+                new SimpleMeterRegistry());
+    }
+
+    private static IngestionProperties properties(int capacity) {
+        IngestionProperties properties = new IngestionProperties();
+        properties.getWriteBehind().setCapacity(capacity);
+        properties.getWriteBehind().setMaxBatchSize(20);
+        return properties;
+    }
+
+    private static TrainingRecord.TrainingRequest request() {
+        return new TrainingRecord.TrainingRequest("anna", "john", "Session", LocalDate.of(2024, 1, 15), 60L, "yoga");
+    }
+}